@@ -0,0 +1,75 @@
+package benchmarks;
+
+import model.DealerEngine;
+import model.Shoe;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @brief Measures the dealer recursion with an empty memo (cold) and with a populated one (warm).
+ * @details The cold case is the cost of the first click after a card changes the shoe; an empty dealer hand is
+ *          the worst case, since every dealer sequence has to be enumerated. The parallel variants split deep
+ *          trees across the common fork-join pool.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class DealerEngineBenchmark {
+    @Param({"1", "2", "6", "8"})
+    public int decks;
+
+    @Param({"0", "75"})
+    public int penetration;
+
+    // Dealer hands, from the full enumeration down to a stiff total
+    @Param({"", "1", "2", "6", "10", "10 2", "10 6"})
+    public String dealerCards;
+
+    @Param({"false", "true"})
+    public boolean parallel;
+
+    private final DealerEngine engine = new DealerEngine();
+    private final double[] outcome = new double[DealerEngine.OUTCOMES];
+    private Shoe shoe;
+    private int hardTotal;
+    private boolean hasAce;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        shoe = Shoes.dealt(decks, penetration);
+        engine.setPool(parallel ? ForkJoinPool.commonPool() : null);
+        for (int rank : Shoes.ranks(dealerCards)) {
+            hardTotal += rank;
+            hasAce |= rank == 1;
+        }
+    }
+
+    @Benchmark
+    public double[] cold() {
+        engine.clearCache();
+        engine.outcome(shoe, hardTotal, hasAce, outcome);
+        return outcome;
+    }
+
+    @Benchmark
+    public double[] warm() {
+        engine.outcome(shoe, hardTotal, hasAce, outcome);
+        return outcome;
+    }
+}
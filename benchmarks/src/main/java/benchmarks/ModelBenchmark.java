@@ -0,0 +1,78 @@
+package benchmarks;
+
+import model.BlackJackModel;
+import model.HandState;
+import model.Shoe;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @brief Measures the BlackJackModel calls made on every card click.
+ * @details The hand value benchmarks cover the tracked HandState through the model's accessor and the state
+ *          transitions of a four-card hand.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ModelBenchmark {
+    @Param({"1", "2", "6", "8"})
+    public int decks;
+
+    @Param({"0", "75"})
+    public int penetration;
+
+    @Param({"1", "2", "6", "10"})
+    public int upCard;
+
+    private final BlackJackModel model = new BlackJackModel();
+    private Shoe shoe;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        shoe = Shoes.dealt(decks, penetration);
+        // A soft hand that turns hard
+        model.setHands(List.of(1, 1, 3, 10), List.of(upCard));
+    }
+
+    @Benchmark
+    public Map<Integer, Double> calculateDealerProbabilities() {
+        return model.calculateDealerProbabilities(shoe);
+    }
+
+    @Benchmark
+    public double probToBust() {
+        return model.probToBust(model.getPlayerHandValue(), shoe);
+    }
+
+    @Benchmark
+    public Map<Integer, Double> calculateProbabilities() {
+        return model.calculateProbabilities(shoe);
+    }
+
+    @Benchmark
+    public int handValue() {
+        return model.getPlayerHandValue();
+    }
+
+    @Benchmark
+    public int handStateTransitions() {
+        return HandState.EMPTY.add(1).add(1).add(3).add(upCard).value();
+    }
+}
@@ -0,0 +1,57 @@
+package benchmarks;
+
+import model.Shoe;
+
+import java.util.SplittableRandom;
+
+/**
+ * @brief Builds the shoes used by the benchmarks.
+ */
+final class Shoes {
+    private Shoes() {
+    }
+
+    /**
+     * @brief Creates a shoe with a fraction of its cards already dealt.
+     * @details Cards are removed at random with a fixed seed, so every run and every fork measures the same shoe.
+     *          Each card is drawn uniformly from those left, so the shoe keeps the proportions of a real one.
+     *
+     * @param decks The number of decks.
+     * @param penetration The percentage of cards removed, from 0 to 99.
+     * @return The shoe.
+     */
+    static Shoe dealt(int decks, int penetration) {
+        Shoe shoe = Shoe.ofDecks(decks);
+        SplittableRandom random = new SplittableRandom(42);
+        int toRemove = shoe.total() * penetration / 100;
+        for (; toRemove > 0; toRemove--) {
+            // Pick a card position, then the rank holding it
+            int card = random.nextInt(shoe.total());
+            int rank = 1;
+            while (card >= shoe.count(rank)) {
+                card -= shoe.count(rank);
+                rank++;
+            }
+            shoe.draw(rank);
+        }
+        return shoe;
+    }
+
+    /**
+     * @brief Parses a hand written as space-separated ranks.
+     *
+     * @param cards The ranks, possibly an empty string.
+     * @return The ranks of the cards.
+     */
+    static int[] ranks(String cards) {
+        if (cards.isBlank()) {
+            return new int[0];
+        }
+        String[] tokens = cards.trim().split("\\s+");
+        int[] ranks = new int[tokens.length];
+        for (int i = 0; i < tokens.length; i++) {
+            ranks[i] = Integer.parseInt(tokens[i]);
+        }
+        return ranks;
+    }
+}
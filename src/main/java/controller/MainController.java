@@ -1,65 +1,131 @@
 package controller;
 
+import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
+import metrics.AnalysisStepEvent;
+import metrics.Probe;
+import model.Action;
+import model.Analysis;
+import model.AnytimeEstimator;
 import model.BlackJackModel;
-
-import javax.smartcardio.Card;
-import java.util.HashMap;
+import model.CardCounter;
+import model.ChartAnalyzer;
+import model.CountingSystem;
+import model.EventJournal;
+import model.HandState;
+import model.RemovalAnalyzer;
+import model.RemovalEffects;
+import model.Rules;
+import model.Shoe;
+import model.StrategyChart;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
+import java.util.Locale;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class MainController {
-    private final Map<Button, Label> buttonLabelMap = new HashMap<>();
-    private final Map<Label, Integer> labelValues = new HashMap<>();
-    private final Map<Integer, Integer> cardCounts = new HashMap<>();
+    // Latency of the work done on the FX thread: the click itself and the label refresh
+    private static final Probe CLICK = Probe.of("ui.cardClick");
+    private static final Probe REFRESH = Probe.of("ui.labelRefresh");
+    // Latency budget of a click: past it, an estimate is shown until the exact analysis completes
+    private static final long ANALYSIS_BUDGET_NANOS =
+            TimeUnit.MILLISECONDS.toNanos(Long.getLong("analysis.budgetMillis", 50));
+
+    private Shoe shoe = Shoe.ofDecks(1);
+    private final CardCounter counter = new CardCounter(CountingSystem.HI_LO, 1);
     private final BlackJackModel gameModel = new BlackJackModel();
 
+    // Background analysis: a dedicated thread owns analysisModel and its memo tables
+    private final ExecutorService analysisExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "analysis");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final BlackJackModel analysisModel = new BlackJackModel();
+    private final AtomicLong analysisGeneration = new AtomicLong();
+    private Future<?> pendingAnalysis;
+    private Analysis shownAnalysis = Analysis.EMPTY;
+    // Sides changed since an exact analysis was last shown; an estimate shown in between does not clear them
+    private boolean playerStale, dealerStale;
+    private long exactGeneration;
+
+    // Anytime estimates, sampled on their own thread until the budget runs out or the exact analysis is shown
+    private final ExecutorService estimateExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "estimate");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AnytimeEstimator estimator = new AnytimeEstimator(Rules.standard());
+    private Future<?> pendingEstimate;
+
+    // Effect of removal: refreshed after every card on its own thread, its 11 evaluations spread over the cores
+    private final ExecutorService removalExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "removal");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final RemovalAnalyzer removalAnalyzer = new RemovalAnalyzer(Rules.standard(), ForkJoinPool.commonPool());
+    // The strategy chart shares the report's memo tables, which already hold every hand of the current shoe
+    private final ChartAnalyzer chartAnalyzer = new ChartAnalyzer(removalAnalyzer);
+    private final AtomicLong removalGeneration = new AtomicLong();
+    private Future<?> pendingRemoval;
+
+    // Every table event is journaled so the state survives restarts and can be undone; null if unavailable
+    private EventJournal journal;
+
     // FXML components
     @FXML private TextField decksNum;
     @FXML private CheckBox myTurn, dealerTurn;
     @FXML private Button button1, button2, button3, button4, button5, button6, button7, button8, button9, button10; // card buttons
-    @FXML private Button start, reset, newTurn;
+    @FXML private Button start, reset, newTurn, undo, chart;
     @FXML private Label label1, label2, label3, label4, label5, label6, label7, label8, label9, label10; // total deck cards by value
     @FXML private Label probNum1, probNum2, probNum3, probNum4, probNum5, probNum6, probNum7, probNum8, probNum9, probNum10; // probability to draw card
     @FXML private Label probOf12, probOf13, probOf14, probOf15, probOf16, probOf17, probOf18, probOf19, probOf20, probOf21; // player probability
-    @FXML private Label totalCards, playerHand, probToBust, dealerHand, dealerProbOfBust, bestChoice, handCards;
+    @FXML private Label totalCards, playerHand, probToBust, dealerHand, dealerProbOfBust, bestChoice, handCards, trueCount;
+    @FXML private Label roundEdge, removalEffects, analysisAccuracy;
     @FXML private Label dealerProbOf17, dealerProbOf18, dealerProbOf19, dealerProbOf20, dealerProbOf21; // dealer probability
 
-    private List<Label> labels;
+    // View bindings, indexed by card rank - 1 or by hand value - first value
+    private Label[] countLabels, drawProbLabels, playerProbLabels, dealerProbLabels;
 
     /**
      * @brief Initializes the controller by setting up the buttons and labels.
      */
     @FXML
-    public void initialize() throws NoSuchFieldException, IllegalAccessException {
-        labels = List.of(label1, label2, label3, label4, label5, label6, label7, label8, label9, label10);
-
-        // Map buttons to corresponding labels
-        buttonLabelMap.put(button1, label1);
-        buttonLabelMap.put(button2, label2);
-        buttonLabelMap.put(button3, label3);
-        buttonLabelMap.put(button4, label4);
-        buttonLabelMap.put(button5, label5);
-        buttonLabelMap.put(button6, label6);
-        buttonLabelMap.put(button7, label7);
-        buttonLabelMap.put(button8, label8);
-        buttonLabelMap.put(button9, label9);
-        buttonLabelMap.put(button10, label10);
-
-        // Initialize card count to 1 deck and prob to draw cards
-        setCardsNum(1);
-        setProbToDrawCards();
+    public void initialize() {
+        Button[] cardButtons = {button1, button2, button3, button4, button5, button6, button7, button8, button9, button10};
+        countLabels = new Label[]{label1, label2, label3, label4, label5, label6, label7, label8, label9, label10};
+        drawProbLabels = new Label[]{probNum1, probNum2, probNum3, probNum4, probNum5, probNum6, probNum7, probNum8, probNum9, probNum10};
+        playerProbLabels = new Label[]{probOf12, probOf13, probOf14, probOf15, probOf16, probOf17, probOf18, probOf19, probOf20, probOf21};
+        dealerProbLabels = new Label[]{dealerProbOf17, dealerProbOf18, dealerProbOf19, dealerProbOf20, dealerProbOf21};
+
+        // Deep dealer trees are split across the cores when there is more than one
+        if (Runtime.getRuntime().availableProcessors() > 1) {
+            analysisModel.setDealerPool(ForkJoinPool.commonPool());
+        }
 
-        // Set up button actions
-        for (Map.Entry<Button, Label> entry : buttonLabelMap.entrySet()) {
-            entry.getKey().setOnAction(event -> {
-                try {
-                    handleCardClick(entry.getValue(), entry.getKey());
-                } catch (NoSuchFieldException | IllegalAccessException e) {
-                    throw new RuntimeException(e);
-                }
-            });
+        // Restore the previous session if there is one, otherwise start with 1 deck
+        journal = openJournal();
+        if (journal != null && !journal.isEmpty()) {
+            rebuildFromJournal();
+        } else {
+            setCardsNum(1);
+        }
+
+        // Set up button actions, each button is bound to its card rank
+        for (int i = 0; i < cardButtons.length; i++) {
+            int rank = i + 1;
+            cardButtons[i].setOnAction(event -> handleCardClick(rank));
         }
 
         // Set up checkboxes actions
@@ -69,6 +135,7 @@ public class MainController {
                 handleDealerTurnChange();
             }
             handleTurnChange();
+            recordTurns();
         });
         dealerTurn.setOnAction(event -> {
             if (dealerTurn.isSelected()) {
@@ -76,87 +143,406 @@ public class MainController {
                 handleTurnChange();
             }
             handleDealerTurnChange();
+            recordTurns();
         });
 
         // Set up buttons for start, new turn, and reset
-        start.setOnAction(event -> {
+        start.setOnAction(event -> setCardsNum(getDecksNum()));
+        newTurn.setOnAction(event -> setNewTurn());
+        reset.setOnAction(event -> resetAll());
+        undo.setOnAction(event -> undoLast());
+        chart.setOnAction(event -> showChart());
+    }
+
+    /**
+     * @brief Opens the event journal named by the journal.path property, 21strategy.journal by default.
+     *
+     * @return The journal, or null if it cannot be opened.
+     */
+    private static EventJournal openJournal() {
+        Path path = Path.of(System.getProperty("journal.path", "21strategy.journal"));
+        try {
+            return EventJournal.open(path);
+        } catch (IOException e) {
+            System.err.println("Running without journal " + path + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * @brief Retrieves the number of decks entered by the user.
+     *
+     * @return The number of decks (default is 1 if input is invalid).
+     */
+    private int getDecksNum() {
+        try {
+            return Math.min(Shoe.MAX_DECKS, Math.max(1, Integer.parseInt(decksNum.getText().trim())));
+        } catch (NumberFormatException e) {
+            return 1;
+        }
+    }
+
+    /**
+     * @brief Handles the action of clicking a card button.
+     *
+     * @param value The rank of the clicked card, from 1 (ace) to 10.
+     */
+    private void handleCardClick(int value) {
+        AnalysisStepEvent event = CLICK.begin();
+        boolean playerChanged = false, dealerChanged = false;
+        boolean toPlayer = gameModel.isMyTurn(), toDealer = gameModel.isDealerTurn();
+        if(shoe.count(value) > 0) {
+            decrementLabel(value);
+
+            // Add the card to the player's hand, the probabilities are refreshed in the background
+            if(gameModel.getPlayerHandValue() < 21 && shoe.total()!=0) {
+                gameModel.addCard(value);
+                updatePlayerHand(value);
+                playerChanged = true;
+            }
+
+            // Add the card to the dealer's hand, the probabilities are refreshed in the background
+            if(gameModel.getDealerHandValue() < 17 && shoe.total()!=0) {
+                gameModel.addDealerCard(value);
+                updateDealerHand();
+                dealerChanged = true;
+            }
+
+            if (journal != null) {
+                journal.card(value, toPlayer && playerChanged, toDealer && dealerChanged);
+            }
+        }
+
+        // Show the index play right away, the exact analysis replaces it when ready
+        Action indexPlay = gameModel.indexPlay(counter.indexCount());
+        if (indexPlay != null) {
+            bestChoice.setText(indexPlay.toString());
+        }
+        scheduleAnalysis(playerChanged, dealerChanged);
+        CLICK.end(event);
+    }
+
+    /**
+     * @brief Starts the probability and strategy computation for the current state on the analysis thread.
+     * @details The inputs are copied on the FX thread, so the task never touches the live model. A newer call
+     *          cancels the pending task, and results of a superseded task are never published. An estimate is
+     *          sampled alongside until the latency budget runs out and shown if the exact analysis is not ready
+     *          by then; the exact analysis replaces it when it completes.
+     *
+     * @param playerChanged True if the player's probabilities must be recomputed.
+     * @param dealerChanged True if the dealer's probabilities must be recomputed.
+     */
+    private void scheduleAnalysis(boolean playerChanged, boolean dealerChanged) {
+        long generation = cancelAnalysis();
+        long deadline = System.nanoTime() + ANALYSIS_BUDGET_NANOS;
+
+        // The sides only estimated since the last exact analysis are recomputed as well
+        playerStale |= playerChanged;
+        dealerStale |= dealerChanged;
+        boolean player = playerStale, dealer = dealerStale;
+
+        Shoe shoeSnapshot = shoe.copy(), estimateShoe = shoe.copy();
+        List<Integer> playerCards = gameModel.getPlayerCards();
+        List<Integer> dealerCards = gameModel.getDealerCards();
+        Analysis previous = shownAnalysis;
+
+        pendingAnalysis = analysisExecutor.submit(() -> {
+            analysisModel.setHands(playerCards, dealerCards);
+            Analysis analysis;
             try {
-                setCardsNum(getDecksNum());
-            } catch (NoSuchFieldException e) {
-                throw new RuntimeException(e);
-            } catch (IllegalAccessException e) {
-                throw new RuntimeException(e);
+                analysis = analysisModel.analyze(shoeSnapshot, previous, player, dealer);
+            } catch (CancellationException e) {
+                return; // Superseded by a newer card: the solver stopped early
             }
+            if (Thread.currentThread().isInterrupted()) return;
+
+            Platform.runLater(() -> {
+                if (generation == analysisGeneration.get()) {
+                    exactGeneration = generation;
+                    cancelEstimate();
+                    publishAnalysis(analysis);
+                }
+            });
+        });
+        pendingEstimate = estimateExecutor.submit(() -> {
+            Analysis estimate = estimator.estimate(estimateShoe, playerCards, dealerCards, previous, player, dealer,
+                    deadline);
+            if (Thread.currentThread().isInterrupted()) return;
+
+            Platform.runLater(() -> {
+                // The exact analysis may have been shown while the estimate was queued
+                if (generation == analysisGeneration.get() && generation != exactGeneration) {
+                    publishAnalysis(estimate);
+                }
+            });
         });
-        newTurn.setOnAction(event -> {
+    }
+
+    /**
+     * @brief Cancels the pending analysis, if any, and invalidates any result still in flight.
+     *
+     * @return The generation number for the next analysis.
+     */
+    private long cancelAnalysis() {
+        if (pendingAnalysis != null) {
+            pendingAnalysis.cancel(true);
+            pendingAnalysis = null;
+        }
+        cancelEstimate();
+        return analysisGeneration.incrementAndGet();
+    }
+
+    /**
+     * @brief Stops sampling the pending estimate, if any.
+     */
+    private void cancelEstimate() {
+        if (pendingEstimate != null) {
+            pendingEstimate.cancel(true);
+            pendingEstimate = null;
+        }
+    }
+
+    /**
+     * @brief Starts the effect-of-removal report for the current shoe in the background.
+     * @details A newer call cancels the pending report, and results of a superseded report are never published.
+     */
+    private void scheduleRemovalEffects() {
+        if (pendingRemoval != null) {
+            pendingRemoval.cancel(true);
+        }
+        long generation = removalGeneration.incrementAndGet();
+        Shoe shoeSnapshot = shoe.copy();
+
+        pendingRemoval = removalExecutor.submit(() -> {
+            RemovalEffects effects;
             try {
-                setNewTurn();
-            } catch (NoSuchFieldException | IllegalAccessException e) {
-                throw new RuntimeException(e);
+                effects = removalAnalyzer.analyze(shoeSnapshot);
+            } catch (CancellationException e) {
+                return; // Superseded by a newer card
+            } catch (RuntimeException e) {
+                String message = failureMessage(e);
+                System.err.println(message);
+                Platform.runLater(() -> {
+                    if (generation == removalGeneration.get()) {
+                        roundEdge.setText("-");
+                        removalEffects.setText(message);
+                    }
+                });
+                return;
             }
+
+            Platform.runLater(() -> {
+                if (generation == removalGeneration.get()) {
+                    publishRemovalEffects(effects);
+                }
+            });
         });
-        reset.setOnAction(event -> {
+    }
+
+    /**
+     * @brief Computes the strategy chart of the current shoe in the background and shows it in a window.
+     * @details The chart runs on the effect-of-removal thread after the pending report, so it is mostly made of
+     *          lookups in the report's memo tables.
+     */
+    private void showChart() {
+        Shoe shoeSnapshot = shoe.copy();
+        removalExecutor.submit(() -> {
+            StrategyChart strategyChart;
             try {
-                resetAll();
-            } catch (NoSuchFieldException | IllegalAccessException e) {
-                throw new RuntimeException(e);
+                strategyChart = chartAnalyzer.chart(shoeSnapshot);
+            } catch (CancellationException e) {
+                return;
+            } catch (RuntimeException e) {
+                String message = failureMessage(e);
+                System.err.println(message);
+                Platform.runLater(() -> {
+                    Alert alert = new Alert(Alert.AlertType.ERROR, message);
+                    alert.setTitle("Strategy chart");
+                    alert.show();
+                });
+                return;
             }
+
+            Platform.runLater(() -> {
+                TextArea text = new TextArea(strategyChart.toString());
+                text.setEditable(false);
+                text.setStyle("-fx-font-family: monospace;");
+                Alert alert = new Alert(Alert.AlertType.INFORMATION);
+                alert.setTitle("Strategy chart");
+                alert.setHeaderText(String.format(Locale.ROOT, "%d cards, %d deviations from basic strategy (*)",
+                        shoeSnapshot.total(), strategyChart.deviations()));
+                alert.getDialogPane().setContent(text);
+                alert.show();
+            });
         });
+    }
 
-        // Update labels after initialization
-        updateLabels();
+    /**
+     * @brief Describes a failed background computation, with the error that caused it.
+     *
+     * @param e The exception thrown by the computation.
+     * @return The message.
+     */
+    private static String failureMessage(RuntimeException e) {
+        return e.getCause() != null ? e.getMessage() + ": " + e.getCause() : e.toString();
     }
 
     /**
-     * @brief Retrieves the number of decks entered by the user.
+     * @brief Shows the round's edge and the effect of removing each rank, in percent of the bet.
      *
-     * @return The number of decks (default is 1 if input is invalid).
+     * @param effects The report to show.
      */
-    private int getDecksNum() {
-        try {
-            return Math.max(1, Integer.parseInt(decksNum.getText().trim()));
-        } catch (NumberFormatException e) {
-            return 1;
+    private void publishRemovalEffects(RemovalEffects effects) {
+        roundEdge.setText(formatEdge(effects.baseEv()));
+        StringBuilder text = new StringBuilder();
+        for (int rank = 1; rank <= 10; rank++) {
+            text.append(rank == 1 ? "A" : String.valueOf(rank)).append(' ').append(formatEdge(effects.effect(rank)));
+            text.append(rank % 2 == 0 ? "\n" : "   ");
         }
+        removalEffects.setText(text.toString());
     }
 
     /**
-     * @brief Handles the action of clicking a card button.
+     * @brief Formats an expected value as a signed percentage of the bet.
+     *
+     * @param ev The expected value in units of the bet, NaN if unknown.
+     * @return The formatted text.
+     */
+    private static String formatEdge(double ev) {
+        return Double.isNaN(ev) ? "-" : String.format(Locale.ROOT, "%+.3f%%", ev * 100);
+    }
+
+    /**
+     * @brief Publishes the results of an analysis to the labels in a single FX pulse.
      *
-     * @param label The corresponding label for the clicked card.
-     * @param button The button that was clicked.
-     * @throws NoSuchFieldException If reflection fails to access fields.
-     * @throws IllegalAccessException If reflection access is denied.
+     * @param analysis The results to show.
      */
-    private void handleCardClick(Label label, Button button) throws NoSuchFieldException, IllegalAccessException {
-        if (!labelValues.containsKey(label)) return;
+    private void publishAnalysis(Analysis analysis) {
+        AnalysisStepEvent event = REFRESH.begin();
+        shownAnalysis = analysis;
+        if (analysis.isExact()) {
+            playerStale = false;
+            dealerStale = false;
+        }
+        probToBust.setText(formatPercentage(analysis.playerBust()));
+        for (int i = Analysis.PLAYER_MIN; i <= Analysis.PLAYER_MAX; i++) {
+            playerProbLabels[i - Analysis.PLAYER_MIN].setText(formatPercentage(analysis.playerProbability(i)));
+        }
+        dealerProbOfBust.setText(formatPercentage(analysis.dealerBust()));
+        for (int i = Analysis.DEALER_MIN; i <= Analysis.DEALER_MAX; i++) {
+            dealerProbLabels[i - Analysis.DEALER_MIN].setText(formatPercentage(analysis.dealerProbability(i)));
+        }
+        bestChoice.setText(analysis.recommendation() != null ? analysis.recommendation().toString() : "");
+        analysisAccuracy.setText(analysis.isExact() ? "exact"
+                : String.format(Locale.ROOT, "estimate, \u00b1%.1f%%", analysis.errorBound() * 100));
+        REFRESH.end(event);
+    }
 
-        if(Integer.parseInt(label.getText()) > 0) {
-            int value = Integer.parseInt(button.getText().trim());
-            decrementLabel(label, value);
+    /**
+     * @brief Formats a probability as a percentage for display.
+     *
+     * @param probability The probability, between 0 and 1.
+     * @return The formatted text.
+     */
+    private static String formatPercentage(double probability) {
+        return String.format(Locale.ROOT, "%.2f%%", probability * 100);
+    }
 
-            // Add the card to the player's hand and update the hand probabilities for the player
-            if(Integer.parseInt(playerHand.getText()) < 21 && Integer.parseInt(totalCards.getText())!=0) {
-                gameModel.addCard(value);
-                updatePlayerHand(button.getText());
-                updateProbabilities();
+    /**
+     * @brief Journals the state of both turn check boxes.
+     */
+    private void recordTurns() {
+        if (journal != null) {
+            journal.turns(gameModel.isMyTurn(), gameModel.isDealerTurn());
+        }
+    }
+
+    /**
+     * @brief Undoes the latest card, turn change or new round, and rebuilds the state from the journal.
+     */
+    private void undoLast() {
+        if (journal != null) {
+            journal.undo();
+            rebuildFromJournal();
+        }
+    }
+
+    /**
+     * @brief Rebuilds the shoe, the count, the hands and the turns from the journal, then refreshes the view.
+     */
+    private void rebuildFromJournal() {
+        cancelAnalysis();
+        // Cards go to the hands they were journaled for, whatever the turns at that point of the replay
+        List<Integer> replayedPlayerCards = new ArrayList<>(), replayedDealerCards = new ArrayList<>();
+        journal.replay(new EventJournal.Handler() {
+            private HandState player = HandState.EMPTY, dealer = HandState.EMPTY;
+
+            @Override
+            public void start(int decks) {
+                shoe = Shoe.ofDecks(decks);
+                counter.reset(decks);
+                newRound();
+                gameModel.setMyTurn(false);
+                gameModel.setDealerTurn(false);
+                decksNum.setText(String.valueOf(decks));
             }
 
-            // Add the card to the dealer's hand and update the dealer's hand and probabilities for the dealer
-            if(Integer.parseInt(dealerHand.getText()) < 17 && Integer.parseInt(totalCards.getText())!=0) {
-                gameModel.addDealerCard(value);
-                updateDealerHand();
-                updateDealerProbabilities();
+            @Override
+            public void card(int rank, boolean toPlayer, boolean toDealer) {
+                shoe.remove(rank);
+                counter.cardSeen(rank);
+                if (toPlayer) {
+                    replayedPlayerCards.add(rank);
+                    player = player.add(rank);
+                    // Same as the check boxes: a hand that cannot draw ends its turn
+                    if (player.value() >= 21) gameModel.setMyTurn(false);
+                }
+                if (toDealer) {
+                    replayedDealerCards.add(rank);
+                    dealer = dealer.add(rank);
+                    if (dealer.value() >= 17) gameModel.setDealerTurn(false);
+                }
+            }
+
+            @Override
+            public void turns(boolean myTurn, boolean dealerTurn) {
+                gameModel.setMyTurn(myTurn);
+                gameModel.setDealerTurn(dealerTurn);
+            }
+
+            @Override
+            public void newRound() {
+                replayedPlayerCards.clear();
+                replayedDealerCards.clear();
+                player = HandState.EMPTY;
+                dealer = HandState.EMPTY;
             }
+        });
+        gameModel.setHands(replayedPlayerCards, replayedDealerCards);
+
+        updateLabels();
+        updateCount();
+        setProbToDrawCards();
+
+        int playerValue = gameModel.getPlayerHandValue(), dealerValue = gameModel.getDealerHandValue();
+        List<Integer> playerCards = gameModel.getPlayerCards();
+        StringBuilder cards = new StringBuilder();
+        for (int card : playerCards) {
+            cards.append(' ').append(card);
         }
+        handCards.setText(cards.toString());
+        playerHand.setText(String.valueOf(playerValue));
+        playerHand.setStyle(playerValue > 21 ? "-fx-text-fill: red;" : "-fx-text-fill: black;");
+        dealerHand.setText(String.valueOf(dealerValue));
+        myTurn.setSelected(gameModel.isMyTurn());
+        myTurn.setDisable(playerValue >= 21);
+        dealerTurn.setSelected(gameModel.isDealerTurn());
+        dealerTurn.setDisable(dealerValue >= 17);
 
-        bestChoice.setText(gameModel.bestChoice(
-                Integer.parseInt(playerHand.getText()),
-                Integer.parseInt(dealerHand.getText()),
-                Double.parseDouble(probToBust.getText().replace("%", "").replace(",", ".")) / 100,
-                Double.parseDouble(dealerProbOfBust.getText().replace("%", "").replace(",", ".")) / 100,
-                getPlayerProbabilities(), getDealerProbabilities()
-        ));
+        publishAnalysis(Analysis.EMPTY);
+        bestChoice.setText("Hit");
+        scheduleAnalysis(!playerCards.isEmpty(), !gameModel.getDealerCards().isEmpty());
+        scheduleRemovalEffects();
     }
 
     /**
@@ -175,8 +561,10 @@ public class MainController {
 
     /**
      * @brief Updates the player's hand value on the UI.
+     *
+     * @param cardValue The rank of the card just added.
      */
-    private void updatePlayerHand(String cardValue) {
+    private void updatePlayerHand(int cardValue) {
         int playerValue = gameModel.getPlayerHandValue();
         playerHand.setText(String.valueOf(playerValue));
 
@@ -217,39 +605,28 @@ public class MainController {
     }
 
     /**
-     * @brief Decrements the value of the selected label by the card value.
+     * @brief Removes a card of the given rank from the shoe and refreshes its count and the draw probabilities.
      *
-     * @param label The label corresponding to the card.
      * @param cardValue The value of the card.
      */
-    private void decrementLabel(Label label, int cardValue) throws NoSuchFieldException, IllegalAccessException {
-        if (!labelValues.containsKey(label)) return;
-
-        int currentValue = labelValues.get(label);
-        if (currentValue > 0) {
-            labelValues.put(label, currentValue - 1);
-            label.setText(String.valueOf(currentValue - 1));
-
-            // Decrease total card count
-            int total = Integer.parseInt(totalCards.getText());
-            totalCards.setText(String.valueOf(Math.max(0, total - 1)));
-
-            // Update the card count for the card value
-            cardCounts.put(cardValue, cardCounts.getOrDefault(cardValue, 0) - 1);
-
+    private void decrementLabel(int cardValue) {
+        if (shoe.remove(cardValue)) {
+            counter.cardSeen(cardValue);
+            countLabels[cardValue - 1].setText(String.valueOf(shoe.count(cardValue)));
+            totalCards.setText(String.valueOf(shoe.total()));
+            updateCount();
             setProbToDrawCards();
+            scheduleRemovalEffects();
         }
     }
 
     /**
      * @brief Probability to draw all different type of card
      */
-    private void setProbToDrawCards() throws NoSuchFieldException, IllegalAccessException {
-        for(int i=1; i<=10; i++) {
-            Label tmpLab = (Label) getClass().getDeclaredField("label" + i).get(this);
-            double probability = gameModel.probDrawCard(Integer.parseInt(tmpLab.getText()), Integer.parseInt(totalCards.getText()));
-            Label drawNum = (Label) getClass().getDeclaredField("probNum" + i).get(this);
-            drawNum.setText(String.format("%.2f%%", probability * 100));
+    private void setProbToDrawCards() {
+        for (int rank = 1; rank <= 10; rank++) {
+            double probability = gameModel.probDrawCard(shoe.count(rank), shoe.total());
+            drawProbLabels[rank - 1].setText(formatPercentage(probability));
         }
     }
 
@@ -258,110 +635,51 @@ public class MainController {
      *
      * @param decks The number of decks to use.
      */
-    private void setCardsNum(int decks) throws NoSuchFieldException, IllegalAccessException {
-        deleteGUIValue();
-        for (int i = 2; i <= 9; i++) {
-            cardCounts.put(i, 4 * decks);
-        }
-        cardCounts.put(10, 16 * decks);
-        cardCounts.put(1, 4 * decks);
-
-        // Set the label values based on the number of decks
-        for (Label label : labels) {
-            labelValues.put(label, 4 * decks);
+    private void setCardsNum(int decks) {
+        if (journal != null) {
+            journal.start(decks);
+            // The turns carry over to the new shoe, and the event that set them was just discarded
+            recordTurns();
         }
-        labelValues.put(label10, 16 * decks);
-        totalCards.setText(String.valueOf(52 * decks));
-
+        shoe = Shoe.ofDecks(decks);
+        counter.reset(decks);
+        updateCount();
+        deleteGUIValue();
         updateLabels();
+        scheduleRemovalEffects();
     }
 
     /**
-     * @brief Updates the labels for the remaining cards.
-     */
-    private void updateLabels() {
-        for (Map.Entry<Label, Integer> entry : labelValues.entrySet()) {
-            entry.getKey().setText(String.valueOf(entry.getValue()));
-        }
-    }
-
-    /**
-     * @brief Updates the probabilities for the player's hand.
-     *
-     * @throws NoSuchFieldException If reflection fails to access fields.
-     * @throws IllegalAccessException If reflection access is denied.
-     */
-    private void updateProbabilities() throws NoSuchFieldException, IllegalAccessException {
-        double probability = gameModel.probToBust(gameModel.getPlayerHandValue(), cardCounts, Integer.parseInt(totalCards.getText()));
-        probToBust.setText(String.format("%.2f%%", probability * 100));
-
-        // Update probabilities for the player's hand values (12 to 21)
-        updateProbLabels("probOf", gameModel.calculateProbabilities(cardCounts, Integer.parseInt(totalCards.getText())));
-    }
-
-    /**
-     * @brief Updates the probability labels for values from 12 to 21.
-     *
-     * @param prefix The prefix for the probability labels (e.g., "probOf").
-     * @param probabilities The map containing probabilities for each value.
-     * @throws NoSuchFieldException If reflection fails to access fields.
-     * @throws IllegalAccessException If reflection access is denied.
-     */
-    private void updateProbLabels(String prefix, Map<Integer, Double> probabilities) throws NoSuchFieldException, IllegalAccessException {
-        for (int i = 12; i <= 21; i++) {
-            Label probLabel = (Label) getClass().getDeclaredField(prefix + i).get(this);
-            double probability = probabilities.getOrDefault(i, 0.0);
-            probLabel.setText(String.format("%.2f%%", probability * 100));
-        }
-    }
-
-    /**
-     * @brief Updates the dealer's probabilities for busting and specific hand values.
-     *
-     * @throws NoSuchFieldException If reflection fails to access fields.
-     * @throws IllegalAccessException If reflection access is denied.
+     * @brief Shows the running and true count.
      */
-    private void updateDealerProbabilities() throws NoSuchFieldException, IllegalAccessException {
-        double probability = gameModel.probToBust(gameModel.getDealerHandValue(), cardCounts, Integer.parseInt(totalCards.getText()));
-        dealerProbOfBust.setText(String.format("%.2f%%", probability * 100));
-        // Update dealer's probabilities for hand values 17 to 21
-        updateDealerProbLabels("dealerProbOf", gameModel.calculateDealerProbabilities(cardCounts, Integer.parseInt(totalCards.getText()), gameModel.getDealerHandValue()));
+    private void updateCount() {
+        trueCount.setText(String.format(Locale.ROOT, "%d (%+.1f)", counter.runningCount(), counter.trueCount()));
     }
 
     /**
-     * @brief Updates the dealer's probability labels for values from 17 to 21.
-     *
-     * @param prefix The prefix for the probability labels (e.g., "dealerProbOf").
-     * @param probabilities The map containing probabilities for each value.
-     * @throws NoSuchFieldException If reflection fails to access fields.
-     * @throws IllegalAccessException If reflection access is denied.
+     * @brief Updates the labels for the remaining cards.
      */
-    private void updateDealerProbLabels(String prefix, Map<Integer, Double> probabilities) throws NoSuchFieldException, IllegalAccessException {
-        for (int i = 17; i <= 21; i++) {
-            // Use reflection to access the correct label dynamically
-            Label probLabel = (Label) getClass().getDeclaredField(prefix + i).get(this);
-            double probability = probabilities.getOrDefault(i, 0.0);
-            probLabel.setText(String.format("%.2f%%", probability * 100));
+    private void updateLabels() {
+        for (int rank = 1; rank <= 10; rank++) {
+            countLabels[rank - 1].setText(String.valueOf(shoe.count(rank)));
         }
+        totalCards.setText(String.valueOf(shoe.total()));
     }
 
     /**
      * @brief Starts a new turn by resetting the necessary values.
-     *
-     * @throws NoSuchFieldException If reflection fails to access fields.
-     * @throws IllegalAccessException If reflection access is denied.
      */
-    private void setNewTurn() throws NoSuchFieldException, IllegalAccessException {
+    private void setNewTurn() {
+        if (journal != null) {
+            journal.newRound();
+        }
         deleteGUIValue();
     }
 
     /**
      * @brief Resets all values to their initial state.
-     *
-     * @throws NoSuchFieldException If reflection fails to access fields.
-     * @throws IllegalAccessException If reflection access is denied.
      */
-    private void resetAll() throws NoSuchFieldException, IllegalAccessException {
+    private void resetAll() {
         setCardsNum(1);
         decksNum.setText("1");
         deleteGUIValue();
@@ -370,69 +688,19 @@ public class MainController {
     /**
      * @brief Resets the GUI values, including hands and probabilities.
      */
-    private void deleteGUIValue() throws NoSuchFieldException, IllegalAccessException {
+    private void deleteGUIValue() {
+        cancelAnalysis();
         gameModel.resetPlayerHand();
         gameModel.resetDealerHand();
         playerHand.setStyle("-fx-text-fill: black;");
         playerHand.setText("0");
-        probToBust.setText("0.00%");
         dealerHand.setText("0");
-        bestChoice.setText("Hit");
-        dealerProbOfBust.setText("0.00%");
         handCards.setText("");
-
-        for (int i = 12; i <= 21; i++) {
-            String prefix = "probOf";
-            Label probLabel = (Label) getClass().getDeclaredField(prefix + i).get(this);
-            probLabel.setText("0,00%");
-        }
-
-        for (int i = 17; i <= 21; i++) {
-            String prefix = "dealerProbOf";
-            Label probLabel = (Label) getClass().getDeclaredField(prefix + i).get(this);
-            probLabel.setText("0,00%");
-        }
+        publishAnalysis(Analysis.EMPTY);
+        bestChoice.setText("Hit");
 
         dealerTurn.setDisable(false);
         myTurn.setDisable(false);
         setProbToDrawCards();
     }
-
-    /**
-     * @brief Retrieves the player's probabilities to achieve hand values from 12 to 21.
-     *
-     * @throws NoSuchFieldException If the field corresponding to the label is not found.
-     * @throws IllegalAccessException If the field is not accessible.
-     *
-     * @return A map where the keys are hand values from 12 to 21, and the values are the probabilities
-     *         (between 0 and 1) of the player achieving those values.
-     */
-    private Map<Integer, Double> getPlayerProbabilities() throws NoSuchFieldException, IllegalAccessException {
-        Map<Integer, Double> probabilities = new HashMap<>();
-        for (int i = 12; i <= 21; i++) {
-            Label probLabel = (Label) getClass().getDeclaredField("probOf" + i).get(this);
-            String probText = probLabel.getText().replace("%", "").replace(",", ".");
-            probabilities.put(i, Double.parseDouble(probText) / 100);
-        }
-        return probabilities;
-    }
-
-    /**
-     * @brief Retrieves the dealer's probabilities to achieve hand values from 17 to 21.
-     *
-     * @throws NoSuchFieldException If the field corresponding to the label is not found.
-     * @throws IllegalAccessException If the field is not accessible.
-     *
-     * @return A map where the keys are hand values from 17 to 21, and the values are the probabilities
-     *         (between 0 and 1) of the dealer achieving those values.
-     */
-    private Map<Integer, Double> getDealerProbabilities() throws NoSuchFieldException, IllegalAccessException {
-        Map<Integer, Double> probabilities = new HashMap<>();
-        for (int i = 17; i <= 21; i++) {
-            Label probLabel = (Label) getClass().getDeclaredField("dealerProbOf" + i).get(this);
-            String probText = probLabel.getText().replace("%", "").replace(",", ".");
-            probabilities.put(i, Double.parseDouble(probText) / 100);
-        }
-        return probabilities;
-    }
 }
@@ -0,0 +1,34 @@
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * @brief Flight Recorder event covering one step of an analysis, such as the dealer distribution or the label
+ *        refresh.
+ * @details Enabled by default with no threshold when a recording is running, for example with
+ *          -XX:StartFlightRecording; without a recording the event costs almost nothing. Created through Probe.
+ */
+@Name("strategy.AnalysisStep")
+@Label("Analysis Step")
+@Category("21Strategy")
+@Description("Duration and search statistics of one analysis step")
+@StackTrace(false)
+public final class AnalysisStepEvent extends Event {
+    @Label("Step")
+    String step;
+
+    @Label("Nodes Visited")
+    @Description("Sub-results computed by the step, each one a cache miss")
+    long nodesVisited;
+
+    @Label("Cache Hits")
+    long cacheHits;
+
+    // Not recorded by Flight Recorder; feeds the in-process histogram
+    transient long startNanos;
+}
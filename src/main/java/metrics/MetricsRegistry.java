@@ -0,0 +1,114 @@
+package metrics;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @brief In-process registry of named latency histograms and counters, exportable as a text dump.
+ * @details Metrics are created on first use and live as long as the registry. Everything is thread-safe and
+ *          recording never takes a lock. In the dump, a counter pair name.nodes and name.cache.hits is also
+ *          reported as the hit rate of the step's caches, since every node visited is a cache miss.
+ */
+public final class MetricsRegistry {
+    /** System property naming a file that receives the global dump when the application exits. */
+    public static final String DUMP_PROPERTY = "metrics.dump";
+
+    private static final MetricsRegistry GLOBAL = new MetricsRegistry();
+
+    private final Map<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+
+    /**
+     * @brief Returns the registry shared by the whole process.
+     *
+     * @return The global registry.
+     */
+    public static MetricsRegistry global() {
+        return GLOBAL;
+    }
+
+    /**
+     * @brief Returns the histogram of a name, creating it if needed.
+     *
+     * @param name The metric name.
+     * @return The histogram.
+     */
+    public LatencyHistogram histogram(String name) {
+        return histograms.computeIfAbsent(name, key -> new LatencyHistogram());
+    }
+
+    /**
+     * @brief Returns the counter of a name, creating it if needed.
+     *
+     * @param name The metric name.
+     * @return The counter.
+     */
+    public LongAdder counter(String name) {
+        return counters.computeIfAbsent(name, key -> new LongAdder());
+    }
+
+    /**
+     * @brief Resets every metric to zero, keeping the registrations.
+     */
+    public void reset() {
+        histograms.values().forEach(LatencyHistogram::reset);
+        counters.values().forEach(LongAdder::reset);
+    }
+
+    /**
+     * @brief Formats every metric as text: one line per histogram with its count, mean, percentiles and maximum
+     *        in microseconds, then one line per counter, then the cache hit rates.
+     *
+     * @return The dump.
+     */
+    public String dump() {
+        StringBuilder out = new StringBuilder(1024);
+        out.append(String.format(Locale.ROOT, "%-32s %10s %10s %10s %10s %10s %10s %10s%n", "latency (us)", "count",
+                "mean", "p50", "p90", "p99", "p99.9", "max"));
+        for (Map.Entry<String, LatencyHistogram> entry : new TreeMap<>(histograms).entrySet()) {
+            LatencyHistogram histogram = entry.getValue();
+            out.append(String.format(Locale.ROOT, "%-32s %10d %10.1f %10.1f %10.1f %10.1f %10.1f %10.1f%n",
+                    entry.getKey(), histogram.count(), histogram.mean() / 1e3, histogram.percentile(0.5) / 1e3,
+                    histogram.percentile(0.9) / 1e3, histogram.percentile(0.99) / 1e3,
+                    histogram.percentile(0.999) / 1e3, histogram.max() / 1e3));
+        }
+
+        Map<String, LongAdder> sorted = new TreeMap<>(counters);
+        out.append(String.format(Locale.ROOT, "%n%-32s %10s%n", "counter", "value"));
+        for (Map.Entry<String, LongAdder> entry : sorted.entrySet()) {
+            out.append(String.format(Locale.ROOT, "%-32s %10d%n", entry.getKey(), entry.getValue().sum()));
+        }
+
+        out.append(String.format(Locale.ROOT, "%n%-32s %10s%n", "cache hit rate", "percent"));
+        for (Map.Entry<String, LongAdder> entry : sorted.entrySet()) {
+            String name = entry.getKey();
+            if (!name.endsWith(".nodes")) {
+                continue;
+            }
+            String step = name.substring(0, name.length() - ".nodes".length());
+            LongAdder hitCounter = sorted.get(step + ".cache.hits");
+            long hits = hitCounter != null ? hitCounter.sum() : 0, misses = entry.getValue().sum();
+            if (hits + misses > 0) {
+                out.append(String.format(Locale.ROOT, "%-32s %10.2f%n", step, 100.0 * hits / (hits + misses)));
+            }
+        }
+        return out.toString();
+    }
+
+    /**
+     * @brief Writes the dump to a file.
+     *
+     * @param path The destination, replaced if it exists.
+     * @throws IOException If the file cannot be written.
+     */
+    public void writeTo(Path path) throws IOException {
+        Files.writeString(path, dump(), StandardCharsets.UTF_8);
+    }
+}
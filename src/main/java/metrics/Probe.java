@@ -0,0 +1,87 @@
+package metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @brief Measures a named step: its latency histogram, its search counters and its Flight Recorder event.
+ * @details Probes are meant to be created once, as constants, and used on every execution of the step:
+ *          <pre>
+ *          AnalysisStepEvent event = PROBE.begin();
+ *          ... the step ...
+ *          PROBE.end(event, nodes, hits);
+ *          </pre>
+ *          The histogram is registered under the step's name, the counters under name.nodes and name.cache.hits
+ *          once the step reports a search.
+ */
+public final class Probe {
+    private final String step;
+    private final MetricsRegistry registry;
+    private final LatencyHistogram latency;
+    // Registered on first use, so steps that never search keep the dump short; racing threads get the same counter
+    private LongAdder nodes, hits;
+
+    private Probe(String step, MetricsRegistry registry) {
+        this.step = step;
+        this.registry = registry;
+        latency = registry.histogram(step);
+    }
+
+    /**
+     * @brief Creates a probe registered in the global registry.
+     *
+     * @param step The name of the step, such as analysis.dealerTotals.
+     * @return The probe.
+     */
+    public static Probe of(String step) {
+        return new Probe(step, MetricsRegistry.global());
+    }
+
+    /**
+     * @brief Marks the start of an execution of the step.
+     *
+     * @return The event to pass to end().
+     */
+    public AnalysisStepEvent begin() {
+        AnalysisStepEvent event = new AnalysisStepEvent();
+        event.startNanos = System.nanoTime();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * @brief Marks the end of an execution of a step that does not search.
+     *
+     * @param event The event returned by begin().
+     */
+    public void end(AnalysisStepEvent event) {
+        end(event, 0, 0);
+    }
+
+    /**
+     * @brief Marks the end of an execution of the step and records its statistics.
+     *
+     * @param event The event returned by begin().
+     * @param nodesVisited The number of sub-results computed, each one a cache miss.
+     * @param cacheHits The number of sub-results found in a cache.
+     */
+    public void end(AnalysisStepEvent event, long nodesVisited, long cacheHits) {
+        event.end();
+        latency.record(System.nanoTime() - event.startNanos);
+        if (nodesVisited > 0 || cacheHits > 0) {
+            LongAdder nodeCounter = nodes, hitCounter = hits;
+            if (nodeCounter == null || hitCounter == null) {
+                nodes = nodeCounter = registry.counter(step + ".nodes");
+                hits = hitCounter = registry.counter(step + ".cache.hits");
+            }
+            nodeCounter.add(nodesVisited);
+            hitCounter.add(cacheHits);
+        }
+
+        if (event.shouldCommit()) {
+            event.step = step;
+            event.nodesVisited = nodesVisited;
+            event.cacheHits = cacheHits;
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package model;
+
+/**
+ * @brief Player actions evaluated by the strategy solver.
+ */
+public enum Action {
+    HIT("Hit"),
+    STAND("Stand"),
+    DOUBLE("Double Down"),
+    SPLIT("Split"),
+    SURRENDER("Surrender");
+
+    private final String label;
+
+    Action(String label) {
+        this.label = label;
+    }
+
+    /**
+     * @brief Returns the text shown to the user for this action.
+     *
+     * @return The action label.
+     */
+    @Override
+    public String toString() {
+        return label;
+    }
+}
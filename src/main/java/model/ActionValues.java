@@ -0,0 +1,72 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * @brief Expected value of each player action, in units of the initial bet.
+ * @details Actions that are not legal for the evaluated hand have a NaN value.
+ */
+public final class ActionValues {
+    private final double[] values;
+
+    /**
+     * @brief Creates the result from an array indexed by Action.ordinal().
+     *
+     * @param values The expected values, NaN for illegal actions. The array is copied.
+     */
+    public ActionValues(double[] values) {
+        this.values = values.clone();
+    }
+
+    /**
+     * @brief Returns true if the action is legal for the evaluated hand.
+     *
+     * @param action The action.
+     * @return True if the action has an expected value.
+     */
+    public boolean isLegal(Action action) {
+        return !Double.isNaN(values[action.ordinal()]);
+    }
+
+    /**
+     * @brief Returns the expected value of an action.
+     *
+     * @param action The action.
+     * @return The expected value, or NaN if the action is not legal.
+     */
+    public double ev(Action action) {
+        return values[action.ordinal()];
+    }
+
+    /**
+     * @brief Returns the legal action with the highest expected value.
+     *
+     * @return The best action, STAND if no action is legal.
+     */
+    public Action best() {
+        Action best = Action.STAND;
+        double bestValue = Double.NEGATIVE_INFINITY;
+        for (Action action : Action.values()) {
+            double value = values[action.ordinal()];
+            if (!Double.isNaN(value) && value > bestValue) {
+                best = action;
+                bestValue = value;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * @brief Returns the expected value of the best action.
+     *
+     * @return The best expected value.
+     */
+    public double bestEv() {
+        return ev(best());
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(values);
+    }
+}
@@ -0,0 +1,161 @@
+package model;
+
+/**
+ * @brief Immutable snapshot of the probabilities and the recommended action for one state of the table.
+ * @details Values are kept as raw probabilities between 0 and 1; formatting is left to the view.
+ */
+public final class Analysis {
+    /** Lowest and highest player totals with a tracked probability. */
+    public static final int PLAYER_MIN = 12, PLAYER_MAX = 21;
+    /** Lowest and highest dealer totals with a tracked probability. */
+    public static final int DEALER_MIN = 17, DEALER_MAX = 21;
+
+    /** Snapshot of a table where nothing has been computed yet. */
+    public static final Analysis EMPTY = new Analysis(0.0, new double[PLAYER_MAX - PLAYER_MIN + 1],
+            0.0, new double[DEALER_MAX - DEALER_MIN + 1], null, null);
+
+    private final double playerBust;
+    private final double[] playerTotals;
+    private final double dealerBust;
+    private final double[] dealerTotals;
+    private final ActionValues actionValues;
+    private final Action recommendation;
+    private final boolean exact;
+    private final double errorBound;
+
+    /**
+     * @brief Creates a snapshot. The arrays are not copied and must not be modified afterwards.
+     *
+     * @param playerBust The probability that the player busts with the next card.
+     * @param playerTotals The player's probabilities of finishing on each total from PLAYER_MIN to PLAYER_MAX.
+     * @param dealerBust The probability that the dealer busts.
+     * @param dealerTotals The dealer's probabilities of each total from DEALER_MIN to DEALER_MAX.
+     * @param actionValues The exact expected values, or null if they do not apply.
+     * @param recommendation The recommended action, or null if none has been computed.
+     */
+    Analysis(double playerBust, double[] playerTotals, double dealerBust, double[] dealerTotals,
+             ActionValues actionValues, Action recommendation) {
+        this(playerBust, playerTotals, dealerBust, dealerTotals, actionValues, recommendation, true, 0.0);
+    }
+
+    /**
+     * @brief Creates a snapshot that may hold estimates. The arrays are not copied and must not be modified
+     *        afterwards.
+     *
+     * @param playerBust The probability that the player busts with the next card.
+     * @param playerTotals The player's probabilities of finishing on each total from PLAYER_MIN to PLAYER_MAX.
+     * @param dealerBust The probability that the dealer busts.
+     * @param dealerTotals The dealer's probabilities of each total from DEALER_MIN to DEALER_MAX.
+     * @param actionValues The expected values, or null if they do not apply.
+     * @param recommendation The recommended action, or null if none has been computed.
+     * @param exact True if every value is exact.
+     * @param errorBound The largest 95% error bound of the estimated totals, 0 if exact.
+     */
+    Analysis(double playerBust, double[] playerTotals, double dealerBust, double[] dealerTotals,
+             ActionValues actionValues, Action recommendation, boolean exact, double errorBound) {
+        this.playerBust = playerBust;
+        this.playerTotals = playerTotals;
+        this.dealerBust = dealerBust;
+        this.dealerTotals = dealerTotals;
+        this.actionValues = actionValues;
+        this.recommendation = recommendation;
+        this.exact = exact;
+        this.errorBound = errorBound;
+    }
+
+    /**
+     * @brief Returns the probability that the player busts with the next card.
+     *
+     * @return The probability.
+     */
+    public double playerBust() {
+        return playerBust;
+    }
+
+    /**
+     * @brief Returns the player's probability of finishing on a total when drawing at least one card and hitting
+     *        until the hand reaches PLAYER_MIN.
+     *
+     * @param total The total, from PLAYER_MIN to PLAYER_MAX.
+     * @return The probability, 0 for totals outside the tracked range.
+     */
+    public double playerProbability(int total) {
+        return total >= PLAYER_MIN && total <= PLAYER_MAX ? playerTotals[total - PLAYER_MIN] : 0.0;
+    }
+
+    /**
+     * @brief Returns the probability that the dealer busts.
+     *
+     * @return The probability.
+     */
+    public double dealerBust() {
+        return dealerBust;
+    }
+
+    /**
+     * @brief Returns the dealer's probability of finishing on a total, given that the dealer does not bust.
+     *
+     * @param total The total, from DEALER_MIN to DEALER_MAX.
+     * @return The probability, 0 for totals outside the tracked range.
+     */
+    public double dealerProbability(int total) {
+        return total >= DEALER_MIN && total <= DEALER_MAX ? dealerTotals[total - DEALER_MIN] : 0.0;
+    }
+
+    /**
+     * @brief Returns the expected value of each action, exact unless isExact() is false.
+     *
+     * @return The action values, or null if the hands do not describe a player decision against a dealer up-card.
+     */
+    public ActionValues actionValues() {
+        return actionValues;
+    }
+
+    /**
+     * @brief Returns the recommended action.
+     *
+     * @return The action, or null if none has been computed.
+     */
+    public Action recommendation() {
+        return recommendation;
+    }
+
+    /**
+     * @brief Returns true if the snapshot holds exact values, false if it holds the estimates shown while the exact
+     *        analysis is still running.
+     *
+     * @return True if exact.
+     */
+    public boolean isExact() {
+        return exact;
+    }
+
+    /**
+     * @brief Returns the largest 95% error bound of the player's and dealer's totals.
+     * @details Only the totals are bounded: the action values of an estimate come from an infinite-deck
+     *          approximation whose error is not measured.
+     *
+     * @return The error bound as a probability, 0 if the snapshot is exact.
+     */
+    public double errorBound() {
+        return errorBound;
+    }
+
+    /**
+     * @brief Returns the player's probabilities, indexed by total - PLAYER_MIN. The array must not be modified.
+     *
+     * @return The probabilities.
+     */
+    double[] playerTotals() {
+        return playerTotals;
+    }
+
+    /**
+     * @brief Returns the dealer's probabilities, indexed by total - DEALER_MIN. The array must not be modified.
+     *
+     * @return The probabilities.
+     */
+    double[] dealerTotals() {
+        return dealerTotals;
+    }
+}
@@ -0,0 +1,503 @@
+package model;
+
+import metrics.AnalysisStepEvent;
+import metrics.Probe;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * @brief Anytime estimates of the analysis, shown when the exact computation does not fit the latency budget.
+ * @details Each final hand distribution starts from the infinite-deck approximation, where every card is drawn
+ *          with the probabilities of the current shoe, computed by dynamic programming over the few hand states.
+ *          It is then refined by sampling hands until a deadline. The hands are drawn with replacement, as in the
+ *          approximation, and each is weighted by the ratio of its probability without replacement to its
+ *          probability with replacement. Since the approximation is known exactly under that sampling, it serves
+ *          as a control variate: the estimate is the approximation plus the mean of (weight - 1) over the hands
+ *          reaching each outcome. The correction is unbiased, and small on deep shoes where the weights stay close
+ *          to 1, so the error bound shrinks quickly there.
+ *
+ *          The action values use the infinite-deck approximation only and carry no error bound. An estimator is
+ *          used by one thread at a time.
+ */
+public class AnytimeEstimator {
+    private static final Probe ESTIMATE = Probe.of("analysis.estimate");
+
+    // Hands sampled between two deadline checks
+    private static final int BATCH = 256;
+    // Two-sided 95% quantile of the normal distribution
+    private static final double Z95 = 1.959964;
+
+    private final boolean hitsSoft17;
+    private final boolean peeks;
+    private final double blackjackPayout;
+    private final boolean surrenderAllowed;
+    private final double surrenderBlackjackLoss;
+    private final boolean surrenderBeforePeek;
+    private final boolean doubleAfterSplit;
+    private final int maxSplitHands;
+    private final SplittableRandom random;
+
+    // Scratch state of the sampling, indexed by rank
+    private final int[] counts = new int[11];
+    private final int[] remaining = new int[11];
+
+    /**
+     * @brief Creates an estimator for a set of rules.
+     *
+     * @param rules The table rules.
+     */
+    public AnytimeEstimator(Rules rules) {
+        this(rules, new SplittableRandom());
+    }
+
+    /**
+     * @brief Creates an estimator whose sampling is reproducible.
+     *
+     * @param rules The table rules.
+     * @param seed The seed of the sampled draws.
+     */
+    public AnytimeEstimator(Rules rules, long seed) {
+        this(rules, new SplittableRandom(seed));
+    }
+
+    private AnytimeEstimator(Rules rules, SplittableRandom random) {
+        hitsSoft17 = rules.dealerHitsSoft17();
+        peeks = rules.dealerPeeks();
+        blackjackPayout = rules.blackjackPayout();
+        surrenderAllowed = rules.surrender();
+        surrenderBlackjackLoss = rules.surrenderRule() == Rules.Surrender.LATE && !peeks ? 0.5 : 0.0;
+        surrenderBeforePeek = rules.surrenderRule() == Rules.Surrender.EARLY && peeks;
+        doubleAfterSplit = rules.doubleAfterSplit();
+        maxSplitHands = rules.maxSplitHands();
+        this.random = random;
+    }
+
+    /**
+     * @brief Estimates a snapshot of the probabilities and the recommended action, in the manner of
+     *        BlackJackModel.analyze().
+     * @details The bust probabilities are exact. The totals of the changed sides are estimated until the deadline,
+     *          shared equally when both sides changed; the recommendation comes from the infinite-deck action
+     *          values. The snapshot is marked as not exact.
+     *
+     * @param shoe The remaining cards; it is not modified.
+     * @param playerCards The player's cards.
+     * @param dealerCards The dealer's cards.
+     * @param previous The previous snapshot, Analysis.EMPTY if there is none.
+     * @param playerChanged True if the player's probabilities must be recomputed.
+     * @param dealerChanged True if the dealer's probabilities must be recomputed.
+     * @param deadlineNanos The System.nanoTime() value at which sampling stops.
+     * @return The estimated snapshot.
+     */
+    public Analysis estimate(Shoe shoe, List<Integer> playerCards, List<Integer> dealerCards, Analysis previous,
+                             boolean playerChanged, boolean dealerChanged, long deadlineNanos) {
+        AnalysisStepEvent event = ESTIMATE.begin();
+        HandState player = HandState.of(playerCards), dealer = HandState.of(dealerCards);
+        double playerBust = previous.playerBust(), dealerBust = previous.dealerBust();
+        double[] playerTotals = previous.playerTotals(), dealerTotals = previous.dealerTotals();
+        double errorBound = playerChanged && dealerChanged ? 0.0 : previous.errorBound();
+        long samples = 0;
+
+        if (playerChanged) {
+            playerBust = BlackJackModel.bustProbability(player.value(), shoe);
+            long now = System.nanoTime();
+            long playerDeadline = dealerChanged ? now + (deadlineNanos - now) / 2 : deadlineNanos;
+            DistributionEstimate totals = playerFinalTotals(shoe, player.hardTotal(), player.hasAce(),
+                    Analysis.PLAYER_MIN, playerDeadline);
+            playerTotals = Arrays.copyOf(totals.probabilities(), Analysis.PLAYER_MAX - Analysis.PLAYER_MIN + 1);
+            errorBound = Math.max(errorBound, totals.maxErrorBound());
+            samples += totals.samples();
+        }
+        if (dealerChanged) {
+            dealerBust = BlackJackModel.bustProbability(dealer.value(), shoe);
+            DistributionEstimate outcome = dealerOutcome(shoe, dealer.hardTotal(), dealer.hasAce(), deadlineNanos);
+            dealerTotals = BlackJackModel.dealerTotals(outcome.probabilities());
+            // The totals shown are given that the dealer does not bust, which scales their error
+            double standing = 1.0 - outcome.probability(DealerEngine.BUST);
+            if (standing > 0) {
+                errorBound = Math.max(errorBound, outcome.maxErrorBound() / standing);
+            }
+            samples += outcome.samples();
+        }
+
+        ActionValues actionValues = null;
+        Action recommendation;
+        if (player.cardCount() >= 2 && dealer.cardCount() == 1 && !player.isBust() && shoe.total() > 0) {
+            actionValues = actionValues(shoe, playerCards, dealerCards.get(0));
+            recommendation = actionValues.best();
+        } else {
+            recommendation = BlackJackModel.bestChoice(player.value(), playerBust, dealerBust, playerTotals,
+                    dealerTotals);
+        }
+        ESTIMATE.end(event, samples, 0);
+        return new Analysis(playerBust, playerTotals, dealerBust, dealerTotals, actionValues, recommendation,
+                false, errorBound);
+    }
+
+    /**
+     * @brief Estimates the distribution of the dealer's final hand value, as DealerEngine.outcome() computes it.
+     *
+     * @param shoe The remaining cards; it is not modified.
+     * @param hardTotal The dealer's current total counting aces as 1.
+     * @param hasAce True if the dealer's hand contains at least one ace.
+     * @param deadlineNanos The System.nanoTime() value at which sampling stops; one batch is always sampled.
+     * @return The probabilities of 17, 18, 19, 20, 21 and bust, in that order.
+     */
+    public DistributionEstimate dealerOutcome(Shoe shoe, int hardTotal, boolean hasAce, long deadlineNanos) {
+        return estimate(shoe, hardTotal, hasAce, false, Analysis.DEALER_MIN, Analysis.DEALER_MIN, hitsSoft17,
+                deadlineNanos);
+    }
+
+    /**
+     * @brief Estimates the distribution of a player's final value when drawing at least one card and hitting until
+     *        the value reaches a threshold, as BlackJackModel.playerFinalTotals() computes it.
+     *
+     * @param shoe The remaining cards; it is not modified.
+     * @param hardTotal The hand's current total counting aces as 1.
+     * @param hasAce True if the hand contains at least one ace.
+     * @param threshold The value at which the player stands, from 12 to 21.
+     * @param deadlineNanos The System.nanoTime() value at which sampling stops; one batch is always sampled.
+     * @return The probabilities of the final values 12 to 21 and of busting, all 0 if the hand is at 21 or more.
+     */
+    public DistributionEstimate playerFinalTotals(Shoe shoe, int hardTotal, boolean hasAce, int threshold,
+                                                  long deadlineNanos) {
+        if (threshold < DealerEngine.MIN_THRESHOLD || threshold > 21) {
+            throw new IllegalArgumentException("Threshold must be between " + DealerEngine.MIN_THRESHOLD + " and 21");
+        }
+        if (HandState.value(hardTotal, hasAce) >= 21) {
+            return new DistributionEstimate(new double[DealerEngine.TOTALS], new double[DealerEngine.TOTALS], 0);
+        }
+        return estimate(shoe, hardTotal, hasAce, true, DealerEngine.MIN_THRESHOLD, threshold, false, deadlineNanos);
+    }
+
+    /**
+     * @brief Approximates the expected value of each action with every card drawn with the probabilities of the
+     *        current shoe.
+     * @details Follows the rules and the legal actions of StrategySolver.solve(). Costs a few microseconds
+     *          whatever the shoe.
+     *
+     * @param shoe The remaining cards; it is not modified.
+     * @param playerCards The player's cards, at least two.
+     * @param dealerUpCard The dealer's up-card, from 1 (ace) to 10.
+     * @return The approximate action values.
+     */
+    public ActionValues actionValues(Shoe shoe, List<Integer> playerCards, int dealerUpCard) {
+        double[] p = drawProbabilities(shoe);
+        double[] dealer = dealerDistribution(p, dealerUpCard);
+
+        HandState hand = HandState.of(playerCards);
+        int value = hand.value();
+        double[] values = new double[Action.values().length];
+        Arrays.fill(values, Double.NaN);
+        if (value > 21) {
+            values[Action.STAND.ordinal()] = -1.0;
+            return new ActionValues(values);
+        }
+
+        // Best of hitting and standing for every hand, from the highest totals down
+        double[][] best = new double[22][2];
+        double[][] hit = new double[22][2];
+        for (int hard = 21; hard >= 0; hard--) {
+            for (int ace = 0; ace < 2; ace++) {
+                double stand = standEv(dealer, HandState.value(hard, ace == 1), false);
+                double hitValue = 0.0;
+                for (int rank = 1; rank <= 10; rank++) {
+                    int next = hard + rank;
+                    hitValue += p[rank] * (next > 21 ? -1.0 : best[next][ace == 1 || rank == 1 ? 1 : 0]);
+                }
+                hit[hard][ace] = hitValue;
+                best[hard][ace] = HandState.value(hard, ace == 1) == 21 ? stand : Math.max(stand, hitValue);
+            }
+        }
+
+        int hard = hand.hardTotal();
+        boolean ace = hand.hasAce();
+        boolean natural = hand.isBlackjack();
+        values[Action.STAND.ordinal()] = standEv(dealer, value, natural);
+        if (value < 21) {
+            values[Action.HIT.ordinal()] = hit[hard][ace ? 1 : 0];
+        }
+
+        if (hand.cardCount() == 2 && !natural) {
+            values[Action.DOUBLE.ordinal()] = doubleEv(p, dealer, hard, ace);
+            if (surrenderBeforePeek) {
+                // Stated on the scale of the values after the peek, as StrategySolver does
+                double blackjack = dealerUpCard == 1 ? p[10] : dealerUpCard == 10 ? p[1] : 0.0;
+                values[Action.SURRENDER.ordinal()] = blackjack < 1.0 ? (blackjack - 0.5) / (1.0 - blackjack) : -0.5;
+            } else if (surrenderAllowed) {
+                values[Action.SURRENDER.ordinal()] = -0.5 - surrenderBlackjackLoss * dealer[DealerHandTable.BLACKJACK];
+            }
+            if (hand.pairRank() != 0) {
+                values[Action.SPLIT.ordinal()] = splitPairEv(p, dealer, best, hand.pairRank(), maxSplitHands - 2);
+            }
+        }
+        return new ActionValues(values);
+    }
+
+    /**
+     * @brief Estimates the final value distribution of a hand drawing until a stop rule holds.
+     *
+     * @param shoe The remaining cards.
+     * @param hard The hand's current total counting aces as 1.
+     * @param ace True if the hand contains at least one ace.
+     * @param drawFirst True if the first card is drawn whatever the hand's value.
+     * @param base The lowest value reported, at index 0; bust is reported after 21.
+     * @param threshold The value at which the hand stands.
+     * @param soft17 True if the hand hits a soft 17.
+     * @param deadlineNanos The System.nanoTime() value at which sampling stops.
+     * @return The estimate.
+     */
+    private DistributionEstimate estimate(Shoe shoe, int hard, boolean ace, boolean drawFirst, int base,
+                                          int threshold, boolean soft17, long deadlineNanos) {
+        int width = 23 - base;
+        int bust = width - 1;
+        double[] probabilities = new double[width];
+        double[] bounds = new double[width];
+        if (hard > 21) {
+            probabilities[bust] = 1.0;
+            return new DistributionEstimate(probabilities, bounds, 0);
+        }
+        if (!drawFirst && stops(hard, ace, threshold, soft17)) {
+            probabilities[HandState.value(hard, ace) - base] = 1.0;
+            return new DistributionEstimate(probabilities, bounds, 0);
+        }
+        int total = shoe.total();
+        if (total == 0) {
+            return new DistributionEstimate(probabilities, bounds, 0);
+        }
+
+        // Infinite-deck approximation, exact under the sampling distribution
+        double[] p = drawProbabilities(shoe);
+        double[][][] table = finalTotals(p, base, threshold, soft17);
+        double[] approximation = new double[width];
+        if (drawFirst) {
+            addNextCard(p, table, hard, ace, approximation);
+        } else {
+            System.arraycopy(table[hard][ace ? 1 : 0], 0, approximation, 0, width);
+        }
+
+        for (int rank = 1; rank <= 10; rank++) {
+            counts[rank] = shoe.count(rank);
+        }
+        double[] sums = new double[width], squares = new double[width];
+        long samples = 0;
+        do {
+            for (int i = 0; i < BATCH; i++) {
+                System.arraycopy(counts, 0, remaining, 0, counts.length);
+                int left = total;
+                int h = hard;
+                boolean a = ace;
+                boolean first = drawFirst;
+                double weight = 1.0;
+                while (h <= 21 && (first || !stops(h, a, threshold, soft17))) {
+                    first = false;
+                    int rank = drawRank(total);
+                    if (weight != 0.0) {
+                        // Probability of the card without replacement over its probability with replacement
+                        if (remaining[rank] == 0) {
+                            weight = 0.0;
+                        } else {
+                            weight *= (double) remaining[rank] * total / ((double) left * counts[rank]);
+                            remaining[rank]--;
+                            left--;
+                        }
+                    }
+                    h += rank;
+                    a |= rank == 1;
+                }
+
+                int outcome = h > 21 ? bust : HandState.value(h, a) - base;
+                double correction = weight - 1.0;
+                sums[outcome] += correction;
+                squares[outcome] += correction * correction;
+            }
+            samples += BATCH;
+        } while (System.nanoTime() < deadlineNanos && !Thread.currentThread().isInterrupted());
+
+        for (int i = 0; i < width; i++) {
+            double mean = sums[i] / samples;
+            double variance = Math.max(0.0, (squares[i] / samples - mean * mean) * samples / (samples - 1));
+            probabilities[i] = Math.min(1.0, Math.max(0.0, approximation[i] + mean));
+            bounds[i] = Z95 * Math.sqrt(variance / samples);
+        }
+        return new DistributionEstimate(probabilities, bounds, samples);
+    }
+
+    /**
+     * @brief Draws a rank with the probabilities of the sampled shoe.
+     */
+    private int drawRank(int total) {
+        int card = random.nextInt(total);
+        int rank = 1;
+        while (card >= counts[rank]) {
+            card -= counts[rank];
+            rank++;
+        }
+        return rank;
+    }
+
+    /**
+     * @brief Returns true if a hand stands under a stop rule.
+     */
+    private static boolean stops(int hard, boolean ace, int threshold, boolean soft17) {
+        int value = HandState.value(hard, ace);
+        return value >= threshold && !(soft17 && value == 17 && value != hard);
+    }
+
+    /**
+     * @brief Returns the probability of drawing each rank from a shoe, indexed by rank, all 0 if it is empty.
+     */
+    private static double[] drawProbabilities(Shoe shoe) {
+        double[] p = new double[11];
+        int total = shoe.total();
+        for (int rank = 1; rank <= 10 && total > 0; rank++) {
+            p[rank] = (double) shoe.count(rank) / total;
+        }
+        return p;
+    }
+
+    /**
+     * @brief Computes the infinite-deck final value distribution of every hand state under a stop rule.
+     *
+     * @return The distributions, indexed by [hard total][has ace], in the layout given by base.
+     */
+    private static double[][][] finalTotals(double[] p, int base, int threshold, boolean soft17) {
+        double[][][] table = new double[22][2][];
+        // A card always raises the hard total, so higher totals are complete when a lower one needs them
+        for (int hard = 21; hard >= 0; hard--) {
+            for (int ace = 0; ace < 2; ace++) {
+                double[] totals = new double[23 - base];
+                if (stops(hard, ace == 1, threshold, soft17)) {
+                    totals[HandState.value(hard, ace == 1) - base] = 1.0;
+                } else {
+                    addNextCard(p, table, hard, ace == 1, totals);
+                }
+                table[hard][ace] = totals;
+            }
+        }
+        return table;
+    }
+
+    /**
+     * @brief Adds the infinite-deck distribution of a hand after drawing one more card.
+     */
+    private static void addNextCard(double[] p, double[][][] table, int hard, boolean ace, double[] dest) {
+        int bust = dest.length - 1;
+        for (int rank = 1; rank <= 10; rank++) {
+            if (p[rank] == 0.0) continue;
+
+            int next = hard + rank;
+            if (next > 21) {
+                dest[bust] += p[rank];
+                continue;
+            }
+            double[] sub = table[next][ace || rank == 1 ? 1 : 0];
+            for (int i = 0; i < dest.length; i++) {
+                dest[i] += p[rank] * sub[i];
+            }
+        }
+    }
+
+    /**
+     * @brief Computes the infinite-deck distribution of the dealer's hand, with blackjack separated from other 21s
+     *        and left out when the dealer peeks, as in DealerHandTable.
+     */
+    private double[] dealerDistribution(double[] p, int upCard) {
+        double[][][] table = finalTotals(p, Analysis.DEALER_MIN, Analysis.DEALER_MIN, hitsSoft17);
+        double[] dest = new double[DealerHandTable.WIDTH];
+        for (int rank = 1; rank <= 10; rank++) {
+            if (p[rank] == 0.0) continue;
+
+            if (upCard + rank == 11 && (upCard == 1 || rank == 1)) {
+                dest[DealerHandTable.BLACKJACK] += p[rank];
+                continue;
+            }
+            double[] sub = table[upCard + rank][upCard == 1 || rank == 1 ? 1 : 0];
+            for (int i = 0; i < DealerEngine.OUTCOMES; i++) {
+                dest[i] += p[rank] * sub[i];
+            }
+        }
+
+        double blackjack = dest[DealerHandTable.BLACKJACK];
+        if (peeks && blackjack > 0 && blackjack < 1) {
+            for (int i = 0; i < DealerEngine.OUTCOMES; i++) {
+                dest[i] /= 1 - blackjack;
+            }
+            dest[DealerHandTable.BLACKJACK] = 0.0;
+        }
+        return dest;
+    }
+
+    /**
+     * @brief Computes the expected value of standing against a dealer distribution, as StrategySolver does.
+     */
+    private double standEv(double[] dealer, int value, boolean natural) {
+        if (natural) {
+            double notBlackjack = 0.0;
+            for (int i = 0; i < DealerHandTable.BLACKJACK; i++) {
+                notBlackjack += dealer[i];
+            }
+            return blackjackPayout * notBlackjack;
+        }
+
+        double ev = dealer[DealerEngine.BUST] - dealer[DealerHandTable.BLACKJACK];
+        for (int dealerValue = 17; dealerValue <= 21; dealerValue++) {
+            if (value > dealerValue) {
+                ev += dealer[dealerValue - 17];
+            } else if (value < dealerValue) {
+                ev -= dealer[dealerValue - 17];
+            }
+        }
+        return ev;
+    }
+
+    /**
+     * @brief Computes the infinite-deck expected value of doubling, in units of the initial bet.
+     */
+    private double doubleEv(double[] p, double[] dealer, int hard, boolean ace) {
+        double ev = 0.0;
+        for (int rank = 1; rank <= 10; rank++) {
+            int next = hard + rank;
+            ev += p[rank] * (next > 21 ? -1.0 : standEv(dealer, HandState.value(next, ace || rank == 1), false));
+        }
+        return 2 * ev;
+    }
+
+    /**
+     * @brief Computes the infinite-deck expected value of the two hands of a split, sharing the spare hands as
+     *        StrategySolver does.
+     */
+    private double splitPairEv(double[] p, double[] dealer, double[][] best, int card, int spare) {
+        double first = splitHandEv(p, dealer, best, card, (spare + 1) / 2);
+        return spare % 2 == 0 ? 2 * first : first + splitHandEv(p, dealer, best, card, spare / 2);
+    }
+
+    /**
+     * @brief Computes the infinite-deck expected value of one hand after splitting a pair, with the resplit and
+     *        double after split rules of StrategySolver.
+     */
+    private double splitHandEv(double[] p, double[] dealer, double[][] best, int card, int spare) {
+        double ev = 0.0;
+        for (int rank = 1; rank <= 10; rank++) {
+            if (p[rank] == 0.0) continue;
+
+            int hard = card + rank;
+            boolean ace = card == 1 || rank == 1;
+            double handEv;
+            if (card == 1) {
+                handEv = standEv(dealer, HandState.value(hard, ace), false);
+            } else {
+                handEv = best[hard][ace ? 1 : 0];
+                if (doubleAfterSplit) {
+                    handEv = Math.max(handEv, doubleEv(p, dealer, hard, ace));
+                }
+                if (rank == card && spare > 0) {
+                    handEv = Math.max(handEv, splitPairEv(p, dealer, best, card, spare - 1));
+                }
+            }
+            ev += p[rank] * handEv;
+        }
+        return ev;
+    }
+}
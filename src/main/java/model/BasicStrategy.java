@@ -0,0 +1,143 @@
+package model;
+
+/**
+ * @brief Total-dependent basic strategy for multi-deck shoes.
+ * @details The tables follow the usual multi-deck chart (dealer standing on soft 17, double after split), with
+ *          the few cells that change when the dealer hits soft 17 or when splits are not followed by doubles.
+ *          Without a hole-card peek, doubles and splits against a ten or an ace are turned into plain plays.
+ *          Codes: H hit, S stand, D double (else hit), X double (else stand), R surrender (else hit), P split.
+ */
+public final class BasicStrategy {
+    // Columns: dealer up-card 2, 3, 4, 5, 6, 7, 8, 9, 10, A
+    private static final String[] HARD = {
+            "HHHHHHHHHH", // 4
+            "HHHHHHHHHH", // 5
+            "HHHHHHHHHH", // 6
+            "HHHHHHHHHH", // 7
+            "HHHHHHHHHH", // 8
+            "HDDDDHHHHH", // 9
+            "DDDDDDDDHH", // 10
+            "DDDDDDDDDH", // 11
+            "HHSSSHHHHH", // 12
+            "SSSSSHHHHH", // 13
+            "SSSSSHHHHH", // 14
+            "SSSSSHHHRH", // 15
+            "SSSSSHHRRR", // 16
+    };
+    private static final String[] SOFT = {
+            "HHHDDHHHHH", // 13
+            "HHHDDHHHHH", // 14
+            "HHDDDHHHHH", // 15
+            "HHDDDHHHHH", // 16
+            "HDDDDHHHHH", // 17
+            "SXXXXSSHHH", // 18
+            "SSSSSSSSSS", // 19
+    };
+    private static final String[] PAIRS = {
+            "PPPPPPPPPP", // A,A
+            "PPPPPPHHHH", // 2,2
+            "PPPPPPHHHH", // 3,3
+            "HHHPPHHHHH", // 4,4
+            "DDDDDDDDHH", // 5,5
+            "PPPPPHHHHH", // 6,6
+            "PPPPPPHHHH", // 7,7
+            "PPPPPPPPPP", // 8,8
+            "PPPPPSPPSS", // 9,9
+            "SSSSSSSSSS", // 10,10
+    };
+    private static final String[] PAIRS_NO_DAS = {
+            "PPPPPPPPPP", // A,A
+            "HHPPPPHHHH", // 2,2
+            "HHPPPPHHHH", // 3,3
+            "HHHHHHHHHH", // 4,4
+            "DDDDDDDDHH", // 5,5
+            "HPPPPHHHHH", // 6,6
+            "PPPPPPHHHH", // 7,7
+            "PPPPPPPPPP", // 8,8
+            "PPPPPSPPSS", // 9,9
+            "SSSSSSSSSS", // 10,10
+    };
+
+    private BasicStrategy() {
+    }
+
+    /**
+     * @brief Chooses the basic strategy action for a hand.
+     *
+     * @param hard The hand's total counting aces as 1.
+     * @param ace True if the hand contains an ace.
+     * @param pairRank The rank of the pair if the hand can be split, 0 otherwise.
+     * @param canDouble True if doubling is allowed for this hand.
+     * @param canSurrender True if surrendering is allowed for this hand.
+     * @param upCard The dealer's up-card, from 1 (ace) to 10.
+     * @param rules The table rules.
+     * @return The action to take.
+     */
+    public static Action decide(int hard, boolean ace, int pairRank, boolean canDouble, boolean canSurrender,
+                                int upCard, Rules rules) {
+        int column = upCard == 1 ? 9 : upCard - 2;
+        boolean noPeekAgainstStrong = !rules.dealerPeeks() && (upCard == 1 || upCard == 10);
+
+        char code = 0;
+        if (pairRank > 0 && !noPeekAgainstStrong) {
+            char pairCode = (rules.doubleAfterSplit() ? PAIRS : PAIRS_NO_DAS)[pairRank - 1].charAt(column);
+            if (pairCode == 'P') {
+                code = pairCode;
+            }
+        }
+        if (code == 0) {
+            // Pairs that are not split are played like any other total
+            code = totalCode(hard, ace, column, upCard, rules);
+        }
+
+        if (noPeekAgainstStrong && (code == 'D' || code == 'X')) {
+            code = 'H';
+        }
+
+        switch (code) {
+            case 'P':
+                return Action.SPLIT;
+            case 'D':
+                return canDouble ? Action.DOUBLE : Action.HIT;
+            case 'X':
+                return canDouble ? Action.DOUBLE : Action.STAND;
+            case 'R':
+                return canSurrender && rules.surrender() ? Action.SURRENDER : Action.HIT;
+            case 'S':
+                return Action.STAND;
+            default:
+                return Action.HIT;
+        }
+    }
+
+    /**
+     * @brief Looks up the hard or soft total tables.
+     *
+     * @param hard The hand's total counting aces as 1.
+     * @param ace True if the hand contains an ace.
+     * @param column The table column of the dealer's up-card.
+     * @param upCard The dealer's up-card, from 1 (ace) to 10.
+     * @param rules The table rules.
+     * @return The action code.
+     */
+    private static char totalCode(int hard, boolean ace, int column, int upCard, Rules rules) {
+        boolean soft = ace && hard + 10 <= 21;
+        int value = soft ? hard + 10 : hard;
+
+        if (soft) {
+            if (value >= 20) return 'S';
+            if (value < 13) return 'H';
+            if (rules.dealerHitsSoft17() && value == 19 && upCard == 6) return 'X';
+            if (rules.dealerHitsSoft17() && value == 18 && upCard == 2) return 'X';
+            return SOFT[Math.max(value, 13) - 13].charAt(column);
+        }
+
+        if (value >= 17) {
+            return 'S';
+        }
+        if (rules.dealerHitsSoft17() && upCard == 1 && (value == 11 || value == 15)) {
+            return value == 11 ? 'D' : 'R';
+        }
+        return HARD[Math.max(value, 4) - 4].charAt(column);
+    }
+}
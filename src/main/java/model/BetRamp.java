@@ -0,0 +1,157 @@
+package model;
+
+import java.util.Locale;
+
+/**
+ * @brief Immutable bet ramp: the bet at each true count, with the long-run results it gives on a count profile.
+ * @details Produced by BetSpreadOptimizer.optimize(). Bets are whole multiples of the table minimum and never
+ *          decrease as the count rises. The risk of ruin is the diffusion approximation exp(-2 ev bankroll /
+ *          variance) of an unlimited number of rounds, treating rounds as independent; the growth is the
+ *          second-order expansion of the expected log of the bankroll after one round.
+ */
+public final class BetRamp {
+    private final CountingSystem system;
+    private final int[] bets;
+    private final double bankroll;
+    private final double kellyFraction;
+    private final double ev, variance, growth, riskOfRuin, averageBet;
+
+    /**
+     * @brief Creates a ramp. The array is not copied and must not be modified afterwards.
+     *
+     * @param system The counting system of the true counts.
+     * @param bets The bet of each true count bucket, in table minimums.
+     * @param bankroll The bankroll, in table minimums.
+     * @param kellyFraction The fraction of the Kelly bets the ramp was derived from.
+     * @param profile The profile the ramp is evaluated on.
+     */
+    BetRamp(CountingSystem system, int[] bets, double bankroll, double kellyFraction, CountProfile profile) {
+        this.system = system;
+        this.bets = bets;
+        this.bankroll = bankroll;
+        this.kellyFraction = kellyFraction;
+
+        double sum = 0.0, squaredSum = 0.0, betSum = 0.0;
+        long total = profile.rounds();
+        for (int bucket = 0; bucket < CountProfile.BUCKETS; bucket++) {
+            sum += bets[bucket] * profile.bucketNetSum(bucket);
+            squaredSum += (double) bets[bucket] * bets[bucket] * profile.bucketNetSquaredSum(bucket);
+            betSum += (double) bets[bucket] * profile.bucketRounds(bucket);
+        }
+        ev = total > 0 ? sum / total : 0.0;
+        double secondMoment = total > 0 ? squaredSum / total : 0.0;
+        variance = Math.max(0.0, secondMoment - ev * ev);
+        averageBet = total > 0 ? betSum / total : 0.0;
+        growth = ev / bankroll - secondMoment / (2 * bankroll * bankroll);
+        riskOfRuin = ev <= 0.0 ? 1.0 : variance == 0.0 ? 0.0 : Math.exp(-2 * ev * bankroll / variance);
+    }
+
+    /**
+     * @brief Returns the bet at a true count.
+     *
+     * @param trueCount The true count, clamped to the range of CountProfile.
+     * @return The bet, in table minimums.
+     */
+    public int bet(int trueCount) {
+        return bets[CountProfile.bucketOf(trueCount)];
+    }
+
+    /**
+     * @brief Returns the largest bet of the ramp divided by the smallest.
+     *
+     * @return The spread.
+     */
+    public double spread() {
+        return (double) bets[CountProfile.BUCKETS - 1] / bets[0];
+    }
+
+    /**
+     * @brief Returns the bankroll the ramp was sized for.
+     *
+     * @return The bankroll, in table minimums.
+     */
+    public double bankroll() {
+        return bankroll;
+    }
+
+    /**
+     * @brief Returns the fraction of the Kelly bets the ramp was derived from, before the bets were bounded by
+     *        the spread and rounded.
+     *
+     * @return The Kelly fraction, from 0 to 1.
+     */
+    public double kellyFraction() {
+        return kellyFraction;
+    }
+
+    /**
+     * @brief Returns the expected net result per round.
+     *
+     * @return The expected value, in table minimums.
+     */
+    public double ev() {
+        return ev;
+    }
+
+    /**
+     * @brief Returns the standard deviation of the net result of a round.
+     *
+     * @return The standard deviation, in table minimums.
+     */
+    public double standardDeviation() {
+        return Math.sqrt(variance);
+    }
+
+    /**
+     * @brief Returns the mean bet per round.
+     *
+     * @return The average bet, in table minimums.
+     */
+    public double averageBet() {
+        return averageBet;
+    }
+
+    /**
+     * @brief Returns the expected growth of the log of the bankroll per round.
+     *
+     * @return The growth rate.
+     */
+    public double growth() {
+        return growth;
+    }
+
+    /**
+     * @brief Returns the probability of ever losing the whole bankroll.
+     *
+     * @return The risk of ruin, from 0 to 1.
+     */
+    public double riskOfRuin() {
+        return riskOfRuin;
+    }
+
+    /**
+     * @brief Formats the bets from the count where the ramp first rises, then the long-run results.
+     *
+     * @return The ramp text.
+     */
+    @Override
+    public String toString() {
+        StringBuilder out = new StringBuilder(512);
+        out.append(system).append(" ramp:");
+        int first = 0;
+        while (first < CountProfile.BUCKETS - 1 && bets[first + 1] == bets[0]) {
+            first++;
+        }
+        for (int bucket = first; bucket < CountProfile.BUCKETS; bucket++) {
+            if (bucket > first && bets[bucket] == bets[bucket - 1]) continue;
+
+            int trueCount = bucket + CountProfile.MIN_TRUE_COUNT;
+            out.append(String.format(Locale.ROOT, " TC%s%+d:%d", bucket == first ? "<=" : ">=", trueCount,
+                    bets[bucket]));
+        }
+        out.append(String.format(Locale.ROOT,
+                "%nbankroll=%.0f kelly=%.3f avgBet=%.2f ev=%.5f sd=%.4f growth=%.3e ror=%.4f",
+                bankroll, kellyFraction, averageBet, ev, standardDeviation(), growth, riskOfRuin));
+        return out.toString();
+    }
+}
@@ -0,0 +1,233 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * @brief Sizes bets by the count: simulates shoes dealt to the cut card, then searches the bet ramp with the
+ *        highest bankroll growth whose risk of ruin stays under a target.
+ * @details Play follows basic strategy whatever the bet, so one simulation serves every candidate ramp: each
+ *          round is played once with a unit bet and recorded under the true count it started at. Shoes are split
+ *          evenly across worker threads, each with its own random stream derived from the seed and its own
+ *          tallies, merged once at the end.
+ *
+ *          The search is analytic on the resulting CountProfile. For a fraction k of the Kelly criterion the
+ *          bet at each count is k times the bankroll times the mean over the second moment of the net result,
+ *          made non-decreasing by a weighted isotonic regression (the growth is a weighted sum of squares around
+ *          those targets), bounded by the spread and rounded to whole table minimums. The fraction is scanned
+ *          and the ramp with the highest growth that meets the risk of ruin target is kept. Bounding the risk of
+ *          ruin bounds the ratio of the expected value to the variance, and maximizing the growth under that bound
+ *          only changes the common scale of the Kelly bets, to at most full Kelly: scanning the fraction covers
+ *          every candidate up to the rounding.
+ */
+public class BetSpreadOptimizer {
+    private static final int CARDS_PER_DECK = 52;
+    private static final int KELLY_STEPS = 200;
+
+    private final Rules rules;
+    private final CountingSystem system;
+    private final int threads;
+
+    /**
+     * @brief Creates an optimizer using every available core.
+     *
+     * @param rules The table rules, whose number of decks gives the size of a full shoe.
+     * @param system The counting system the bets follow.
+     */
+    public BetSpreadOptimizer(Rules rules, CountingSystem system) {
+        this(rules, system, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @brief Creates an optimizer with an explicit number of worker threads.
+     *
+     * @param rules The table rules, whose number of decks gives the size of a full shoe.
+     * @param system The counting system the bets follow.
+     * @param threads The number of worker threads (at least 1).
+     */
+    public BetSpreadOptimizer(Rules rules, CountingSystem system, int threads) {
+        this.rules = rules;
+        this.system = system;
+        this.threads = Math.max(1, threads);
+    }
+
+    /**
+     * @brief Simulates shoes dealt from a composition down to the cut card.
+     * @details Every shoe starts from the given composition, so a fresh shoe gives the long-run profile and a
+     *          partly dealt one the profile of the rest of that shoe. Rounds are dealt while more cards than the
+     *          cut card leaves remain.
+     *
+     * @param start The remaining cards, drawn from a full shoe of the rules' number of decks; it is not modified.
+     * @param penetration The fraction of the full shoe dealt before the reshuffle, between 0 and 1.
+     * @param shoes The number of shoes to simulate.
+     * @param seed The seed of the random streams, making runs reproducible.
+     * @return The profile of the rounds played.
+     * @throws IllegalArgumentException If the composition does not fit in the full shoe, the penetration is out
+     *         of range or the composition is already past the cut card.
+     */
+    public CountProfile simulate(Shoe start, double penetration, long shoes, long seed) {
+        int decks = rules.decks();
+        int[] rankCounts = start.toArray();
+        for (int rank = 1; rank <= 10; rank++) {
+            if (rankCounts[rank - 1] > (rank == 10 ? 16 : 4) * decks) {
+                throw new IllegalArgumentException("The shoe holds more cards than " + decks + " decks");
+            }
+        }
+        if (!(penetration > 0.0 && penetration < 1.0)) {
+            throw new IllegalArgumentException("Penetration must be between 0 and 1");
+        }
+        int cutCard = (int) Math.round(decks * CARDS_PER_DECK * (1.0 - penetration));
+        int totalCards = start.total();
+        if (totalCards <= cutCard) {
+            throw new IllegalArgumentException("The shoe is already past the cut card");
+        }
+
+        SplittableRandom root = new SplittableRandom(seed);
+        long begin = System.nanoTime();
+        long[] rounds = new long[CountProfile.BUCKETS];
+        double[] netSums = new double[CountProfile.BUCKETS], netSquaredSums = new double[CountProfile.BUCKETS];
+        long voidRounds = 0;
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(threads)) {
+            List<Future<Tally>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                long share = shoes / threads + (t < shoes % threads ? 1 : 0);
+                RoundPlayer player = new RoundPlayer(rules, root.split());
+                CardCounter counter = new CardCounter(system, decks);
+
+                futures.add(executor.submit(() -> {
+                    Tally tally = new Tally();
+                    for (long shoe = 0; shoe < share; shoe++) {
+                        player.reset(rankCounts, totalCards);
+                        while (player.remaining() > cutCard) {
+                            counter.recount(player);
+                            int bucket = CountProfile.bucketOf(counter.trueCount());
+                            double net = player.play();
+                            if (Double.isNaN(net)) {
+                                tally.voidRounds++;
+                                break;
+                            }
+                            tally.rounds[bucket]++;
+                            tally.netSums[bucket] += net;
+                            tally.netSquaredSums[bucket] += net * net;
+                        }
+                    }
+                    return tally;
+                }));
+            }
+
+            for (Future<Tally> future : futures) {
+                Tally tally = future.get();
+                for (int bucket = 0; bucket < CountProfile.BUCKETS; bucket++) {
+                    rounds[bucket] += tally.rounds[bucket];
+                    netSums[bucket] += tally.netSums[bucket];
+                    netSquaredSums[bucket] += tally.netSquaredSums[bucket];
+                }
+                voidRounds += tally.voidRounds;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Simulation interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Simulation failed", e.getCause());
+        }
+
+        return new CountProfile(system, shoes, rounds, netSums, netSquaredSums, voidRounds,
+                System.nanoTime() - begin);
+    }
+
+    /**
+     * @brief Searches the bet ramp with the highest growth whose risk of ruin meets a target.
+     *
+     * @param profile The simulated rounds.
+     * @param bankroll The bankroll, in table minimums.
+     * @param maxSpread The largest bet, in table minimums (at least 1).
+     * @param riskOfRuin The highest acceptable risk of ruin, between 0 and 1.
+     * @return The best ramp meeting the target, or the ramp of lowest risk if none does.
+     * @throws IllegalArgumentException If a parameter is out of range or the profile holds no round.
+     */
+    public static BetRamp optimize(CountProfile profile, double bankroll, int maxSpread, double riskOfRuin) {
+        if (!(bankroll > 0.0) || maxSpread < 1 || !(riskOfRuin > 0.0 && riskOfRuin < 1.0)) {
+            throw new IllegalArgumentException("Invalid bankroll, spread or risk of ruin");
+        }
+        if (profile.rounds() == 0) {
+            throw new IllegalArgumentException("The profile holds no round");
+        }
+
+        double[] kellyBets = kellyBets(profile);
+        BetRamp best = null, safest = null;
+        for (int step = 1; step <= KELLY_STEPS; step++) {
+            double fraction = (double) step / KELLY_STEPS;
+            int[] bets = new int[CountProfile.BUCKETS];
+            for (int bucket = 0; bucket < CountProfile.BUCKETS; bucket++) {
+                double bet = fraction * bankroll * kellyBets[bucket];
+                bets[bucket] = (int) Math.round(Math.max(1.0, Math.min(maxSpread, bet)));
+            }
+
+            BetRamp ramp = new BetRamp(profile.system(), bets, bankroll, fraction, profile);
+            if (ramp.riskOfRuin() <= riskOfRuin && (best == null || ramp.growth() > best.growth())) {
+                best = ramp;
+            }
+            if (safest == null || ramp.riskOfRuin() < safest.riskOfRuin()) {
+                safest = ramp;
+            }
+        }
+        return best != null ? best : safest;
+    }
+
+    /**
+     * @brief Returns the full Kelly bet of each bucket per unit of bankroll, made non-decreasing in the count.
+     * @details The growth of a ramp is, up to a constant, minus the sum over the buckets of frequency times
+     *          second moment times the squared distance to the bucket's Kelly bet, so the best non-decreasing
+     *          ramp is the isotonic regression of the Kelly bets with those weights (pool adjacent violators).
+     *          Buckets without rounds take the bet of the next bucket with rounds, or of the last one.
+     */
+    private static double[] kellyBets(CountProfile profile) {
+        // Blocks of adjacent buckets pooled so far: fitted value, weight and last bucket
+        double[] values = new double[CountProfile.BUCKETS], weights = new double[CountProfile.BUCKETS];
+        int[] ends = new int[CountProfile.BUCKETS];
+        int blocks = 0;
+        for (int bucket = 0; bucket < CountProfile.BUCKETS; bucket++) {
+            double squaredSum = profile.bucketNetSquaredSum(bucket);
+            if (squaredSum == 0.0) continue;
+
+            // Target E[x] / E[x^2] with weight n E[x^2]; the common factor 1 / N does not matter
+            values[blocks] = profile.bucketNetSum(bucket) / squaredSum;
+            weights[blocks] = squaredSum;
+            ends[blocks] = bucket;
+            blocks++;
+            while (blocks > 1 && values[blocks - 2] > values[blocks - 1]) {
+                double weight = weights[blocks - 2] + weights[blocks - 1];
+                values[blocks - 2] = (values[blocks - 2] * weights[blocks - 2]
+                        + values[blocks - 1] * weights[blocks - 1]) / weight;
+                weights[blocks - 2] = weight;
+                ends[blocks - 2] = ends[blocks - 1];
+                blocks--;
+            }
+        }
+
+        double[] bets = new double[CountProfile.BUCKETS];
+        for (int bucket = 0, block = 0; bucket < CountProfile.BUCKETS; bucket++) {
+            while (block < blocks - 1 && bucket > ends[block]) {
+                block++;
+            }
+            bets[bucket] = blocks > 0 ? Math.max(0.0, values[block]) : 0.0;
+        }
+        return bets;
+    }
+
+    /**
+     * @brief Rounds played by one worker, by true count bucket.
+     */
+    private static final class Tally {
+        final long[] rounds = new long[CountProfile.BUCKETS];
+        final double[] netSums = new double[CountProfile.BUCKETS];
+        final double[] netSquaredSums = new double[CountProfile.BUCKETS];
+        long voidRounds;
+    }
+}
@@ -1,13 +1,95 @@
 package model;
 
+import metrics.AnalysisStepEvent;
+import metrics.Probe;
+
 import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * @brief Blackjack game model that handles the game logic and probability calculations.
  */
 public class BlackJackModel {
+    // Hit-until threshold of the player distribution shown in the analysis: draw until the hand reaches 12
+    private static final int PLAYER_THRESHOLD = Analysis.PLAYER_MIN;
+
+    // Latency and search statistics of each step of analyze()
+    private static final Probe ANALYZE = Probe.of("analysis.total");
+    private static final Probe PROB_TO_BUST = Probe.of("analysis.probToBust");
+    private static final Probe PLAYER_TOTALS = Probe.of("analysis.playerTotals");
+    private static final Probe DEALER_TOTALS = Probe.of("analysis.dealerTotals");
+    private static final Probe ACTIONS = Probe.of("analysis.actionValues");
+    private static final Probe BEST_CHOICE = Probe.of("analysis.bestChoice");
+
+    // Result caches shared across processes when MappedResultCache.DIR_PROPERTY is set: file names and capacities
+    private static final String DEALER_TOTALS_FILE = "dealer-totals.cache";
+    private static final String DEALER_OUTCOMES_FILE = "dealer-outcomes.cache";
+    private static final String HAND_VALUES_FILE = "hand-values.cache";
+    private static final int DEALER_TOTALS_LOG2 = 18, DEALER_OUTCOMES_LOG2 = 18, HAND_VALUES_LOG2 = 20;
+
     private boolean isMyTurn = false, isDealerTurn = false;
     private final List<Integer> playerHand = new ArrayList<>(), dealerHand = new ArrayList<>();
+    // Kept in step with the card lists, so hand values never rescan the cards
+    private HandState playerState = HandState.EMPTY, dealerState = HandState.EMPTY;
+    private final Rules rules;
+    private final DealerEngine dealerEngine;
+    private final StrategySolver solver;
+    private final StrategyTable table;
+
+    /**
+     * @brief Creates a model for the standard rules answering fresh-shoe queries from the shared precomputed table,
+     *        if one is installed.
+     */
+    public BlackJackModel() {
+        this(StrategyTable.shared());
+    }
+
+    /**
+     * @brief Creates a model for the standard rules using the given precomputed table.
+     *
+     * @param table The table, or null to always compute live.
+     */
+    public BlackJackModel(StrategyTable table) {
+        this(table, Rules.standard());
+    }
+
+    /**
+     * @brief Creates a model for a set of rules.
+     * @details When the result.cache.dir property names a directory, dealer distributions and hand values are
+     *          also kept in memory-mapped files there, shared with every other model and process using it.
+     *
+     * @param table The precomputed table, or null to always compute live; ignored if generated for other rules.
+     * @param rules The table rules.
+     */
+    public BlackJackModel(StrategyTable table, Rules rules) {
+        this.rules = rules;
+        dealerEngine = new DealerEngine(rules);
+        dealerEngine.setSharedCache(MappedResultCache.shared(DEALER_TOTALS_FILE, DealerEngine.TOTALS,
+                DEALER_TOTALS_LOG2, rules));
+        solver = new StrategySolver(rules,
+                MappedResultCache.shared(DEALER_OUTCOMES_FILE, DealerHandTable.WIDTH, DEALER_OUTCOMES_LOG2, rules),
+                MappedResultCache.shared(HAND_VALUES_FILE, 1, HAND_VALUES_LOG2, rules));
+        this.table = table != null && table.covers(rules) ? table : null;
+    }
+
+    /**
+     * @brief Returns the rules the model evaluates.
+     *
+     * @return The rules.
+     */
+    public Rules rules() {
+        return rules;
+    }
+
+    /**
+     * @brief Sets the pool across which deep dealer and player trees are split. Results do not depend on it.
+     *
+     * @param pool The pool, or null to compute sequentially.
+     */
+    public void setDealerPool(ForkJoinPool pool) {
+        dealerEngine.setPool(pool);
+    }
 
     /**
      * @brief Sets the player's turn.
@@ -68,6 +150,7 @@ public class BlackJackModel {
     public void addCard(int value) {
         if (isMyTurn) {
             playerHand.add(value);
+            playerState = playerState.add(value);
         }
     }
 
@@ -79,54 +162,77 @@ public class BlackJackModel {
     public void addDealerCard(int value) {
         if (isDealerTurn) {
             dealerHand.add(value);
+            dealerState = dealerState.add(value);
         }
     }
 
     /**
-     * @brief Calculates the total value of the player's hand, considering the flexible value of aces.
+     * @brief Returns a copy of the cards in the player's hand.
      *
-     * @return The total value of the player's hand.
+     * @return The player's cards.
      */
-    public int getPlayerHandValue() {
-        return calculateHandValue(playerHand);
+    public List<Integer> getPlayerCards() {
+        return List.copyOf(playerHand);
     }
 
     /**
-     * @brief Calculates the total value of the dealer's hand, considering the flexible value of aces.
+     * @brief Returns a copy of the cards in the dealer's hand.
      *
-     * @return The total value of the dealer's hand.
+     * @return The dealer's cards.
      */
-    public int getDealerHandValue() {
-        return calculateHandValue(dealerHand);
+    public List<Integer> getDealerCards() {
+        return List.copyOf(dealerHand);
     }
 
     /**
-     * @brief Calculates the total value of a hand, considering the flexible value of aces.
+     * @brief Replaces both hands, regardless of whose turn it is.
      *
-     * @param hand The hand to calculate the value for.
-     * @return The total value of the hand.
+     * @param playerCards The cards in the player's hand.
+     * @param dealerCards The cards in the dealer's hand.
      */
-    private int calculateHandValue(List<Integer> hand) {
-        int sum = 0;
-        int aceCount = 0;
+    public void setHands(List<Integer> playerCards, List<Integer> dealerCards) {
+        playerHand.clear();
+        playerHand.addAll(playerCards);
+        dealerHand.clear();
+        dealerHand.addAll(dealerCards);
+        playerState = HandState.of(playerCards);
+        dealerState = HandState.of(dealerCards);
+    }
 
-        // Sum all cards, counting aces as 11
-        for (int card : hand) {
-            if (card == 1) {
-                sum += 11;
-                aceCount++;
-            } else {
-                sum += card;
-            }
-        }
+    /**
+     * @brief Returns the state of the player's hand.
+     *
+     * @return The player's hand state.
+     */
+    public HandState getPlayerState() {
+        return playerState;
+    }
 
-        // Adjust for aces if the sum is over 21
-        while (sum > 21 && aceCount > 0) {
-            sum -= 10; // Change an ace from 11 to 1
-            aceCount--;
-        }
+    /**
+     * @brief Returns the state of the dealer's hand.
+     *
+     * @return The dealer's hand state.
+     */
+    public HandState getDealerState() {
+        return dealerState;
+    }
+
+    /**
+     * @brief Returns the total value of the player's hand, considering the flexible value of aces.
+     *
+     * @return The total value of the player's hand.
+     */
+    public int getPlayerHandValue() {
+        return playerState.value();
+    }
 
-        return sum;
+    /**
+     * @brief Returns the total value of the dealer's hand, considering the flexible value of aces.
+     *
+     * @return The total value of the dealer's hand.
+     */
+    public int getDealerHandValue() {
+        return dealerState.value();
     }
 
     /**
@@ -134,6 +240,7 @@ public class BlackJackModel {
      */
     public void resetPlayerHand() {
         playerHand.clear();
+        playerState = HandState.EMPTY;
     }
 
     /**
@@ -141,214 +248,311 @@ public class BlackJackModel {
      */
     public void resetDealerHand() {
         dealerHand.clear();
+        dealerState = HandState.EMPTY;
     }
 
     /**
      * @brief Calculates the probability that the player will bust (go over 21).
      *
      * @param playerHandValue The current value of the player's hand.
-     * @param cardCounts A map containing the counts of each remaining card.
-     * @param totalCards The total number of remaining cards.
+     * @param shoe The remaining cards.
      *
      * @return The probability of busting.
      */
-    public double probToBust(int playerHandValue, Map<Integer, Integer> cardCounts, int totalCards) {
-        if (playerHandValue < 12) {
-            return 0.0; // Impossible to bust
-        }
-
-        int bustThreshold = 22 - playerHandValue;
-        int bustCardsCount = 0;
+    public double probToBust(int playerHandValue, Shoe shoe) {
+        return bustProbability(playerHandValue, shoe);
+    }
 
-        for (int cardValue = bustThreshold; cardValue <= 10; cardValue++) {
-            bustCardsCount += cardCounts.getOrDefault(cardValue, 0);
+    /**
+     * @brief Calculates the probability that the next card takes a hand over 21.
+     *
+     * @param handValue The current value of the hand.
+     * @param shoe The remaining cards.
+     *
+     * @return The probability of busting.
+     */
+    static double bustProbability(int handValue, Shoe shoe) {
+        if (handValue < 12) {
+            return 0.0; // Impossible to bust
         }
 
-        return (double) bustCardsCount / totalCards;
+        // The cards from 22 - value up bust the hand
+        return (double) shoe.countAtLeast(22 - handValue) / shoe.total();
     }
 
     /**
-     * @brief Calculates the probabilities for the player to achieve values from 12 to 21.
+     * @brief Calculates the probabilities for the player to finish on values from 12 to 21 by hitting until 12 or more.
      *
-     * @param cardCounts A map containing the counts of each remaining card.
-     * @param totalCards The total number of remaining cards.
+     * @param shoe The remaining cards.
      *
      * @return A map containing the probabilities for each target value (from 12 to 21).
      */
-    public Map<Integer, Double> calculateProbabilities(Map<Integer, Integer> cardCounts, int totalCards) {
+    public Map<Integer, Double> calculateProbabilities(Shoe shoe) {
         Map<Integer, Double> probabilities = new HashMap<>();
-        int currentSum = getPlayerHandValue();
+        double[] totals = playerTotals(shoe);
 
-        for (int target = 12; target <= 21; target++) {
-            probabilities.put(target, calculateProbabilityForTarget(currentSum, target, cardCounts, totalCards));
+        for (int target = Analysis.PLAYER_MIN; target <= Analysis.PLAYER_MAX; target++) {
+            probabilities.put(target, totals[target - Analysis.PLAYER_MIN]);
         }
 
         return probabilities;
     }
 
     /**
-     * @brief Calculates the probability for the player to reach a specific target value, considering the flexible value of aces.
+     * @brief Calculates the probabilities for the player to finish on values from 12 to 21.
+     *
+     * @param shoe The remaining cards.
      *
-     * @param currentSum The current sum of the player's hand.
-     * @param target The target value the player is trying to achieve.
-     * @param cardCounts A map containing the counts of each remaining card.
-     * @param totalCards The total number of remaining cards.
+     * @return The probabilities, indexed by target value - 12.
+     */
+    private double[] playerTotals(Shoe shoe) {
+        return Arrays.copyOf(playerFinalTotals(shoe, PLAYER_THRESHOLD), Analysis.PLAYER_MAX - Analysis.PLAYER_MIN + 1);
+    }
+
+    /**
+     * @brief Calculates the exact distribution of the player's final value when drawing at least one card and
+     *        hitting until the value reaches a threshold.
+     * @details Every card sequence is enumerated without replacement from the remaining cards, with the soft or
+     *          hard state of the hand tracked at each step. The sub-results are memoized in the dealer engine's
+     *          cache, keyed by threshold, hand state and shoe composition, so they are shared with the dealer's
+     *          computations and with later queries. A hand already at 21 or more draws nothing and gets zeros.
      *
-     * @return The probability of achieving the target value.
+     * @param shoe The remaining cards. It is used as scratch space and restored before returning.
+     * @param threshold The value at which the player stands, from 12 to 21.
+     * @return The probabilities of the final values 12 to 21 and of busting, in that order.
      */
-    private double calculateProbabilityForTarget(int currentSum, int target, Map<Integer, Integer> cardCounts, int totalCards) {
-        if (currentSum >= target) return 0.0;
+    public double[] playerFinalTotals(Shoe shoe, int threshold) {
+        double[] totals = new double[DealerEngine.TOTALS];
+        int hardTotal = playerState.hardTotal();
+        boolean hasAce = playerState.hasAce();
+
+        int total = shoe.total();
+        if (playerState.value() >= 21 || total == 0) {
+            return totals;
+        }
 
-        int needed = target - currentSum;
-        double probability = 0.0;
+        // The first card is always drawn, then the engine continues the hand up to the threshold
+        double[] sub = new double[DealerEngine.TOTALS];
+        for (int rank = 1; rank <= 10; rank++) {
+            int count = shoe.count(rank);
+            if (count == 0) {
+                continue;
+            }
 
-        // Consider the case where the needed card is an ace (1 or 11)
-        if (needed == 1) {
-            // Ace can be 1 or 11
-            probability += cardCounts.getOrDefault(1, 0) / (double) totalCards;
-        } else if (needed == 11) {
-            // Ace can be 11
-            probability += cardCounts.getOrDefault(1, 0) / (double) totalCards;
-        } else {
-            // Regular card
-            probability += cardCounts.getOrDefault(needed, 0) / (double) totalCards;
+            shoe.draw(rank);
+            dealerEngine.finalTotals(shoe, hardTotal + rank, hasAce || rank == 1, threshold, sub);
+            shoe.undo(rank);
+
+            double cardProbability = (double) count / total;
+            for (int i = 0; i < DealerEngine.TOTALS; i++) {
+                totals[i] += cardProbability * sub[i];
+            }
         }
 
-        return probability;
+        return totals;
     }
 
     /**
      * @brief Calculates the probabilities for the dealer to achieve values between 17 and 21.
      *
-     * @param cardCounts A map containing the counts of each remaining card.
-     * @param totalCards The total number of remaining cards.
-     * @param currentSum The current sum of the dealer's hand.
+     * @param shoe The remaining cards.
      *
      * @return A map containing the probabilities for the dealer to achieve values from 17 to 21.
      */
-    public Map<Integer, Double> calculateDealerProbabilities(Map<Integer, Integer> cardCounts, int totalCards, int currentSum) {
+    public Map<Integer, Double> calculateDealerProbabilities(Shoe shoe) {
         Map<Integer, Double> probabilities = new HashMap<>();
+        double[] totals = dealerTotals(calculateDealerOutcome(shoe));
 
-        // Initialize all probabilities to 0
-        for (int i = 17; i <= 21; i++) {
-            probabilities.put(i, 0.0);
-        }
-
-        // Recursively calculate the probabilities
-        calculateProbabilityForDealer(cardCounts, totalCards, currentSum, 1.0, probabilities);
-
-        // Normalize the probabilities
-        double totalProbability = probabilities.values().stream().mapToDouble(Double::doubleValue).sum();
-        if (totalProbability > 0) {
-            for (int i = 17; i <= 21; i++) {
-                probabilities.put(i, probabilities.get(i) / totalProbability);
-            }
+        for (int i = Analysis.DEALER_MIN; i <= Analysis.DEALER_MAX; i++) {
+            probabilities.put(i, totals[i - Analysis.DEALER_MIN]);
         }
 
         return probabilities;
     }
 
     /**
-     * @brief Recursively calculates the probability of the dealer achieving a value between 17 and 21, considering the flexible value of aces.
+     * @brief Normalizes the dealer's final hand distribution over the non-bust outcomes.
+     *
+     * @param outcome The probabilities of 17, 18, 19, 20, 21 and bust, as returned by calculateDealerOutcome().
      *
-     * @param cardCounts A map containing the counts of each remaining card.
-     * @param totalCards The total number of remaining cards.
-     * @param currentSum The current sum of the dealer's hand.
-     * @param currentProbability The current probability of the dealer achieving the target sum.
-     * @param probabilities A map to store the final probabilities.
+     * @return The probabilities of 17 to 21, indexed by value - 17.
      */
-    private void calculateProbabilityForDealer(Map<Integer, Integer> cardCounts, int totalCards, int currentSum, double currentProbability, Map<Integer, Double> probabilities) {
-        // Calculate the current hand value considering aces
-        int currentHandValue = calculateHandValue(dealerHand);
-
-        // If the sum is between 17 and 21, add the current probability
-        if (currentHandValue >= 17 && currentHandValue <= 21) {
-            probabilities.put(currentHandValue, probabilities.getOrDefault(currentHandValue, 0.0) + currentProbability);
-            return;
+    static double[] dealerTotals(double[] outcome) {
+        double[] totals = new double[DealerEngine.BUST];
+        double totalProbability = 0.0;
+        for (int i = 0; i < DealerEngine.BUST; i++) {
+            totalProbability += outcome[i];
+        }
+        for (int i = 0; i < DealerEngine.BUST; i++) {
+            totals[i] = totalProbability > 0 ? outcome[i] / totalProbability : 0.0;
         }
+        return totals;
+    }
 
-        // If the sum is greater than 21, no further probabilities can be calculated
-        if (currentHandValue > 21) {
-            return;
+    /**
+     * @brief Calculates the full distribution of the dealer's final hand, including the bust outcome.
+     *
+     * @param shoe The remaining cards.
+     *
+     * @return An array with the probabilities of 17, 18, 19, 20, 21 and bust, in that order.
+     */
+    public double[] calculateDealerOutcome(Shoe shoe) {
+        if (table != null && dealerHand.size() == 1) {
+            double[] outcome = new double[DealerEngine.OUTCOMES];
+            if (table.dealerOutcome(shoe, playerHand, dealerHand.get(0), outcome)) {
+                return outcome;
+            }
         }
 
-        // Iterate through all remaining cards in the deck
-        for (Map.Entry<Integer, Integer> entry : cardCounts.entrySet()) {
-            int cardValue = entry.getKey();
-            int count = entry.getValue();
+        return dealerEngine.outcome(shoe, dealerState.hardTotal(), dealerState.hasAce());
+    }
 
-            if (count == 0) continue;  // Skip exhausted cards
+    /**
+     * @brief Computes the exact expected value of each action for the current hands.
+     * @details The first decision on a fresh shoe is read from the precomputed table when available.
+     *
+     * @param shoe The remaining cards.
+     * @return The action values, or null if the hands do not describe a player decision against a dealer up-card.
+     */
+    public ActionValues evaluateActions(Shoe shoe) {
+        if (playerState.cardCount() < 2 || dealerState.cardCount() != 1 || playerState.isBust()) {
+            return null;
+        }
+        if (table != null) {
+            ActionValues values = table.actionValues(shoe, playerHand, dealerHand.get(0));
+            if (values != null) {
+                return values;
+            }
+        }
+        return solver.solve(shoe, playerHand, dealerHand.get(0));
+    }
 
-            // Calculate the probability of drawing this card
-            double cardProbability = (double) count / totalCards;
+    /**
+     * @brief Chooses the action for the current hands from basic strategy and the count-based index plays.
+     * @details Costs a few table lookups, so it can be shown immediately while the exact analysis is running.
+     *
+     * @param indexCount The true count on the Hi-Lo scale, see CardCounter.indexCount().
+     * @return The action, or null if the hands do not describe a player decision against a dealer up-card.
+     */
+    public Action indexPlay(double indexCount) {
+        if (playerState.cardCount() < 2 || dealerState.cardCount() != 1 || playerState.isBust()) {
+            return null;
+        }
+        if (playerState.value() == 21) {
+            return Action.STAND;
+        }
 
-            // Temporarily remove the card from the deck
-            cardCounts.put(cardValue, count - 1);
-            totalCards--;
+        boolean initialHand = playerState.cardCount() == 2;
+        return IndexPlays.decide(playerState.hardTotal(), playerState.hasAce(), playerState.pairRank(), initialHand,
+                initialHand, dealerHand.get(0), indexCount, rules);
+    }
 
-            // Add the card to the dealer's hand
-            dealerHand.add(cardValue);
+    /**
+     * @brief Computes a snapshot of the probabilities and the recommended action for the current hands.
+     * @details Only the sides flagged as changed are recomputed; the other side is carried over from the
+     *          previous snapshot, so the probabilities of a hand stay those of the moment it last received a card.
+     *
+     * @param shoe The remaining cards.
+     * @param previous The previous snapshot, Analysis.EMPTY if there is none.
+     * @param playerChanged True if the player's probabilities must be recomputed.
+     * @param dealerChanged True if the dealer's probabilities must be recomputed.
+     * @return The new snapshot.
+     * @throws CancellationException If the calling thread is interrupted during the computation; the shoe is
+     *         then left partly drawn.
+     */
+    public Analysis analyze(Shoe shoe, Analysis previous, boolean playerChanged, boolean dealerChanged) {
+        AnalysisStepEvent total = ANALYZE.begin();
+        // Cards only leave the shoe until it is replaced, so a full cache keeps the compositions still reachable
+        dealerEngine.retainWithin(shoe);
+        solver.retainWithin(shoe);
+        double playerBust = previous.playerBust(), dealerBust = previous.dealerBust();
+        double[] playerTotals = previous.playerTotals(), dealerTotals = previous.dealerTotals();
+        if (playerChanged) {
+            AnalysisStepEvent event = PROB_TO_BUST.begin();
+            playerBust = probToBust(getPlayerHandValue(), shoe);
+            PROB_TO_BUST.end(event);
+
+            event = PLAYER_TOTALS.begin();
+            long nodes = dealerEngine.nodesVisited(), hits = dealerEngine.cacheHits();
+            playerTotals = playerTotals(shoe);
+            PLAYER_TOTALS.end(event, dealerEngine.nodesVisited() - nodes, dealerEngine.cacheHits() - hits);
+        }
+        if (dealerChanged) {
+            AnalysisStepEvent event = PROB_TO_BUST.begin();
+            dealerBust = probToBust(getDealerHandValue(), shoe);
+            PROB_TO_BUST.end(event);
+
+            event = DEALER_TOTALS.begin();
+            long nodes = dealerEngine.nodesVisited(), hits = dealerEngine.cacheHits();
+            dealerTotals = dealerTotals(calculateDealerOutcome(shoe));
+            DEALER_TOTALS.end(event, dealerEngine.nodesVisited() - nodes, dealerEngine.cacheHits() - hits);
+        }
 
-            // Recursively calculate the probability for the new sum
-            calculateProbabilityForDealer(cardCounts, totalCards, currentSum + cardValue, currentProbability * cardProbability, probabilities);
+        // Prefer the exact expected values, fall back to the probability thresholds otherwise
+        AnalysisStepEvent event = ACTIONS.begin();
+        long nodes = solver.nodesVisited(), hits = solver.cacheHits();
+        ActionValues actionValues = evaluateActions(shoe);
+        ACTIONS.end(event, solver.nodesVisited() - nodes, solver.cacheHits() - hits);
 
-            // Restore the card in the deck (backtracking)
-            cardCounts.put(cardValue, count);
-            totalCards++;
-            dealerHand.remove(dealerHand.size() - 1); // Remove the last card added
+        Action recommendation;
+        if (actionValues != null) {
+            recommendation = actionValues.best();
+        } else {
+            event = BEST_CHOICE.begin();
+            recommendation = bestChoice(getPlayerHandValue(), playerBust, dealerBust, playerTotals, dealerTotals);
+            BEST_CHOICE.end(event);
         }
+        ANALYZE.end(total);
+        return new Analysis(playerBust, playerTotals, dealerBust, dealerTotals, actionValues, recommendation);
     }
 
     /**
      * @brief Determines the best strategy for the player based on probabilities.
+     * @details Used when evaluateActions() cannot be applied to the current hands.
      *
      * @param playerHandValue The current value of the player's hand.
-     * @param dealerHandValue The current value of the dealer's hand.
      * @param probToBust The probability that the player will bust.
      * @param probToBustDealer The probability that the dealer will bust.
-     * @param playerProbabilities The probabilities for the player to achieve values from 12 to 21.
-     * @param dealerProbabilities The probabilities for the dealer to achieve values from 17 to 21.
-     * @return A string indicating the best strategy
+     * @param playerTotals The probabilities for the player to achieve values from 12 to 21.
+     * @param dealerTotals The probabilities for the dealer to achieve values from 17 to 21.
+     * @return The best action
      */
-    public String bestChoice(int playerHandValue, int dealerHandValue, double probToBust, double probToBustDealer,
-                             Map<Integer, Double> playerProbabilities, Map<Integer, Double> dealerProbabilities) {
+    static Action bestChoice(int playerHandValue, double probToBust, double probToBustDealer,
+                           double[] playerTotals, double[] dealerTotals) {
         if (playerHandValue == 21) {
-            return "Stand";
+            return Action.STAND;
         }
 
         if (probToBust > 0.51 && probToBustDealer < 0.69) {
-            return "Stand";
+            return Action.STAND;
         }
 
         if (probToBustDealer > 0.70) {
-            boolean shouldHit = shouldPlayerHit(playerProbabilities, dealerProbabilities);
+            boolean shouldHit = shouldPlayerHit(playerTotals, dealerTotals);
             if (shouldHit) {
-                return "Hit";
+                return Action.HIT;
             }
         }
 
         double winProbability = 1 - probToBust;
         if (winProbability > 0.75 && playerHandValue >= 9 && playerHandValue <= 11) {
-            return "Double Down";
+            return Action.DOUBLE;
         }
 
-        return "Hit";
+        return Action.HIT;
     }
 
     /**
      * @brief Determines whether the player should hit based on probability comparisons.
      *
-     * @param playerProbabilities A map containing the player's probability of reaching each hand value.
-     * @param dealerProbabilities A map containing the dealer's probability of holding each hand value.
+     * @param playerTotals The player's probability of reaching each hand value from 12 to 21.
+     * @param dealerTotals The dealer's probability of holding each hand value from 17 to 21.
      * @return true if the player should hit, false otherwise.
      */
-
-    private boolean shouldPlayerHit(Map<Integer, Double> playerProbabilities, Map<Integer, Double> dealerProbabilities) {
-        int[] handValues = {17, 18, 19, 20, 21};
-
-        for (int value : handValues) {
-            double playerProb = playerProbabilities.getOrDefault(value, 0.0);
-            double dealerProb = dealerProbabilities.getOrDefault(value, 0.0);
+    private static boolean shouldPlayerHit(double[] playerTotals, double[] dealerTotals) {
+        for (int value = Analysis.DEALER_MIN; value <= Analysis.DEALER_MAX; value++) {
+            double playerProb = playerTotals[value - Analysis.PLAYER_MIN];
+            double dealerProb = dealerTotals[value - Analysis.DEALER_MIN];
 
             if (playerProb < dealerProb) {
                 return true;
@@ -0,0 +1,103 @@
+package model;
+
+/**
+ * @brief Running and true count of a counting system, updated in constant time for every card seen.
+ */
+public final class CardCounter {
+    private static final int CARDS_PER_DECK = 52;
+
+    private final CountingSystem system;
+    private int decks;
+    private int runningCount;
+    private int cardsSeen;
+
+    /**
+     * @brief Creates a counter at the start of a shoe.
+     *
+     * @param system The counting system.
+     * @param decks The number of decks in the shoe.
+     */
+    public CardCounter(CountingSystem system, int decks) {
+        this.system = system;
+        reset(decks);
+    }
+
+    /**
+     * @brief Restarts the count for a new shoe.
+     *
+     * @param decks The number of decks in the shoe.
+     */
+    public void reset(int decks) {
+        this.decks = decks;
+        runningCount = system.initialRunningCount(decks);
+        cardsSeen = 0;
+    }
+
+    /**
+     * @brief Counts a card that has left the shoe.
+     *
+     * @param rank The rank of the card, from 1 (ace) to 10.
+     */
+    public void cardSeen(int rank) {
+        runningCount += system.tag(rank);
+        cardsSeen++;
+    }
+
+    /**
+     * @brief Sets the count from the cards left in a simulated shoe, as if every other card of the full shoe had
+     *        been seen.
+     *
+     * @param player The player holding the shoe, drawn from a full shoe of the counter's number of decks.
+     */
+    void recount(RoundPlayer player) {
+        runningCount = system.initialRunningCount(decks);
+        cardsSeen = decks * CARDS_PER_DECK - player.remaining();
+        for (int rank = 1; rank <= 10; rank++) {
+            int full = (rank == 10 ? 16 : 4) * decks;
+            runningCount += system.tag(rank) * (full - player.count(rank));
+        }
+    }
+
+    /**
+     * @brief Returns the counting system.
+     *
+     * @return The system.
+     */
+    public CountingSystem system() {
+        return system;
+    }
+
+    /**
+     * @brief Returns the running count.
+     *
+     * @return The running count.
+     */
+    public int runningCount() {
+        return runningCount;
+    }
+
+    /**
+     * @brief Returns the running count per remaining deck.
+     * @details For unbalanced systems the drift expected from the cards already seen is removed first, so the
+     *          result is centred on zero like a balanced true count.
+     *
+     * @return The true count, 0 when the shoe is empty.
+     */
+    public double trueCount() {
+        int remaining = decks * CARDS_PER_DECK - cardsSeen;
+        if (remaining <= 0) {
+            return 0.0;
+        }
+        double drift = system.initialRunningCount(decks) + (double) system.deckSum() * cardsSeen / CARDS_PER_DECK;
+        return (runningCount - drift) * CARDS_PER_DECK / remaining;
+    }
+
+    /**
+     * @brief Returns the true count scaled to a level-one system, the scale of the index play tables.
+     *
+     * @return The true count divided by the system's level.
+     */
+    public double indexCount() {
+        return trueCount() / system.level();
+    }
+}
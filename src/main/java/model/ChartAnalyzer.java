@@ -0,0 +1,215 @@
+package model;
+
+import metrics.AnalysisStepEvent;
+import metrics.Probe;
+
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @brief Computes composition-dependent strategy charts: every two-card hand against every up-card, in one batch.
+ * @details The chart is split into one task per up-card and section (hard, soft, pairs), run on a fork-join pool
+ *          with solvers taken from a pool of idle solvers. The solvers of an up-card share their dealer
+ *          distributions through the second level of memo tables, as do the player hands of a task through the
+ *          solver's own tables. The tables are kept between charts, so refreshing the chart after one more card
+ *          is drawn finds most of the new compositions already evaluated.
+ */
+public class ChartAnalyzer {
+    private static final Probe CHART = Probe.of("analysis.chart");
+
+    private static final int SECTIONS = 3, HARD = 0, SOFT = 1, PAIRS = 2;
+    private static final Action[] ACTION_VALUES = Action.values();
+    private static final int ACTIONS = ACTION_VALUES.length;
+
+    private final Rules rules;
+    private final ForkJoinPool pool;
+    private final SolverPool solvers;
+
+    /**
+     * @brief Creates an analyzer running its tasks on a pool.
+     *
+     * @param rules The table rules; the number of decks is given by the shoe of each chart.
+     * @param pool The pool running the tasks.
+     */
+    public ChartAnalyzer(Rules rules, ForkJoinPool pool) {
+        this(rules, pool, new SolverPool(rules));
+    }
+
+    /**
+     * @brief Creates an analyzer sharing the pool, the solvers and the memo tables of a removal analyzer.
+     * @details A report evaluates every two-card hand against every up-card, so a chart of a shoe that was just
+     *          reported on costs little more than the lookups.
+     *
+     * @param removalAnalyzer The analyzer to share with.
+     */
+    public ChartAnalyzer(RemovalAnalyzer removalAnalyzer) {
+        this(removalAnalyzer.rules(), removalAnalyzer.pool(), removalAnalyzer.solvers());
+    }
+
+    private ChartAnalyzer(Rules rules, ForkJoinPool pool, SolverPool solvers) {
+        this.rules = rules;
+        this.pool = pool;
+        this.solvers = solvers;
+    }
+
+    /**
+     * @brief Computes the chart for a shoe.
+     *
+     * @param shoe The remaining cards; it is not modified.
+     * @return The chart.
+     * @throws CancellationException If the calling thread is interrupted while waiting for the tasks.
+     * @throws IllegalStateException If a task fails.
+     */
+    public StrategyChart chart(Shoe shoe) {
+        AnalysisStepEvent event = CHART.begin();
+        LongAdder nodes = new LongAdder(), hits = new LongAdder();
+        // Set when the batch is abandoned, so that the running tasks stop as well as the queued ones
+        AtomicBoolean cancelled = new AtomicBoolean();
+        solvers.retainWithin(shoe);
+
+        @SuppressWarnings({"rawtypes", "unchecked"})
+        ForkJoinTask<ActionValues[]>[] tasks = new ForkJoinTask[10 * SECTIONS];
+        for (int upCard = 1; upCard <= 10; upCard++) {
+            if (shoe.count(upCard) == 0) continue;
+
+            for (int section = 0; section < SECTIONS; section++) {
+                Shoe dealt = shoe.copy();
+                dealt.draw(upCard);
+                int up = upCard, rows = section;
+                tasks[(upCard - 1) * SECTIONS + section] =
+                        pool.submit(() -> solvers.apply(solver -> section(solver, dealt, up, rows), cancelled,
+                                nodes, hits));
+            }
+        }
+
+        ActionValues[][] hard = new ActionValues[StrategyChart.HARD_ROWS][10];
+        ActionValues[][] soft = new ActionValues[StrategyChart.SOFT_ROWS][10];
+        ActionValues[][] pairs = new ActionValues[StrategyChart.PAIR_ROWS][10];
+        try {
+            for (int i = 0; i < tasks.length; i++) {
+                if (tasks[i] == null) continue;
+
+                ActionValues[] values = tasks[i].get();
+                ActionValues[][] section = i % SECTIONS == HARD ? hard : i % SECTIONS == SOFT ? soft : pairs;
+                for (int row = 0; row < values.length; row++) {
+                    section[row][i / SECTIONS] = values[row];
+                }
+            }
+        } catch (InterruptedException e) {
+            cancelled.set(true);
+            for (ForkJoinTask<ActionValues[]> task : tasks) {
+                if (task != null) {
+                    task.cancel(false);
+                }
+            }
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Strategy chart interrupted");
+        } catch (ExecutionException e) {
+            cancelled.set(true);
+            throw new IllegalStateException("Strategy chart failed", e.getCause());
+        }
+
+        CHART.end(event, nodes.sum(), hits.sum());
+        return new StrategyChart(rules, hard, soft, pairs);
+    }
+
+    /**
+     * @brief Drops every memo table, those of the idle solvers included.
+     */
+    public void clearCache() {
+        solvers.clear();
+    }
+
+    /**
+     * @brief Evaluates the rows of one section against one up-card.
+     *
+     * @param solver The solver.
+     * @param shoe The remaining cards once the up-card is dealt; used as scratch space.
+     * @param upCard The dealer's up-card.
+     * @param section HARD, SOFT or PAIRS.
+     * @return The values of each row, null for hands that cannot be dealt.
+     */
+    private static ActionValues[] section(StrategySolver solver, Shoe shoe, int upCard, int section) {
+        double[] sums = new double[ACTIONS];
+        ActionValues[] values;
+        switch (section) {
+            case HARD:
+                values = new ActionValues[StrategyChart.HARD_ROWS];
+                for (int total = StrategyChart.HARD_MIN; total <= StrategyChart.HARD_MAX; total++) {
+                    // Every two-card hand of the total, pairs included, weighted by its probability of being dealt
+                    double ways = 0.0;
+                    for (int first = Math.max(2, total - 10); first <= total / 2; first++) {
+                        ways += addHand(solver, shoe, upCard, first, total - first, sums);
+                    }
+                    values[total - StrategyChart.HARD_MIN] = average(sums, ways, false);
+                }
+                return values;
+            case SOFT:
+                values = new ActionValues[StrategyChart.SOFT_ROWS];
+                for (int total = StrategyChart.SOFT_MIN; total <= StrategyChart.SOFT_MAX; total++) {
+                    double ways = addHand(solver, shoe, upCard, 1, total - 11, sums);
+                    values[total - StrategyChart.SOFT_MIN] = average(sums, ways, false);
+                }
+                return values;
+            default:
+                values = new ActionValues[StrategyChart.PAIR_ROWS];
+                for (int rank = 1; rank <= 10; rank++) {
+                    double ways = addHand(solver, shoe, upCard, rank, rank, sums);
+                    values[rank - 1] = average(sums, ways, true);
+                }
+                return values;
+        }
+    }
+
+    /**
+     * @brief Adds the action values of a two-card hand, weighted by its number of ways to be dealt.
+     *
+     * @return The number of ways, 0 if the hand cannot be dealt.
+     */
+    private static double addHand(StrategySolver solver, Shoe shoe, int upCard, int first, int second,
+                                  double[] sums) {
+        double ways = (double) shoe.count(first) * (shoe.count(second) - (first == second ? 1 : 0));
+        if (ways <= 0) {
+            return 0.0;
+        }
+        if (first != second) {
+            ways *= 2;
+        }
+
+        shoe.draw(first);
+        shoe.draw(second);
+        ActionValues values = solver.solve(shoe, List.of(first, second), upCard);
+        shoe.undo(second);
+        shoe.undo(first);
+
+        for (int action = 0; action < ACTIONS; action++) {
+            sums[action] += ways * values.ev(ACTION_VALUES[action]);
+        }
+        return ways;
+    }
+
+    /**
+     * @brief Turns weighted sums into the values of a row and clears the sums for the next row.
+     *
+     * @return The values, null if no hand of the row can be dealt.
+     */
+    private static ActionValues average(double[] sums, double ways, boolean split) {
+        if (ways == 0.0) {
+            return null;
+        }
+        double[] values = new double[ACTIONS];
+        for (int action = 0; action < ACTIONS; action++) {
+            values[action] = sums[action] / ways;
+            sums[action] = 0.0;
+        }
+        if (!split) {
+            values[Action.SPLIT.ordinal()] = Double.NaN;
+        }
+        return new ActionValues(values);
+    }
+}
@@ -0,0 +1,199 @@
+package model;
+
+import java.util.Locale;
+
+/**
+ * @brief Immutable outcome of simulated shoes, broken down by the true count at the start of each round.
+ * @details Produced by BetSpreadOptimizer.simulate(). Rounds are played with basic strategy and a bet of one
+ *          unit, so the profile holds everything a bet ramp needs: how often each true count comes up and the
+ *          mean and second moment of the net result at that count. True counts are floored; counts beyond
+ *          MIN_TRUE_COUNT and MAX_TRUE_COUNT are gathered in the end buckets.
+ */
+public final class CountProfile {
+    /** Lowest true count bucket. */
+    public static final int MIN_TRUE_COUNT = -12;
+    /** Highest true count bucket. */
+    public static final int MAX_TRUE_COUNT = 12;
+
+    static final int BUCKETS = MAX_TRUE_COUNT - MIN_TRUE_COUNT + 1;
+
+    private final CountingSystem system;
+    private final long shoes;
+    private final long[] rounds;
+    private final double[] netSums, netSquaredSums;
+    private final long totalRounds;
+    private final long voidRounds;
+    private final long elapsedNanos;
+
+    /**
+     * @brief Creates a profile. The arrays are not copied and must not be modified afterwards.
+     *
+     * @param system The counting system of the true counts.
+     * @param shoes The number of shoes simulated.
+     * @param rounds The number of completed rounds of each bucket.
+     * @param netSums The sum of the net results of each bucket, in units of the bet.
+     * @param netSquaredSums The sum of the squared net results of each bucket.
+     * @param voidRounds The number of rounds abandoned because the shoe ran out of cards.
+     * @param elapsedNanos The wall time of the simulation.
+     */
+    CountProfile(CountingSystem system, long shoes, long[] rounds, double[] netSums, double[] netSquaredSums,
+                 long voidRounds, long elapsedNanos) {
+        this.system = system;
+        this.shoes = shoes;
+        this.rounds = rounds;
+        this.netSums = netSums;
+        this.netSquaredSums = netSquaredSums;
+        this.voidRounds = voidRounds;
+        this.elapsedNanos = elapsedNanos;
+
+        long total = 0;
+        for (long count : rounds) {
+            total += count;
+        }
+        totalRounds = total;
+    }
+
+    /**
+     * @brief Returns the bucket of a true count.
+     *
+     * @param trueCount The true count.
+     * @return The bucket index, from 0 for MIN_TRUE_COUNT to BUCKETS - 1.
+     */
+    static int bucketOf(double trueCount) {
+        double floor = Math.floor(trueCount);
+        return (int) Math.max(MIN_TRUE_COUNT, Math.min(MAX_TRUE_COUNT, floor)) - MIN_TRUE_COUNT;
+    }
+
+    /**
+     * @brief Returns the counting system of the true counts.
+     *
+     * @return The system.
+     */
+    public CountingSystem system() {
+        return system;
+    }
+
+    /**
+     * @brief Returns the number of shoes simulated.
+     *
+     * @return The number of shoes.
+     */
+    public long shoes() {
+        return shoes;
+    }
+
+    /**
+     * @brief Returns the number of completed rounds.
+     *
+     * @return The number of rounds.
+     */
+    public long rounds() {
+        return totalRounds;
+    }
+
+    /**
+     * @brief Returns the number of completed rounds played at a true count.
+     *
+     * @param trueCount The true count, clamped to the bucket range.
+     * @return The number of rounds.
+     */
+    public long rounds(int trueCount) {
+        return rounds[bucketOf(trueCount)];
+    }
+
+    /**
+     * @brief Returns the fraction of rounds played at a true count.
+     *
+     * @param trueCount The true count, clamped to the bucket range.
+     * @return The frequency.
+     */
+    public double frequency(int trueCount) {
+        return totalRounds > 0 ? (double) rounds(trueCount) / totalRounds : 0.0;
+    }
+
+    /**
+     * @brief Returns the mean net result of the rounds played at a true count.
+     *
+     * @param trueCount The true count, clamped to the bucket range.
+     * @return The expected value per unit bet, 0 if no round was played at that count.
+     */
+    public double ev(int trueCount) {
+        int bucket = bucketOf(trueCount);
+        return rounds[bucket] > 0 ? netSums[bucket] / rounds[bucket] : 0.0;
+    }
+
+    /**
+     * @brief Returns the standard deviation of the net result of a round played at a true count.
+     *
+     * @param trueCount The true count, clamped to the bucket range.
+     * @return The standard deviation per unit bet.
+     */
+    public double standardDeviation(int trueCount) {
+        int bucket = bucketOf(trueCount);
+        long n = rounds[bucket];
+        if (n < 2) {
+            return 0.0;
+        }
+        double mean = netSums[bucket] / n;
+        return Math.sqrt(Math.max(0.0, (netSquaredSums[bucket] - n * mean * mean) / (n - 1)));
+    }
+
+    /**
+     * @brief Returns the number of rounds abandoned because the shoe ran out of cards.
+     *
+     * @return The number of void rounds.
+     */
+    public long voidRounds() {
+        return voidRounds;
+    }
+
+    /**
+     * @brief Returns the simulation throughput.
+     *
+     * @return The number of rounds simulated per second of wall time.
+     */
+    public double roundsPerSecond() {
+        return elapsedNanos > 0 ? (totalRounds + voidRounds) * 1e9 / elapsedNanos : 0.0;
+    }
+
+    /**
+     * @brief Returns the raw number of rounds of a bucket.
+     */
+    long bucketRounds(int bucket) {
+        return rounds[bucket];
+    }
+
+    /**
+     * @brief Returns the sum of the net results of a bucket.
+     */
+    double bucketNetSum(int bucket) {
+        return netSums[bucket];
+    }
+
+    /**
+     * @brief Returns the sum of the squared net results of a bucket.
+     */
+    double bucketNetSquaredSum(int bucket) {
+        return netSquaredSums[bucket];
+    }
+
+    /**
+     * @brief Formats one line per true count with rounds: frequency, expected value and standard deviation.
+     *
+     * @return The profile text.
+     */
+    @Override
+    public String toString() {
+        StringBuilder out = new StringBuilder(1024);
+        out.append(String.format(Locale.ROOT, "%s, %d shoes, %d rounds (%.1f per shoe), rounds/s=%.0f%n",
+                system, shoes, totalRounds, shoes > 0 ? (double) totalRounds / shoes : 0.0, roundsPerSecond()));
+        out.append(String.format(Locale.ROOT, "%4s %8s %9s %7s%n", "TC", "freq", "ev", "sd"));
+        for (int trueCount = MIN_TRUE_COUNT; trueCount <= MAX_TRUE_COUNT; trueCount++) {
+            if (rounds(trueCount) == 0) continue;
+
+            out.append(String.format(Locale.ROOT, "%+4d %8.4f %+9.5f %7.4f%n", trueCount, frequency(trueCount),
+                    ev(trueCount), standardDeviation(trueCount)));
+        }
+        return out.toString();
+    }
+}
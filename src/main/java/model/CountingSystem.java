@@ -0,0 +1,83 @@
+package model;
+
+/**
+ * @brief Card counting systems, each defined by the tag added to the running count when a card is seen.
+ * @details Level-two systems (Omega II, Zen) count in steps of up to two, so their true count is roughly twice
+ *          as large as a level-one count for the same shoe. KO is unbalanced: a full deck adds up to +4, which is
+ *          offset by its initial running count.
+ */
+public enum CountingSystem {
+    HI_LO("Hi-Lo", 1, new int[]{-1, 1, 1, 1, 1, 1, 0, 0, 0, -1}),
+    KO("KO", 1, new int[]{-1, 1, 1, 1, 1, 1, 1, 0, 0, -1}),
+    OMEGA_II("Omega II", 2, new int[]{0, 1, 1, 2, 2, 2, 1, 0, -1, -2}),
+    ZEN("Zen", 2, new int[]{-1, 1, 1, 2, 2, 2, 1, 0, 0, -2});
+
+    private final String label;
+    private final int level;
+    private final int[] tags;
+    private final int deckSum;
+
+    CountingSystem(String label, int level, int[] tags) {
+        this.label = label;
+        this.level = level;
+        this.tags = tags;
+
+        int sum = 0;
+        for (int rank = 1; rank <= 10; rank++) {
+            sum += tags[rank - 1] * (rank == 10 ? 16 : 4);
+        }
+        this.deckSum = sum;
+    }
+
+    /**
+     * @brief Returns the value added to the running count when a card is seen.
+     *
+     * @param rank The rank of the card, from 1 (ace) to 10.
+     * @return The tag.
+     */
+    public int tag(int rank) {
+        return tags[rank - 1];
+    }
+
+    /**
+     * @brief Returns the largest tag magnitude of the system.
+     *
+     * @return 1 or 2.
+     */
+    public int level() {
+        return level;
+    }
+
+    /**
+     * @brief Returns true if the tags of a full deck sum to zero.
+     *
+     * @return True for balanced systems.
+     */
+    public boolean isBalanced() {
+        return deckSum == 0;
+    }
+
+    /**
+     * @brief Returns the sum of the tags of a full deck.
+     *
+     * @return 0 for balanced systems, +4 for KO.
+     */
+    public int deckSum() {
+        return deckSum;
+    }
+
+    /**
+     * @brief Returns the running count at the start of a shoe.
+     *
+     * @param decks The number of decks in the shoe.
+     * @return 0 for balanced systems, 4 - 4 * decks for KO.
+     */
+    public int initialRunningCount(int decks) {
+        return isBalanced() ? 0 : deckSum - deckSum * decks;
+    }
+
+    @Override
+    public String toString() {
+        return label;
+    }
+}
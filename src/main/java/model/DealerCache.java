@@ -0,0 +1,182 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * @brief Bounded open-addressing cache of fixed-width probability vectors.
+ * @details Entries are keyed by a packed shoe composition and a small hand state code.
+ *          Lookups and stores do not allocate. When the table fills up, the entries whose composition no
+ *          longer fits within the retained shoe are evicted: once a card is seen, every composition holding
+ *          more cards of its rank than remain can never be queried again. The table is cleared only if that
+ *          frees too little room, or if no shoe is retained.
+ */
+class DealerCache {
+    private static final int EMPTY = 0;
+    /** Bound meaning that every composition may still be queried. */
+    static final long NO_BOUND = -1L;
+
+    private final int capacity;
+    private final int width;
+    private final int mask;
+    private final int maxSize;
+    private final long[] keys;
+    private final int[] states;
+    private final double[] values;
+    private int size;
+    private long bound = NO_BOUND;
+
+    /**
+     * @brief Creates a cache able to hold the given number of entries.
+     *
+     * @param capacityLog2 The base-2 logarithm of the number of slots.
+     * @param width The number of values stored per entry.
+     */
+    DealerCache(int capacityLog2, int width) {
+        capacity = 1 << capacityLog2;
+        this.width = width;
+        mask = capacity - 1;
+        maxSize = capacity - (capacity >> 2);
+        keys = new long[capacity];
+        states = new int[capacity];
+        values = new double[capacity * width];
+    }
+
+    /**
+     * @brief Copies the cached values for the given key into the destination array.
+     *
+     * @param key The packed shoe composition.
+     * @param state The hand state code (must be positive).
+     * @param dest The array receiving the distribution.
+     * @return True if the entry was found, false otherwise.
+     */
+    boolean get(long key, int state, double[] dest) {
+        int slot = indexFor(key, state);
+        while (states[slot] != EMPTY) {
+            if (states[slot] == state && keys[slot] == key) {
+                System.arraycopy(values, slot * width, dest, 0, width);
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    /**
+     * @brief Stores a vector of values, clearing the whole table first if it is full.
+     *
+     * @param key The packed shoe composition.
+     * @param state The hand state code (must be positive).
+     * @param distribution The values to store.
+     */
+    void put(long key, int state, double[] distribution) {
+        if (size >= maxSize) {
+            if (bound != NO_BOUND) {
+                evictOutside(bound);
+            }
+            // Pruning that leaves the table nearly full would only run again soon
+            if (size >= maxSize - (maxSize >> 2)) {
+                clear();
+            }
+        }
+
+        int slot = indexFor(key, state);
+        while (states[slot] != EMPTY) {
+            if (states[slot] == state && keys[slot] == key) {
+                break;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        if (states[slot] == EMPTY) {
+            size++;
+        }
+        keys[slot] = key;
+        states[slot] = state;
+        System.arraycopy(distribution, 0, values, slot * width, width);
+    }
+
+    /**
+     * @brief Sets the composition every future query fits within, used to choose the entries evicted when the
+     *        table is full. Does not evict anything by itself.
+     *
+     * @param shoeKey The packed composition of the live shoe, or NO_BOUND.
+     */
+    void retainWithin(long shoeKey) {
+        bound = shoeKey;
+    }
+
+    /**
+     * @brief Returns the composition set by retainWithin().
+     *
+     * @return The packed composition, or NO_BOUND.
+     */
+    long bound() {
+        return bound;
+    }
+
+    /**
+     * @brief Removes the entries whose composition does not fit within a shoe, keeping the others reachable.
+     *
+     * @param shoeKey The packed composition of the shoe.
+     */
+    private void evictOutside(long shoeKey) {
+        int before = size;
+        for (int slot = 0; slot < capacity; slot++) {
+            if (states[slot] != EMPTY && !Shoe.fitsWithin(keys[slot], shoeKey)) {
+                states[slot] = EMPTY;
+                size--;
+            }
+        }
+        if (size == before) {
+            return;
+        }
+
+        // Removals break probe chains: re-seat every entry in probe order, starting after an empty slot, so each
+        // one lands on the first free slot of its chain
+        int start = 0;
+        while (states[start] != EMPTY) {
+            start++;
+        }
+        for (int i = 1; i <= capacity; i++) {
+            int slot = (start + i) & mask;
+            int state = states[slot];
+            if (state == EMPTY) continue;
+
+            states[slot] = EMPTY;
+            int target = indexFor(keys[slot], state);
+            while (states[target] != EMPTY) {
+                target = (target + 1) & mask;
+            }
+            if (target != slot) {
+                keys[target] = keys[slot];
+                System.arraycopy(values, slot * width, values, target * width, width);
+            }
+            states[target] = state;
+        }
+    }
+
+    /**
+     * @brief Removes every entry from the cache.
+     */
+    void clear() {
+        Arrays.fill(states, EMPTY);
+        size = 0;
+    }
+
+    /**
+     * @brief Returns the number of entries currently stored.
+     *
+     * @return The number of entries.
+     */
+    int size() {
+        return size;
+    }
+
+    private int indexFor(long key, int state) {
+        // MurmurHash3 finalizer over the key mixed with the state
+        long h = key ^ (state * 0x9E3779B97F4A7C15L);
+        h = (h ^ (h >>> 33)) * 0xFF51AFD7ED558CCDL;
+        h = (h ^ (h >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return (int) (h ^ (h >>> 33)) & mask;
+    }
+}
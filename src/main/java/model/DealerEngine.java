@@ -0,0 +1,495 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * @brief Memoized engine computing the exact distribution of the final value of a hand drawn to a threshold.
+ * @details A hand draws until its value reaches the stand threshold, counting an ace as 11 when it does not
+ *          bust. The dealer's hand follows the soft 17 rule of the engine's rules; player thresholds stand on any
+ *          value at or above them. Each stop rule is resolved once into a table giving, for every (hard total,
+ *          ace flag), the slot where the hand stands or -1 while it draws, so the recursion does not test any
+ *          rule. Sub-results of every stop rule share one cache keyed by (rule, hard total, ace flag, remaining
+ *          shoe composition), so repeated queries for the dealer and the player reuse the subtrees already
+ *          explored.
+ *
+ *          With a pool set, deep trees are split by the next card drawn into fork-join tasks, each solved by a
+ *          worker engine of its own, and the partial distributions are merged in rank order with the same
+ *          operations as the sequential recursion, so the results are bit-identical. Shallow trees stay
+ *          sequential. This class is not thread-safe: one thread at a time may query an engine.
+ *
+ *          The result of each query can also be kept in a second level shared with other engines, such as a
+ *          MappedResultCache shared across processes. Only whole queries go there: sub-results stay in the
+ *          engine's own cache, where a lookup costs no more than a few loads.
+ *
+ *          A query stops early, throwing a CancellationException, once the thread that made it is interrupted;
+ *          the interrupt flag is tested every few thousand sub-results, worker engines included. Only complete
+ *          sub-results are cached, so the engine stays usable, but the shoe of the query is left partly drawn.
+ */
+public class DealerEngine {
+    /** Number of outcomes in a distribution: 17, 18, 19, 20, 21 and bust. */
+    public static final int OUTCOMES = 6;
+    /** Index of the bust outcome in a distribution. */
+    public static final int BUST = 5;
+
+    /** Lowest stand threshold, and first final value of a threshold distribution. */
+    public static final int MIN_THRESHOLD = 12;
+    /** Number of outcomes in a threshold distribution: final values 12 to 21 and bust. */
+    public static final int TOTALS = 11;
+    /** Index of the bust outcome in a threshold distribution. */
+    public static final int TOTALS_BUST = 10;
+
+    private static final int DEALER_THRESHOLD = 17;
+    private static final int MAX_DEPTH = 24;
+
+    // Stop rules: 0 to 9 stand at 12 to 21, the last one is a dealer who hits soft 17
+    private static final int HITS_SOFT_17 = TOTALS - 1;
+    private static final int STOP_RULES = TOTALS;
+    // STAND_SLOT[rule][(hard << 1) | ace]: slot of the final value when the hand stands, -1 while it draws
+    private static final byte[][] STAND_SLOT = new byte[STOP_RULES][64];
+    // Lowest slot a hand still drawing under each rule can end in
+    private static final int[] FIRST_SLOT = new int[STOP_RULES];
+
+    static {
+        for (int rule = 0; rule < STOP_RULES; rule++) {
+            int threshold = rule == HITS_SOFT_17 ? DEALER_THRESHOLD : MIN_THRESHOLD + rule;
+            FIRST_SLOT[rule] = threshold - MIN_THRESHOLD;
+            for (int hard = 0; hard < 32; hard++) {
+                for (int ace = 0; ace < 2; ace++) {
+                    int value = HandState.value(hard, ace == 1);
+                    boolean softSeventeen = value == DEALER_THRESHOLD && value != hard;
+                    int slot;
+                    if (value > 21) {
+                        slot = TOTALS_BUST;
+                    } else if (value >= threshold && !(rule == HITS_SOFT_17 && softSeventeen)) {
+                        slot = value - MIN_THRESHOLD;
+                    } else {
+                        slot = -1;
+                    }
+                    STAND_SLOT[rule][(hard << 1) | ace] = (byte) slot;
+                }
+            }
+        }
+    }
+
+    // A tree is split into tasks only when the hand is this far from its threshold and the shoe this deep
+    private static final int PARALLEL_MIN_GAP = 14;
+    private static final int PARALLEL_MIN_CARDS = 104;
+    private static final int WORKER_CACHE_LOG2 = 16;
+    // The interrupt flag of the querying thread is tested when the number of nodes visited is a multiple of this
+    private static final long INTERRUPT_CHECK_MASK = (1 << 12) - 1;
+
+    private final DealerCache cache;
+    private final int dealerRule;
+    private final double[][] scratch = new double[MAX_DEPTH][TOTALS];
+    // Idle worker engines, each used by one task at a time and kept with its cache between queries
+    private final ConcurrentLinkedQueue<DealerEngine> workers = new ConcurrentLinkedQueue<>();
+    private ForkJoinPool pool;
+    // Second level for the result of each query, or null
+    private ResultCache sharedCache;
+    // Thread whose interruption aborts the query in progress
+    private Thread caller;
+    // Search statistics since creation, worker engines included, read by the metrics around each query
+    private long nodes, hits;
+
+    /**
+     * @brief Creates a sequential engine for the standard rules.
+     */
+    public DealerEngine() {
+        this(Rules.standard());
+    }
+
+    /**
+     * @brief Creates an engine for the standard rules that splits deep trees across a fork-join pool.
+     *
+     * @param pool The pool running the tasks, or null for a sequential engine.
+     */
+    public DealerEngine(ForkJoinPool pool) {
+        this(Rules.standard(), pool);
+    }
+
+    /**
+     * @brief Creates a sequential engine for a set of rules.
+     *
+     * @param rules The table rules; only the soft 17 rule matters.
+     */
+    public DealerEngine(Rules rules) {
+        this(rules, null);
+    }
+
+    /**
+     * @brief Creates an engine for a set of rules that splits deep trees across a fork-join pool.
+     *
+     * @param rules The table rules; only the soft 17 rule matters.
+     * @param pool The pool running the tasks, or null for a sequential engine.
+     */
+    public DealerEngine(Rules rules, ForkJoinPool pool) {
+        this(18, rules.dealerHitsSoft17() ? HITS_SOFT_17 : DEALER_THRESHOLD - MIN_THRESHOLD);
+        this.pool = pool;
+    }
+
+    private DealerEngine(int cacheLog2, int dealerRule) {
+        cache = new DealerCache(cacheLog2, TOTALS);
+        this.dealerRule = dealerRule;
+    }
+
+    /**
+     * @brief Returns the number of sub-results computed since the engine was created, each one a cache miss.
+     *
+     * @return The number of nodes visited.
+     */
+    public long nodesVisited() {
+        return nodes;
+    }
+
+    /**
+     * @brief Returns the number of sub-results found in the cache since the engine was created.
+     *
+     * @return The number of cache hits.
+     */
+    public long cacheHits() {
+        return hits;
+    }
+
+    /**
+     * @brief Sets the pool used for deep trees.
+     *
+     * @param pool The pool running the tasks, or null to compute sequentially.
+     */
+    public void setPool(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * @brief Sets the second level holding the result of each query.
+     *
+     * @param sharedCache A cache of width TOTALS for the engine's rules, or null.
+     */
+    void setSharedCache(ResultCache sharedCache) {
+        this.sharedCache = sharedCache;
+    }
+
+    /**
+     * @brief Computes the distribution of the dealer's final hand value.
+     * @details The shoe is used as scratch space during the computation and restored before returning.
+     *
+     * @param shoe The remaining cards.
+     * @param hardTotal The dealer's current total counting aces as 1.
+     * @param hasAce True if the dealer's hand contains at least one ace.
+     * @return A new array with the probabilities of 17, 18, 19, 20, 21 and bust, in that order.
+     * @throws CancellationException If the calling thread is interrupted during the computation.
+     */
+    public double[] outcome(Shoe shoe, int hardTotal, boolean hasAce) {
+        double[] result = new double[OUTCOMES];
+        outcome(shoe, hardTotal, hasAce, result);
+        return result;
+    }
+
+    /**
+     * @brief Computes the distribution of the dealer's final hand value into an existing array.
+     *
+     * @param shoe The remaining cards.
+     * @param hardTotal The dealer's current total counting aces as 1.
+     * @param hasAce True if the dealer's hand contains at least one ace.
+     * @param dest The array receiving the probabilities of 17, 18, 19, 20, 21 and bust.
+     * @throws CancellationException If the calling thread is interrupted during the computation.
+     */
+    public void outcome(Shoe shoe, int hardTotal, boolean hasAce, double[] dest) {
+        for (int i = 0; i < OUTCOMES; i++) {
+            dest[i] = 0.0;
+        }
+        if (hardTotal > 21) {
+            dest[BUST] = 1.0;
+            return;
+        }
+        int slot = STAND_SLOT[dealerRule][(hardTotal << 1) | (hasAce ? 1 : 0)];
+        if (slot >= 0) {
+            dest[slot - (DEALER_THRESHOLD - MIN_THRESHOLD)] = 1.0;
+            return;
+        }
+
+        caller = Thread.currentThread();
+        compute(shoe, hardTotal, hasAce, dealerRule);
+        System.arraycopy(scratch[0], DEALER_THRESHOLD - MIN_THRESHOLD, dest, 0, OUTCOMES);
+    }
+
+    /**
+     * @brief Computes the distribution of the final value of a hand that draws until reaching a threshold.
+     * @details The shoe is used as scratch space during the computation and restored before returning.
+     *
+     * @param shoe The remaining cards.
+     * @param hardTotal The hand's current total counting aces as 1.
+     * @param hasAce True if the hand contains at least one ace.
+     * @param threshold The value at which the hand stands, from 12 to 21.
+     * @param dest The array receiving the probabilities of the final values 12 to 21 and bust, in that order.
+     * @throws CancellationException If the calling thread is interrupted during the computation.
+     */
+    public void finalTotals(Shoe shoe, int hardTotal, boolean hasAce, int threshold, double[] dest) {
+        if (threshold < MIN_THRESHOLD || threshold > 21) {
+            throw new IllegalArgumentException("Threshold must be between " + MIN_THRESHOLD + " and 21");
+        }
+        caller = Thread.currentThread();
+        totals(shoe, hardTotal, hasAce, threshold - MIN_THRESHOLD, dest);
+    }
+
+    /**
+     * @brief Computes the final value distribution of a hand under a stop rule.
+     *
+     * @param shoe The remaining cards.
+     * @param hard The hand's current total counting aces as 1.
+     * @param ace True if the hand contains at least one ace.
+     * @param rule The stop rule.
+     * @param dest The array receiving the probabilities of the final values 12 to 21 and bust.
+     */
+    private void totals(Shoe shoe, int hard, boolean ace, int rule, double[] dest) {
+        for (int i = 0; i < TOTALS; i++) {
+            dest[i] = 0.0;
+        }
+        if (hard > 21) {
+            dest[TOTALS_BUST] = 1.0;
+            return;
+        }
+        int slot = STAND_SLOT[rule][(hard << 1) | (ace ? 1 : 0)];
+        if (slot >= 0) {
+            dest[slot] = 1.0;
+            return;
+        }
+
+        compute(shoe, hard, ace, rule);
+        System.arraycopy(scratch[0], 0, dest, 0, TOTALS);
+    }
+
+    /**
+     * @brief Tells the engine that every future query is drawn from a shoe, so that a full cache evicts the
+     *        sub-results of compositions that can no longer occur rather than all of them.
+     *
+     * @param shoe The live shoe; later queries must use it or a shoe drawn from it, others only cost misses.
+     */
+    public void retainWithin(Shoe shoe) {
+        cache.retainWithin(shoe.key());
+        for (DealerEngine worker : workers) {
+            worker.cache.retainWithin(shoe.key());
+        }
+    }
+
+    /**
+     * @brief Drops every cached sub-result, those of the worker engines included.
+     */
+    public void clearCache() {
+        cache.clear();
+        for (DealerEngine worker : workers) {
+            worker.cache.clear();
+        }
+    }
+
+    /**
+     * @brief Fills scratch[0] with the final value distribution of a hand still drawing, in parallel when the
+     *        tree is deep enough.
+     *
+     * @param shoe The remaining cards.
+     * @param hard The hand's total counting aces as 1.
+     * @param ace True if the hand holds an ace.
+     * @param rule The stop rule.
+     */
+    private void compute(Shoe shoe, int hard, boolean ace, int rule) {
+        if (sharedCache == null && (pool == null || !isDeep(shoe, hard, ace, rule))) {
+            solve(shoe, hard, ace, rule, 0);
+            return;
+        }
+
+        double[] acc = scratch[0];
+        int state = stateCode(hard, ace, rule);
+        long key = shoe.key();
+        if (cache.get(key, state, acc)) {
+            hits++;
+            return;
+        }
+        if (sharedCache != null && sharedCache.get(key, state, acc)) {
+            hits++;
+            cache.put(key, state, acc);
+            return;
+        }
+
+        if (pool == null || !isDeep(shoe, hard, ace, rule)) {
+            solve(shoe, hard, ace, rule, 0);
+        } else {
+            SplitTask root = new SplitTask(shoe.copy(), hard, ace, rule);
+            double[] result = pool.invoke(root);
+            System.arraycopy(result, 0, acc, 0, TOTALS);
+            cache.put(key, state, acc);
+            nodes += root.nodes;
+            hits += root.hits;
+        }
+        if (sharedCache != null) {
+            sharedCache.put(key, state, acc);
+        }
+    }
+
+    /**
+     * @brief Returns true if the tree below a hand is large enough to be split into tasks.
+     */
+    private static boolean isDeep(Shoe shoe, int hard, boolean ace, int rule) {
+        return FIRST_SLOT[rule] + MIN_THRESHOLD - HandState.value(hard, ace) >= PARALLEL_MIN_GAP
+                && shoe.total() >= PARALLEL_MIN_CARDS;
+    }
+
+    /**
+     * @brief Returns the cache code of a hand state. Never 0, which marks empty cache slots.
+     */
+    private static int stateCode(int hard, boolean ace, int rule) {
+        return ((rule << 6) | (hard << 1) | (ace ? 1 : 0)) + 1;
+    }
+
+    /**
+     * @brief Task computing the distribution below one hand, forking one subtask per drawable card while the
+     *        tree stays deep and solving the rest with a worker engine.
+     */
+    @SuppressWarnings("serial") // Tasks are never serialized
+    private final class SplitTask extends RecursiveTask<double[]> {
+        private final Shoe shoe;
+        private final int hard;
+        private final boolean ace;
+        private final int rule;
+        // Search statistics of the subtree, published to the parent by join()
+        private long nodes, hits;
+
+        /**
+         * @param shoe The remaining cards, owned by the task.
+         * @param hard The hand's total counting aces as 1.
+         * @param ace True if the hand holds an ace.
+         * @param rule The stop rule.
+         */
+        SplitTask(Shoe shoe, int hard, boolean ace, int rule) {
+            this.shoe = shoe;
+            this.hard = hard;
+            this.ace = ace;
+            this.rule = rule;
+        }
+
+        @Override
+        protected double[] compute() {
+            double[] acc = new double[TOTALS];
+            if (!isDeep(shoe, hard, ace, rule)) {
+                DealerEngine worker = workers.poll();
+                if (worker == null) {
+                    worker = new DealerEngine(WORKER_CACHE_LOG2, dealerRule);
+                    worker.cache.retainWithin(cache.bound());
+                }
+                long workerNodes = worker.nodes, workerHits = worker.hits;
+                worker.caller = caller;
+                try {
+                    worker.totals(shoe, hard, ace, rule, acc);
+                } finally {
+                    workers.offer(worker);
+                }
+                nodes = worker.nodes - workerNodes;
+                hits = worker.hits - workerHits;
+                return acc;
+            }
+
+            nodes = 1; // This hand, split instead of solved
+            // One subtask per card that does not end the hand, indexed by rank
+            byte[] standSlot = STAND_SLOT[rule];
+            SplitTask[] children = new SplitTask[11];
+            List<SplitTask> forked = new ArrayList<>();
+            for (int rank = 1; rank <= 10; rank++) {
+                int nextHard = hard + rank;
+                boolean nextAce = ace || rank == 1;
+                if (shoe.count(rank) > 0 && standSlot[(nextHard << 1) | (nextAce ? 1 : 0)] < 0) {
+                    Shoe next = shoe.copy();
+                    next.draw(rank);
+                    children[rank] = new SplitTask(next, nextHard, nextAce, rule);
+                    forked.add(children[rank]);
+                }
+            }
+            ForkJoinTask.invokeAll(forked);
+
+            // Merge in rank order with the operations of solve(), so the sums round exactly as sequentially
+            int first = FIRST_SLOT[rule];
+            double invTotal = 1.0 / shoe.total();
+            for (int rank = 1; rank <= 10; rank++) {
+                int count = shoe.count(rank);
+                if (count == 0) continue;
+
+                double cardProbability = count * invTotal;
+                int slot = standSlot[((hard + rank) << 1) | (ace || rank == 1 ? 1 : 0)];
+                if (slot >= 0) {
+                    acc[slot] += cardProbability;
+                } else {
+                    double[] sub = children[rank].join();
+                    nodes += children[rank].nodes;
+                    hits += children[rank].hits;
+                    for (int i = first; i < TOTALS; i++) {
+                        acc[i] += cardProbability * sub[i];
+                    }
+                }
+            }
+            return acc;
+        }
+    }
+
+    /**
+     * @brief Recursively fills scratch[depth] with the final value distribution of a hand still drawing.
+     * @details Slots below the threshold stay at zero and are skipped when accumulating.
+     *
+     * @param shoe The remaining cards.
+     * @param hard The hand's total counting aces as 1.
+     * @param ace True if the hand holds an ace.
+     * @param rule The stop rule.
+     * @param depth The recursion depth, used to select the scratch buffer.
+     */
+    private void solve(Shoe shoe, int hard, boolean ace, int rule, int depth) {
+        double[] acc = scratch[depth];
+        int state = stateCode(hard, ace, rule);
+        long key = shoe.key();
+
+        if (cache.get(key, state, acc)) {
+            hits++;
+            return;
+        }
+        if ((++nodes & INTERRUPT_CHECK_MASK) == 0 && caller.isInterrupted()) {
+            throw new CancellationException("Query interrupted");
+        }
+
+        int first = FIRST_SLOT[rule];
+        byte[] standSlot = STAND_SLOT[rule];
+        for (int i = 0; i < TOTALS; i++) {
+            acc[i] = 0.0;
+        }
+
+        int totalCards = shoe.total();
+        if (totalCards > 0) {
+            double invTotal = 1.0 / totalCards;
+            for (int rank = 1; rank <= 10; rank++) {
+                int count = shoe.count(rank);
+                if (count == 0) continue;  // Skip exhausted cards
+
+                double cardProbability = count * invTotal;
+                int nextHard = hard + rank;
+                boolean nextAce = ace || rank == 1;
+                int slot = standSlot[(nextHard << 1) | (nextAce ? 1 : 0)];
+
+                if (slot >= 0) {
+                    acc[slot] += cardProbability;
+                } else {
+                    // Draw the card, explore the subtree and put it back (backtracking)
+                    shoe.draw(rank);
+                    solve(shoe, nextHard, nextAce, rule, depth + 1);
+                    shoe.undo(rank);
+
+                    double[] sub = scratch[depth + 1];
+                    for (int i = first; i < TOTALS; i++) {
+                        acc[i] += cardProbability * sub[i];
+                    }
+                }
+            }
+        }
+
+        cache.put(key, state, acc);
+    }
+}
@@ -0,0 +1,187 @@
+package model;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * @brief Precomputed list of every set of cards the dealer can draw behind a given up-card.
+ * @details Each entry is a multiset of drawn cards (hole card included) with the number of draw orders that
+ *          respect the dealer's drawing rule and the final outcome it leads to. The probability of an entry for
+ *          a given shoe only depends on the counts of its ranks, so a full distribution is a weighted sum of
+ *          falling-factorial products and does not need any recursion or memo table.
+ *
+ *          The rules are built into the entries: there is one set of tables for each soft 17 rule, and the tables
+ *          for a dealer who peeks leave out the blackjacks and give the distribution given that the dealer does
+ *          not hold one.
+ */
+final class DealerHandTable {
+    /** Number of outcomes: 17, 18, 19, 20, 21, bust and blackjack. */
+    static final int WIDTH = 7;
+    /** Index of the blackjack outcome. */
+    static final int BLACKJACK = 6;
+
+    // Indexed by [hits soft 17][peeks][up-card - 1]
+    private static final DealerHandTable[][][] TABLES = new DealerHandTable[2][2][10];
+
+    static {
+        for (int hitsSoft17 = 0; hitsSoft17 < 2; hitsSoft17++) {
+            for (int peeks = 0; peeks < 2; peeks++) {
+                for (int upCard = 1; upCard <= 10; upCard++) {
+                    TABLES[hitsSoft17][peeks][upCard - 1] = new DealerHandTable(upCard, hitsSoft17 == 1, peeks == 1);
+                }
+            }
+        }
+    }
+
+    private final int[] cardRank;
+    private final int[] cardRepeat;
+    private final int[] start;
+    private final double[] ways;
+    private final byte[] outcome;
+    private final int maxCards;
+    private final boolean conditional;
+
+    /**
+     * @brief Returns the tables for every up-card under a set of rules.
+     *
+     * @param rules The table rules; only the soft 17 and peek rules matter.
+     * @return The shared, immutable tables, indexed by up-card - 1.
+     */
+    static DealerHandTable[] forRules(Rules rules) {
+        return TABLES[rules.dealerHitsSoft17() ? 1 : 0][rules.dealerPeeks() ? 1 : 0];
+    }
+
+    private DealerHandTable(int upCard, boolean hitsSoft17, boolean peeks) {
+        Map<Long, double[]> hands = new LinkedHashMap<>(); // packed multiset -> {ways, outcome, cards}
+        enumerate(upCard, upCard == 1, 0, 0L, hitsSoft17, hands);
+        if (peeks) {
+            hands.values().removeIf(hand -> hand[1] == BLACKJACK);
+        }
+        conditional = peeks;
+
+        int entries = hands.size();
+        int totalCards = 0;
+        int longest = 0;
+        for (double[] hand : hands.values()) {
+            totalCards += (int) hand[2];
+            longest = Math.max(longest, (int) hand[2]);
+        }
+
+        cardRank = new int[totalCards];
+        cardRepeat = new int[totalCards];
+        start = new int[entries + 1];
+        ways = new double[entries];
+        outcome = new byte[entries];
+        maxCards = longest;
+
+        int entry = 0, card = 0;
+        for (Map.Entry<Long, double[]> hand : hands.entrySet()) {
+            long packed = hand.getKey();
+            start[entry] = card;
+            ways[entry] = hand.getValue()[0];
+            outcome[entry] = (byte) hand.getValue()[1];
+            for (int rank = 1; rank <= 10; rank++) {
+                int copies = (int) ((packed >>> (4 * (rank - 1))) & 0xF);
+                for (int j = 0; j < copies; j++) {
+                    cardRank[card] = rank;
+                    cardRepeat[card] = j;
+                    card++;
+                }
+            }
+            entry++;
+        }
+        start[entries] = card;
+    }
+
+    /**
+     * @brief Enumerates every valid draw order, grouping them by multiset of drawn cards.
+     *
+     * @param hard The dealer's total counting aces as 1.
+     * @param ace True if the dealer holds an ace.
+     * @param cards The number of cards drawn so far.
+     * @param packed The drawn cards, packed as 4 bits per rank.
+     * @param hitsSoft17 True if the dealer draws on soft 17.
+     * @param hands The map collecting {ways, outcome, cards} for each multiset.
+     */
+    private static void enumerate(int hard, boolean ace, int cards, long packed, boolean hitsSoft17,
+                                  Map<Long, double[]> hands) {
+        int value = HandState.value(hard, ace);
+        boolean softSeventeen = value == 17 && value != hard;
+        if (cards > 0 && value >= 17 && !(hitsSoft17 && softSeventeen)) {
+            int result;
+            if (cards == 1 && value == 21) {
+                result = BLACKJACK;
+            } else {
+                result = value > 21 ? DealerEngine.BUST : value - 17;
+            }
+            double[] hand = hands.computeIfAbsent(packed, k -> new double[]{0, 0, 0});
+            hand[0]++;
+            hand[1] = result;
+            hand[2] = cards;
+            return;
+        }
+
+        for (int rank = 1; rank <= 10; rank++) {
+            enumerate(hard + rank, ace || rank == 1, cards + 1, packed + (1L << (4 * (rank - 1))), hitsSoft17,
+                    hands);
+        }
+    }
+
+    /**
+     * @brief Computes the dealer's final distribution for a shoe, with blackjack separated from other 21s.
+     * @details For a dealer who peeks, the distribution is conditioned on the dealer not holding a blackjack, whose
+     *          probability is then 0.
+     *
+     * @param shoe The remaining cards, from which the hole card is drawn.
+     * @param dest The array receiving 17, 18, 19, 20, 21, bust and blackjack probabilities.
+     */
+    void distribution(Shoe shoe, double[] dest) {
+        for (int i = 0; i < WIDTH; i++) {
+            dest[i] = 0.0;
+        }
+
+        int totalCards = shoe.total();
+        if (totalCards == 0) {
+            return;
+        }
+
+        // invFalling[k] = 1 / (N * (N - 1) * ... * (N - k + 1))
+        double[] invFalling = new double[maxCards + 1];
+        invFalling[0] = 1.0;
+        for (int k = 1; k <= maxCards; k++) {
+            int remaining = totalCards - k + 1;
+            invFalling[k] = remaining > 0 ? invFalling[k - 1] / remaining : 0.0;
+        }
+
+        int[] counts = new int[10];
+        for (int rank = 1; rank <= 10; rank++) {
+            counts[rank - 1] = shoe.count(rank);
+        }
+
+        for (int entry = 0; entry < ways.length; entry++) {
+            int from = start[entry], to = start[entry + 1];
+            double probability = ways[entry];
+            for (int card = from; card < to; card++) {
+                int available = counts[cardRank[card] - 1] - cardRepeat[card];
+                if (available <= 0) {
+                    probability = 0.0;
+                    break;
+                }
+                probability *= available;
+            }
+            dest[outcome[entry]] += probability * invFalling[to - from];
+        }
+
+        if (conditional) {
+            double noBlackjack = 0.0;
+            for (int i = 0; i < WIDTH; i++) {
+                noBlackjack += dest[i];
+            }
+            if (noBlackjack > 0.0) {
+                for (int i = 0; i < WIDTH; i++) {
+                    dest[i] /= noBlackjack;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * @brief Immutable estimate of a final hand distribution, with a 95% error bound on each probability.
+ * @details Produced by AnytimeEstimator. The bounds are half-widths of normal confidence intervals, so they
+ *          only hold once enough draws were sampled; an estimate with no sampled draw has infinite bounds.
+ */
+public final class DistributionEstimate {
+    private final double[] probabilities;
+    private final double[] errorBounds;
+    private final long samples;
+
+    /**
+     * @brief Creates an estimate. The arrays are not copied and must not be modified afterwards.
+     *
+     * @param probabilities The estimated probabilities, in the layout of the exact computation.
+     * @param errorBounds The half-width of the 95% confidence interval of each probability.
+     * @param samples The number of draws sampled.
+     */
+    DistributionEstimate(double[] probabilities, double[] errorBounds, long samples) {
+        this.probabilities = probabilities;
+        this.errorBounds = errorBounds;
+        this.samples = samples;
+    }
+
+    /**
+     * @brief Returns the number of probabilities.
+     *
+     * @return The width of the distribution.
+     */
+    public int width() {
+        return probabilities.length;
+    }
+
+    /**
+     * @brief Returns an estimated probability.
+     *
+     * @param index The index of the outcome, as in the exact computation.
+     * @return The probability, between 0 and 1.
+     */
+    public double probability(int index) {
+        return probabilities[index];
+    }
+
+    /**
+     * @brief Returns the half-width of the 95% confidence interval of a probability.
+     *
+     * @param index The index of the outcome.
+     * @return The error bound.
+     */
+    public double errorBound(int index) {
+        return errorBounds[index];
+    }
+
+    /**
+     * @brief Returns the largest error bound of the distribution.
+     *
+     * @return The error bound.
+     */
+    public double maxErrorBound() {
+        double max = 0.0;
+        for (double bound : errorBounds) {
+            max = Math.max(max, bound);
+        }
+        return max;
+    }
+
+    /**
+     * @brief Returns the number of draws the estimate was refined with.
+     *
+     * @return The number of samples.
+     */
+    public long samples() {
+        return samples;
+    }
+
+    /**
+     * @brief Returns the estimated probabilities, as the exact computation would return them. The array must not
+     *        be modified.
+     *
+     * @return The probabilities.
+     */
+    double[] probabilities() {
+        return probabilities;
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(probabilities) + " +/- " + maxErrorBound() + " (" + samples + " samples)";
+    }
+}
@@ -0,0 +1,217 @@
+package model;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * @brief Append-only journal of table events in a memory-mapped file, replayed to rebuild the table state.
+ * @details Every event takes two bytes: its type and an argument. The header holds the number of committed
+ *          bytes, which is written after the event itself, so an interrupted append is simply ignored on the next
+ *          replay. Undo is an event too: replay drops the latest event still in effect for each undo. Starting a
+ *          new shoe makes the previous events irrelevant, so start() truncates the journal instead of appending.
+ *          The mapping grows by doubling when full. This class is not thread-safe.
+ */
+public final class EventJournal implements AutoCloseable {
+    private static final int MAGIC = 0x424A4A52; // "BJJR"
+    private static final int VERSION = 1;
+    private static final int HEADER = 16;
+    private static final int INITIAL_SIZE = 1 << 16;
+
+    private static final byte START = 1, CARD = 2, TURNS = 3, NEW_ROUND = 4, UNDO = 5;
+    private static final int TO_PLAYER = 0x10, TO_DEALER = 0x20, RANK_MASK = 0x0F;
+
+    /**
+     * @brief Receives the events in effect, in order, during a replay.
+     */
+    public interface Handler {
+        /**
+         * @brief A new shoe was started; the previous state is discarded.
+         *
+         * @param decks The number of decks.
+         */
+        void start(int decks);
+
+        /**
+         * @brief A card left the shoe.
+         *
+         * @param rank The rank of the card, from 1 (ace) to 10.
+         * @param toPlayer True if the card was added to the player's hand.
+         * @param toDealer True if the card was added to the dealer's hand.
+         */
+        void card(int rank, boolean toPlayer, boolean toDealer);
+
+        /**
+         * @brief The turn check boxes changed.
+         *
+         * @param myTurn True if it is the player's turn.
+         * @param dealerTurn True if it is the dealer's turn.
+         */
+        void turns(boolean myTurn, boolean dealerTurn);
+
+        /**
+         * @brief A new round started; both hands are cleared.
+         */
+        void newRound();
+    }
+
+    private final FileChannel channel;
+    private MappedByteBuffer buffer;
+    private int length;
+
+    private EventJournal(FileChannel channel) throws IOException {
+        this.channel = channel;
+        long size = channel.size();
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(size, INITIAL_SIZE));
+
+        if (size >= HEADER && buffer.getInt(0) == MAGIC && buffer.getInt(4) == VERSION) {
+            length = (int) Math.min(buffer.getLong(8), buffer.capacity() - HEADER) & ~1;
+        } else {
+            buffer.putInt(0, MAGIC).putInt(4, VERSION);
+            commit(0);
+        }
+    }
+
+    /**
+     * @brief Opens a journal, creating the file if needed.
+     *
+     * @param path The journal file.
+     * @return The journal.
+     * @throws IOException If the file cannot be opened or mapped.
+     */
+    public static EventJournal open(Path path) throws IOException {
+        return new EventJournal(FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE));
+    }
+
+    /**
+     * @brief Returns true if the journal holds no events.
+     *
+     * @return True if empty.
+     */
+    public boolean isEmpty() {
+        return length == 0;
+    }
+
+    /**
+     * @brief Returns the number of events recorded, undo events included.
+     *
+     * @return The number of events.
+     */
+    public int size() {
+        return length / 2;
+    }
+
+    /**
+     * @brief Records the start of a new shoe, discarding the previous events.
+     *
+     * @param decks The number of decks.
+     */
+    public void start(int decks) {
+        commit(0);
+        append(START, decks);
+    }
+
+    /**
+     * @brief Records a card leaving the shoe.
+     *
+     * @param rank The rank of the card, from 1 (ace) to 10.
+     * @param toPlayer True if the card was added to the player's hand.
+     * @param toDealer True if the card was added to the dealer's hand.
+     */
+    public void card(int rank, boolean toPlayer, boolean toDealer) {
+        append(CARD, rank | (toPlayer ? TO_PLAYER : 0) | (toDealer ? TO_DEALER : 0));
+    }
+
+    /**
+     * @brief Records a change of the turn check boxes.
+     *
+     * @param myTurn True if it is the player's turn.
+     * @param dealerTurn True if it is the dealer's turn.
+     */
+    public void turns(boolean myTurn, boolean dealerTurn) {
+        append(TURNS, (myTurn ? 1 : 0) | (dealerTurn ? 2 : 0));
+    }
+
+    /**
+     * @brief Records the start of a new round.
+     */
+    public void newRound() {
+        append(NEW_ROUND, 0);
+    }
+
+    /**
+     * @brief Records the cancellation of the latest event still in effect. The start of the shoe is never undone.
+     */
+    public void undo() {
+        append(UNDO, 0);
+    }
+
+    /**
+     * @brief Replays the events in effect, from the start of the current shoe.
+     *
+     * @param handler The receiver of the events.
+     * @return The number of events delivered.
+     */
+    public int replay(Handler handler) {
+        // Resolve undo events first: the surviving events form a stack of offsets
+        int[] live = new int[size()];
+        int top = 0;
+        for (int offset = 0; offset < length; offset += 2) {
+            if (buffer.get(HEADER + offset) == UNDO) {
+                if (top > 1) top--;
+            } else {
+                live[top++] = offset;
+            }
+        }
+
+        for (int i = 0; i < top; i++) {
+            int offset = HEADER + live[i];
+            int argument = buffer.get(offset + 1) & 0xFF;
+            switch (buffer.get(offset)) {
+                case START -> handler.start(argument);
+                case CARD -> handler.card(argument & RANK_MASK, (argument & TO_PLAYER) != 0,
+                        (argument & TO_DEALER) != 0);
+                case TURNS -> handler.turns((argument & 1) != 0, (argument & 2) != 0);
+                case NEW_ROUND -> handler.newRound();
+                default -> throw new IllegalStateException("Corrupted journal at offset " + live[i]);
+            }
+        }
+        return top;
+    }
+
+    /**
+     * @brief Flushes the mapped pages to the file and closes it.
+     *
+     * @throws IOException If the file cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        buffer.force();
+        channel.close();
+    }
+
+    private void append(byte type, int argument) {
+        if (HEADER + length + 2 > buffer.capacity()) {
+            grow();
+        }
+        buffer.put(HEADER + length, type);
+        buffer.put(HEADER + length + 1, (byte) argument);
+        commit(length + 2);
+    }
+
+    private void commit(int newLength) {
+        length = newLength;
+        buffer.putLong(8, newLength);
+    }
+
+    private void grow() {
+        try {
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) buffer.capacity() * 2);
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot grow the journal", e);
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package model;
+
+import java.util.List;
+
+/**
+ * @brief Immutable summary of a hand: hard total, ace flag, number of cards and pair rank.
+ * @details Every reachable state is created once when the class is loaded and links to its successors, so adding
+ *          a card is a single array access and never allocates. Instances can be compared with ==. A busted hand
+ *          absorbs further cards: its hard total and card count saturate instead of growing without bound.
+ */
+public final class HandState {
+    private static final int MAX_HARD = 31; // 21 plus a ten-valued card
+    private static final int MAX_CARDS = 22; // 21 aces and the card that busts them
+
+    // Indexed by [card count][hard total][ace flag]; pairs have their own states
+    private static final HandState[][][] STATES = new HandState[MAX_CARDS + 1][MAX_HARD + 1][2];
+    private static final HandState[] PAIRS = new HandState[11];
+
+    /** State of a hand without cards. */
+    public static final HandState EMPTY;
+
+    static {
+        for (int cards = 0; cards <= MAX_CARDS; cards++) {
+            for (int hard = 0; hard <= MAX_HARD; hard++) {
+                STATES[cards][hard][0] = new HandState(hard, false, cards, 0);
+                STATES[cards][hard][1] = new HandState(hard, true, cards, 0);
+            }
+        }
+        for (int rank = 1; rank <= 10; rank++) {
+            PAIRS[rank] = new HandState(2 * rank, rank == 1, 2, rank);
+        }
+
+        for (HandState[][] byCards : STATES) {
+            for (HandState[] byHard : byCards) {
+                byHard[0].link();
+                byHard[1].link();
+            }
+        }
+        for (int rank = 1; rank <= 10; rank++) {
+            PAIRS[rank].link();
+        }
+        EMPTY = STATES[0][0][0];
+    }
+
+    private final int hard;
+    private final boolean ace;
+    private final int cards;
+    private final int pairRank;
+    private final int value;
+    private final HandState[] next = new HandState[11];
+
+    private HandState(int hard, boolean ace, int cards, int pairRank) {
+        this.hard = hard;
+        this.ace = ace;
+        this.cards = cards;
+        this.pairRank = pairRank;
+        this.value = value(hard, ace);
+    }
+
+    /**
+     * @brief Resolves the successor of this state for every rank.
+     */
+    private void link() {
+        for (int rank = 1; rank <= 10; rank++) {
+            if (hard > 21) {
+                next[rank] = this;
+            } else if (cards == 1 && rank == hard) {
+                next[rank] = PAIRS[rank];
+            } else {
+                next[rank] = STATES[Math.min(cards + 1, MAX_CARDS)][Math.min(hard + rank, MAX_HARD)]
+                        [ace || rank == 1 ? 1 : 0];
+            }
+        }
+    }
+
+    /**
+     * @brief Returns the state of a hand holding the given cards.
+     *
+     * @param cards The ranks of the cards, from 1 (ace) to 10.
+     * @return The state.
+     */
+    public static HandState of(List<Integer> cards) {
+        HandState state = EMPTY;
+        for (int card : cards) {
+            state = state.add(card);
+        }
+        return state;
+    }
+
+    /**
+     * @brief Returns the best value of a hand, counting one ace as 11 when it does not bust.
+     *
+     * @param hard The total counting aces as 1.
+     * @param ace True if the hand contains an ace.
+     * @return The hand value.
+     */
+    public static int value(int hard, boolean ace) {
+        return ace && hard + 10 <= 21 ? hard + 10 : hard;
+    }
+
+    /**
+     * @brief Returns the state after a card is added to the hand.
+     *
+     * @param rank The rank of the card, from 1 (ace) to 10.
+     * @return The new state.
+     */
+    public HandState add(int rank) {
+        return next[rank];
+    }
+
+    /**
+     * @brief Returns the total counting aces as 1.
+     *
+     * @return The hard total.
+     */
+    public int hardTotal() {
+        return hard;
+    }
+
+    /**
+     * @brief Returns true if the hand contains at least one ace.
+     *
+     * @return True if the hand holds an ace.
+     */
+    public boolean hasAce() {
+        return ace;
+    }
+
+    /**
+     * @brief Returns the best value of the hand, counting one ace as 11 when it does not bust.
+     *
+     * @return The hand value.
+     */
+    public int value() {
+        return value;
+    }
+
+    /**
+     * @brief Returns true if an ace is counted as 11 in the hand value.
+     *
+     * @return True if the hand is soft.
+     */
+    public boolean isSoft() {
+        return value != hard;
+    }
+
+    /**
+     * @brief Returns true if the hand value exceeds 21.
+     *
+     * @return True if the hand is bust.
+     */
+    public boolean isBust() {
+        return hard > 21;
+    }
+
+    /**
+     * @brief Returns the number of cards in the hand.
+     *
+     * @return The number of cards.
+     */
+    public int cardCount() {
+        return cards;
+    }
+
+    /**
+     * @brief Returns the rank of the pair if the hand is made of two cards of the same rank.
+     *
+     * @return The rank, 0 if the hand is not a pair.
+     */
+    public int pairRank() {
+        return pairRank;
+    }
+
+    /**
+     * @brief Returns true if the hand is a two-card 21.
+     *
+     * @return True for a blackjack.
+     */
+    public boolean isBlackjack() {
+        return cards == 2 && value == 21;
+    }
+}
@@ -0,0 +1,112 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * @brief Count-based deviations from basic strategy: the Illustrious 18 plays and the Fab 4 surrenders.
+ * @details Indices are Hi-Lo true counts; other systems pass their count scaled to level one, which is an
+ *          approximation for their own indices. A deviation applies at or above its index and the alternative
+ *          play applies below it. Surrender decisions are taken first, then splits decided by basic strategy are
+ *          kept, then the hard-total plays are looked up. Insurance, the first Illustrious 18 play, is not
+ *          modelled. Every lookup is a single array access.
+ */
+public final class IndexPlays {
+    private static final Deviation[][] HARD = new Deviation[22][11];
+    private static final Deviation[] TEN_PAIRS = new Deviation[11];
+    private static final double[][] SURRENDER = new double[22][11];
+
+    /**
+     * @brief One deviation: play atOrAbove when the true count reaches index, below otherwise.
+     */
+    private record Deviation(double index, Action atOrAbove, Action below) {
+    }
+
+    static {
+        // Illustrious 18, hard totals (player total, dealer up-card, index, play at or above, play below)
+        hard(16, 10, 0, Action.STAND, Action.HIT);
+        hard(15, 10, 4, Action.STAND, Action.HIT);
+        hard(10, 10, 4, Action.DOUBLE, Action.HIT);
+        hard(12, 3, 2, Action.STAND, Action.HIT);
+        hard(12, 2, 3, Action.STAND, Action.HIT);
+        hard(11, 1, 1, Action.DOUBLE, Action.HIT);
+        hard(9, 2, 1, Action.DOUBLE, Action.HIT);
+        hard(10, 1, 4, Action.DOUBLE, Action.HIT);
+        hard(9, 7, 3, Action.DOUBLE, Action.HIT);
+        hard(16, 9, 5, Action.STAND, Action.HIT);
+        hard(13, 2, -1, Action.STAND, Action.HIT);
+        hard(12, 4, 0, Action.STAND, Action.HIT);
+        hard(12, 5, -2, Action.STAND, Action.HIT);
+        hard(12, 6, -1, Action.STAND, Action.HIT);
+        hard(13, 3, -2, Action.STAND, Action.HIT);
+
+        // Illustrious 18, splitting tens
+        TEN_PAIRS[5] = new Deviation(5, Action.SPLIT, Action.STAND);
+        TEN_PAIRS[6] = new Deviation(4, Action.SPLIT, Action.STAND);
+
+        // Fab 4 surrenders, NaN where there is no index
+        for (double[] row : SURRENDER) {
+            Arrays.fill(row, Double.NaN);
+        }
+        SURRENDER[14][10] = 3;
+        SURRENDER[15][10] = 0;
+        SURRENDER[15][9] = 2;
+        SURRENDER[15][1] = 1;
+    }
+
+    private IndexPlays() {
+    }
+
+    private static void hard(int total, int upCard, double index, Action atOrAbove, Action below) {
+        HARD[total][upCard] = new Deviation(index, atOrAbove, below);
+    }
+
+    /**
+     * @brief Chooses the action for a hand, applying the deviations for the given count over basic strategy.
+     *
+     * @param hard The hand's total counting aces as 1.
+     * @param ace True if the hand contains an ace.
+     * @param pairRank The rank of the pair if the hand can be split, 0 otherwise.
+     * @param canDouble True if doubling is allowed for this hand.
+     * @param canSurrender True if surrendering is allowed for this hand.
+     * @param upCard The dealer's up-card, from 1 (ace) to 10.
+     * @param indexCount The true count on the Hi-Lo scale.
+     * @param rules The table rules.
+     * @return The action to take.
+     */
+    public static Action decide(int hard, boolean ace, int pairRank, boolean canDouble, boolean canSurrender,
+                                int upCard, double indexCount, Rules rules) {
+        boolean soft = ace && hard + 10 <= 21;
+        if (soft || hard > 21) {
+            return BasicStrategy.decide(hard, ace, pairRank, canDouble, canSurrender, upCard, rules);
+        }
+
+        double surrenderIndex = SURRENDER[hard][upCard];
+        if (canSurrender && rules.surrender() && !Double.isNaN(surrenderIndex)) {
+            if (indexCount >= surrenderIndex) {
+                return Action.SURRENDER;
+            }
+            canSurrender = false;
+        }
+
+        Action basic = BasicStrategy.decide(hard, ace, pairRank, canDouble, canSurrender, upCard, rules);
+        if (basic == Action.SURRENDER || basic == Action.SPLIT) {
+            return basic;
+        }
+
+        Deviation deviation = pairRank == 10 ? TEN_PAIRS[upCard] : HARD[hard][upCard];
+        if (deviation == null) {
+            return basic;
+        }
+
+        Action action = indexCount >= deviation.index() ? deviation.atOrAbove() : deviation.below();
+        boolean noPeekAgainstStrong = !rules.dealerPeeks() && (upCard == 1 || upCard == 10);
+        if (action == Action.DOUBLE && noPeekAgainstStrong) {
+            // Without a peek the double would also be lost to a dealer blackjack; the indices assume a peek
+            return basic;
+        }
+        if (action == Action.DOUBLE && !canDouble) {
+            return Action.HIT;
+        }
+        return action;
+    }
+}
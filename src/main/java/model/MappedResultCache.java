@@ -0,0 +1,294 @@
+package model;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * @brief Bounded cache of fixed-width result vectors in a memory-mapped file, shared by every process mapping it.
+ * @details Entries are keyed by a packed shoe composition, a hand state code and a tag derived from the rules'
+ *          play settings, so evaluators of different rules can share a file without mixing their results. The
+ *          number of decks needs no tag: the composition already tells the shoes apart.
+ *
+ *          The file holds a header followed by buckets of four entries, each made of a sequence number, the key,
+ *          the tag, the state, the time it was written and the values, all in native byte order. The sequence
+ *          number is a per-entry seqlock: a writer claims an entry by moving it to an odd value with a
+ *          compare-and-set, writes it and releases it at the next even value. Readers take no lock: they read the
+ *          entry between two reads of its sequence number and treat any change as a miss. When a bucket is full
+ *          the entry written longest ago is replaced, so the file never grows past its initial size.
+ *
+ *          A process killed in the middle of a write leaves that one entry claimed for good; its bucket keeps
+ *          working with the three others.
+ */
+public final class MappedResultCache implements AutoCloseable {
+    private static final int MAGIC = 0x424A5243; // "BJRC"
+    private static final int VERSION = 1;
+    private static final int HEADER = 64;
+    private static final int WAYS_LOG2 = 2, WAYS = 1 << WAYS_LOG2;
+    private static final int MIN_CAPACITY_LOG2 = WAYS_LOG2 + 1;
+    // Offsets within an entry
+    private static final int SEQUENCE = 0, KEY = 8, TAG = 16, STATE = 24, WRITTEN = 32, VALUES = 40;
+    private static final VarHandle LONGS =
+            MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+    /** System property naming the directory of the files opened by shared(); no file is used when it is unset. */
+    public static final String DIR_PROPERTY = "result.cache.dir";
+
+    // Caches opened by shared(), by file name; null for files that could not be opened
+    private static final Map<String, MappedResultCache> SHARED = new HashMap<>();
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int width;
+    private final int entryBytes;
+    private final int bucketShift;
+
+    private MappedResultCache(FileChannel channel, int width, int capacityLog2) throws IOException {
+        this.channel = channel;
+        this.width = width;
+
+        long existing = channel.size();
+        ByteBuffer header = ByteBuffer.allocate(16).order(ByteOrder.nativeOrder());
+        if (existing >= HEADER) {
+            channel.read(header, 0);
+        }
+        int magic = header.getInt(0);
+        if (magic == MAGIC) {
+            // An existing cache keeps its own capacity, so processes configured differently still agree on it
+            if (header.getInt(4) != VERSION || header.getInt(8) != width) {
+                throw new IllegalArgumentException("Result cache of another version or width");
+            }
+            capacityLog2 = header.getInt(12);
+        } else if (magic != 0) {
+            throw new IllegalArgumentException("Not a result cache file");
+        }
+        entryBytes = VALUES + Double.BYTES * width;
+        long size = fileSize(entryBytes, capacityLog2);
+        if (capacityLog2 < MIN_CAPACITY_LOG2 || capacityLog2 >= Integer.SIZE || size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Invalid result cache capacity");
+        }
+        if (magic == MAGIC && existing < size) {
+            throw new IllegalArgumentException("Truncated result cache file");
+        }
+        if (magic != MAGIC && existing > size) {
+            // A file left by an interrupted creation with another capacity: drop the part past the new mapping
+            channel.truncate(size);
+            existing = size;
+        }
+
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        buffer.order(ByteOrder.nativeOrder());
+        bucketShift = Long.SIZE - (capacityLog2 - WAYS_LOG2);
+
+        if (magic != MAGIC) {
+            // A new file reads as zeros; an interrupted creation may have left entries behind
+            for (long i = 0; i < existing; i += Long.BYTES) {
+                buffer.putLong((int) i, 0L);
+            }
+            buffer.putInt(4, VERSION).putInt(8, width).putInt(12, capacityLog2);
+            buffer.putInt(0, MAGIC);
+        }
+    }
+
+    /**
+     * @brief Maps a cache file, creating it if needed.
+     * @details Opening is serialized across processes with a file lock; lookups and stores are not.
+     *
+     * @param path The cache file.
+     * @param width The number of values stored per entry.
+     * @param capacityLog2 The base-2 logarithm of the number of entries of a new file, at least 3; an existing
+     *        file keeps its own capacity.
+     * @return The cache.
+     * @throws IOException If the file cannot be opened or mapped.
+     * @throws IllegalArgumentException If the file is not a cache of that width, or the capacity is out of range.
+     */
+    public static MappedResultCache open(Path path, int width, int capacityLog2) throws IOException {
+        if (width < 1) {
+            throw new IllegalArgumentException("Invalid result cache width");
+        }
+
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                StandardOpenOption.CREATE);
+        try {
+            FileLock lock = channel.lock();
+            try {
+                return new MappedResultCache(channel, width, capacityLog2);
+            } finally {
+                lock.release();
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @brief Returns a view of a cache file in the directory named by the result.cache.dir property, for one set
+     *        of rules.
+     * @details Each file is mapped once per process. A file that cannot be opened is reported and disabled.
+     *
+     * @param name The file name within the directory.
+     * @param width The number of values stored per entry.
+     * @param capacityLog2 The base-2 logarithm of the number of entries of a new file.
+     * @param rules The rules of the results stored through the view.
+     * @return The view, or null if the property is unset or the file is unavailable.
+     */
+    static ResultCache shared(String name, int width, int capacityLog2, Rules rules) {
+        String directory = System.getProperty(DIR_PROPERTY);
+        if (directory == null) {
+            return null;
+        }
+
+        MappedResultCache cache;
+        synchronized (SHARED) {
+            if (SHARED.containsKey(name)) {
+                cache = SHARED.get(name);
+            } else {
+                Path path = Path.of(directory, name);
+                try {
+                    Files.createDirectories(path.getParent());
+                    cache = open(path, width, capacityLog2);
+                } catch (IOException | IllegalArgumentException e) {
+                    System.err.println("Ignoring result cache " + path + ": " + e.getMessage());
+                    cache = null;
+                }
+                SHARED.put(name, cache);
+            }
+        }
+        return cache != null ? cache.forRules(rules) : null;
+    }
+
+    /**
+     * @brief Returns a view storing and finding the results of one set of rules.
+     *
+     * @param rules The rules; the number of decks does not matter.
+     * @return The view, thread-safe.
+     */
+    ResultCache forRules(Rules rules) {
+        long tag = tagOf(rules.playKey());
+        return new ResultCache() {
+            @Override
+            public boolean get(long key, int state, double[] dest) {
+                return MappedResultCache.this.get(key, state, tag, dest);
+            }
+
+            @Override
+            public void put(long key, int state, double[] values) {
+                MappedResultCache.this.put(key, state, tag, values);
+            }
+        };
+    }
+
+    /**
+     * @brief Returns the number of values stored per entry.
+     *
+     * @return The width.
+     */
+    public int width() {
+        return width;
+    }
+
+    /**
+     * @brief Returns the number of entries the file holds.
+     *
+     * @return The capacity.
+     */
+    public int capacity() {
+        return WAYS << (Long.SIZE - bucketShift);
+    }
+
+    /**
+     * @brief Closes the file. The mapping stays valid until it is garbage collected, so views in use keep working.
+     *
+     * @throws IOException If the file cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private boolean get(long key, int state, long tag, double[] dest) {
+        int bucket = bucketOf(key, state, tag);
+        for (int way = 0; way < WAYS; way++) {
+            int entry = bucket + way * entryBytes;
+            long sequence = (long) LONGS.getAcquire(buffer, entry + SEQUENCE);
+            if ((sequence & 1) != 0 || buffer.getLong(entry + KEY) != key || buffer.getLong(entry + TAG) != tag
+                    || buffer.getLong(entry + STATE) != state) continue;
+
+            for (int i = 0; i < width; i++) {
+                dest[i] = buffer.getDouble(entry + VALUES + Double.BYTES * i);
+            }
+            // The values must have been read before the sequence number is checked again
+            VarHandle.acquireFence();
+            return (long) LONGS.getAcquire(buffer, entry + SEQUENCE) == sequence;
+        }
+        return false;
+    }
+
+    private void put(long key, int state, long tag, double[] values) {
+        int bucket = bucketOf(key, state, tag);
+        int victim = -1;
+        long victimSequence = 0, oldest = Long.MAX_VALUE;
+        for (int way = 0; way < WAYS; way++) {
+            int entry = bucket + way * entryBytes;
+            long sequence = (long) LONGS.getAcquire(buffer, entry + SEQUENCE);
+            if ((sequence & 1) != 0) continue; // Being written by another thread or process
+
+            if (buffer.getLong(entry + KEY) == key && buffer.getLong(entry + TAG) == tag
+                    && buffer.getLong(entry + STATE) == state) {
+                return; // Results are exact, so another writer already stored the same values
+            }
+            long written = sequence == 0 ? Long.MIN_VALUE : buffer.getLong(entry + WRITTEN);
+            if (written < oldest) {
+                oldest = written;
+                victim = entry;
+                victimSequence = sequence;
+            }
+        }
+        // Losing the race for an entry only loses this store
+        if (victim < 0 || !LONGS.compareAndSet(buffer, victim + SEQUENCE, victimSequence, victimSequence + 1)) {
+            return;
+        }
+
+        buffer.putLong(victim + KEY, key);
+        buffer.putLong(victim + TAG, tag);
+        buffer.putLong(victim + STATE, state);
+        buffer.putLong(victim + WRITTEN, System.currentTimeMillis());
+        for (int i = 0; i < width; i++) {
+            buffer.putDouble(victim + VALUES + Double.BYTES * i, values[i]);
+        }
+        LONGS.setRelease(buffer, victim + SEQUENCE, victimSequence + 2);
+    }
+
+    private int bucketOf(long key, int state, long tag) {
+        long h = ((key + state) * 0x9E3779B97F4A7C15L) ^ tag;
+        h = (h ^ (h >>> 31)) * 0xBF58476D1CE4E5B9L;
+        return HEADER + (int) (h >>> bucketShift) * WAYS * entryBytes;
+    }
+
+    private static long fileSize(int entryBytes, int capacityLog2) {
+        return HEADER + ((long) entryBytes << capacityLog2);
+    }
+
+    /**
+     * @brief Returns a 64-bit FNV-1a hash of a canonical rules description.
+     */
+    private static long tagOf(String playKey) {
+        long h = 0xCBF29CE484222325L;
+        for (byte b : playKey.getBytes(StandardCharsets.UTF_8)) {
+            h = (h ^ (b & 0xFF)) * 0x100000001B3L;
+        }
+        return h;
+    }
+}
@@ -0,0 +1,115 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @brief Multithreaded Monte Carlo simulation of rounds played from a given shoe state.
+ * @details Every round starts from the same composition and is played with basic strategy. Work is split evenly
+ *          across worker threads, each owning a SplittableRandom derived from the seed, and partial results are
+ *          flushed in batches into lock-free adders.
+ */
+public class MonteCarloSimulator {
+    private static final int BATCH = 16_384;
+
+    private final Rules rules;
+    private final int threads;
+
+    /**
+     * @brief Creates a simulator using every available core.
+     *
+     * @param rules The table rules.
+     */
+    public MonteCarloSimulator(Rules rules) {
+        this(rules, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @brief Creates a simulator with an explicit number of worker threads.
+     *
+     * @param rules The table rules.
+     * @param threads The number of worker threads (at least 1).
+     */
+    public MonteCarloSimulator(Rules rules, int threads) {
+        this.rules = rules;
+        this.threads = Math.max(1, threads);
+    }
+
+    /**
+     * @brief Simulates rounds starting from the given shoe.
+     *
+     * @param shoe The remaining cards; it is not modified.
+     * @param rounds The number of rounds to play.
+     * @param seed The seed of the random streams, making runs reproducible.
+     * @return The aggregated result.
+     */
+    public SimulationResult simulate(Shoe shoe, long rounds, long seed) {
+        LongAdder completed = new LongAdder(), wins = new LongAdder(), pushes = new LongAdder();
+        LongAdder losses = new LongAdder(), voided = new LongAdder();
+        DoubleAdder netSum = new DoubleAdder(), netSquaredSum = new DoubleAdder();
+
+        int[] rankCounts = shoe.toArray();
+        int totalCards = shoe.total();
+        SplittableRandom root = new SplittableRandom(seed);
+        long start = System.nanoTime();
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(threads)) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                long share = rounds / threads + (t < rounds % threads ? 1 : 0);
+                RoundPlayer player = new RoundPlayer(rules, root.split());
+
+                futures.add(executor.submit(() -> {
+                    long done = 0;
+                    while (done < share) {
+                        int batch = (int) Math.min(BATCH, share - done);
+                        long batchWins = 0, batchPushes = 0, batchLosses = 0, batchVoid = 0;
+                        double sum = 0.0, squaredSum = 0.0;
+
+                        for (int i = 0; i < batch; i++) {
+                            player.reset(rankCounts, totalCards);
+                            double net = player.play();
+                            if (Double.isNaN(net)) {
+                                batchVoid++;
+                            } else {
+                                sum += net;
+                                squaredSum += net * net;
+                                if (net > 0) batchWins++;
+                                else if (net < 0) batchLosses++;
+                                else batchPushes++;
+                            }
+                        }
+
+                        completed.add(batch - batchVoid);
+                        wins.add(batchWins);
+                        pushes.add(batchPushes);
+                        losses.add(batchLosses);
+                        voided.add(batchVoid);
+                        netSum.add(sum);
+                        netSquaredSum.add(squaredSum);
+                        done += batch;
+                    }
+                }));
+            }
+
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Simulation interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Simulation failed", e.getCause());
+        }
+
+        return new SimulationResult(completed.sum(), wins.sum(), pushes.sum(), losses.sum(), voided.sum(),
+                netSum.sum(), netSquaredSum.sum(), System.nanoTime() - start);
+    }
+}
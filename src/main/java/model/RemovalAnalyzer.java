@@ -0,0 +1,128 @@
+package model;
+
+import metrics.AnalysisStepEvent;
+import metrics.Probe;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @brief Computes effect-of-removal reports: the round's exact expected value on a shoe and on the same shoe
+ *        with one card of each rank removed.
+ * @details The 11 evaluations run as parallel tasks on a fork-join pool, each on a solver taken from a pool of
+ *          idle solvers. Every solver keeps its private memo tables and is backed by a second level shared by
+ *          all of them: the shoes of the evaluations differ by one card, so once a few cards are drawn they
+ *          reach the same compositions and reuse each other's dealer distributions and player values. The
+ *          solvers and the shared tables are kept between reports, so a report after one more card reuses most
+ *          of the previous one. One thread at a time may request a report.
+ */
+public class RemovalAnalyzer {
+    private static final Probe REMOVAL = Probe.of("analysis.removalEffects");
+
+    private final Rules rules;
+    private final ForkJoinPool pool;
+    private final SolverPool solvers;
+
+    /**
+     * @brief Creates an analyzer running its evaluations on a pool.
+     *
+     * @param rules The table rules; the number of decks is given by the shoe of each report.
+     * @param pool The pool running the evaluations.
+     */
+    public RemovalAnalyzer(Rules rules, ForkJoinPool pool) {
+        this.rules = rules;
+        this.pool = pool;
+        solvers = new SolverPool(rules);
+    }
+
+    /**
+     * @brief Computes the report for a shoe.
+     *
+     * @param shoe The remaining cards; it is not modified.
+     * @return The report.
+     * @throws CancellationException If the calling thread is interrupted while waiting for the evaluations.
+     * @throws IllegalStateException If an evaluation fails.
+     */
+    public RemovalEffects analyze(Shoe shoe) {
+        AnalysisStepEvent event = REMOVAL.begin();
+        LongAdder nodes = new LongAdder(), hits = new LongAdder();
+        // Set when the batch is abandoned, so that the running tasks stop as well as the queued ones
+        AtomicBoolean cancelled = new AtomicBoolean();
+        solvers.retainWithin(shoe);
+
+        // Task 0 evaluates the shoe itself, task r the shoe without one card of rank r
+        @SuppressWarnings({"rawtypes", "unchecked"})
+        ForkJoinTask<Double>[] tasks = new ForkJoinTask[11];
+        for (int rank = 0; rank <= 10; rank++) {
+            if (rank > 0 && shoe.count(rank) == 0) continue;
+
+            Shoe evaluated = shoe.copy();
+            if (rank > 0) {
+                evaluated.draw(rank);
+            }
+            tasks[rank] = pool.submit(() -> solvers.apply(solver -> solver.roundEv(evaluated), cancelled, nodes, hits));
+        }
+
+        double[] evs = new double[11];
+        try {
+            for (int rank = 0; rank <= 10; rank++) {
+                evs[rank] = tasks[rank] != null ? tasks[rank].get() : Double.NaN;
+            }
+        } catch (InterruptedException e) {
+            cancelled.set(true);
+            for (ForkJoinTask<Double> task : tasks) {
+                if (task != null) {
+                    task.cancel(false);
+                }
+            }
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Effect of removal interrupted");
+        } catch (ExecutionException e) {
+            cancelled.set(true);
+            throw new IllegalStateException("Effect of removal failed", e.getCause());
+        }
+
+        REMOVAL.end(event, nodes.sum(), hits.sum());
+        double[] removedEv = new double[10];
+        System.arraycopy(evs, 1, removedEv, 0, 10);
+        return new RemovalEffects(evs[0], removedEv);
+    }
+
+    /**
+     * @brief Returns the rules of the reports.
+     *
+     * @return The rules.
+     */
+    Rules rules() {
+        return rules;
+    }
+
+    /**
+     * @brief Returns the pool running the evaluations.
+     *
+     * @return The pool.
+     */
+    ForkJoinPool pool() {
+        return pool;
+    }
+
+    /**
+     * @brief Returns the solvers of the evaluations, along with their shared memo tables.
+     *
+     * @return The solvers.
+     */
+    SolverPool solvers() {
+        return solvers;
+    }
+
+    /**
+     * @brief Drops every memo table, those of the idle solvers included.
+     */
+    public void clearCache() {
+        solvers.clear();
+    }
+}
@@ -0,0 +1,64 @@
+package model;
+
+import java.util.Locale;
+
+/**
+ * @brief Immutable effect-of-removal report: how much removing one card of each rank shifts the round's
+ *        expected value.
+ * @details Values are in units of the initial bet, as returned by StrategySolver.roundEv(). A positive effect
+ *          means the player gains when a card of that rank leaves the shoe.
+ */
+public final class RemovalEffects {
+    private final double baseEv;
+    private final double[] removedEv;
+
+    /**
+     * @brief Creates a report. The array is not copied and must not be modified afterwards.
+     *
+     * @param baseEv The round's expected value on the full shoe.
+     * @param removedEv The round's expected value with one card of each rank removed, indexed from 0 (ace) to 9;
+     *                  NaN for exhausted ranks.
+     */
+    RemovalEffects(double baseEv, double[] removedEv) {
+        this.baseEv = baseEv;
+        this.removedEv = removedEv;
+    }
+
+    /**
+     * @brief Returns the round's expected value on the shoe as it is.
+     *
+     * @return The expected value, NaN if the shoe is too small to deal a round.
+     */
+    public double baseEv() {
+        return baseEv;
+    }
+
+    /**
+     * @brief Returns the round's expected value once a card of a rank is removed.
+     *
+     * @param rank The rank, from 1 (ace) to 10.
+     * @return The expected value, NaN if the rank is exhausted or the shoe too small.
+     */
+    public double ev(int rank) {
+        return removedEv[rank - 1];
+    }
+
+    /**
+     * @brief Returns the change of the round's expected value when a card of a rank is removed.
+     *
+     * @param rank The rank, from 1 (ace) to 10.
+     * @return The change, NaN if the rank is exhausted or the shoe too small.
+     */
+    public double effect(int rank) {
+        return removedEv[rank - 1] - baseEv;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder out = new StringBuilder(String.format(Locale.ROOT, "ev=%.5f", baseEv));
+        for (int rank = 1; rank <= 10; rank++) {
+            out.append(String.format(Locale.ROOT, " %s=%+.5f", rank == 1 ? "A" : String.valueOf(rank), effect(rank)));
+        }
+        return out.toString();
+    }
+}
@@ -0,0 +1,29 @@
+package model;
+
+/**
+ * @brief Second level of memo tables behind an evaluator's private cache, holding fixed-width vectors keyed by a
+ *        packed shoe composition and a hand state code.
+ * @details Implementations are thread-safe and may drop entries at any time, so a miss only costs the
+ *          computation. A lookup is more expensive than one in a private DealerCache, so it is only worth it for
+ *          results that are expensive to recompute.
+ */
+interface ResultCache {
+    /**
+     * @brief Copies the cached values for the given key into the destination array.
+     *
+     * @param key The packed shoe composition.
+     * @param state The hand state code (must be positive).
+     * @param dest The array receiving the values; its content is unspecified after a miss.
+     * @return True if the entry was found, false otherwise.
+     */
+    boolean get(long key, int state, double[] dest);
+
+    /**
+     * @brief Stores a vector of values, possibly evicting other entries.
+     *
+     * @param key The packed shoe composition.
+     * @param state The hand state code (must be positive).
+     * @param values The values to store.
+     */
+    void put(long key, int state, double[] values);
+}
@@ -0,0 +1,236 @@
+package model;
+
+import java.util.SplittableRandom;
+
+/**
+ * @brief Plays complete rounds against a private copy of the shoe, following basic strategy.
+ * @details Cards are drawn without replacement from the copy, so consecutive rounds deplete it until reset()
+ *          is called. One instance belongs to one thread; it does not allocate while playing.
+ */
+class RoundPlayer {
+    private final Rules rules;
+    private final SplittableRandom random;
+    private final int[] counts = new int[Shoe.RANKS];
+    private int total;
+    private boolean exhausted;
+
+    // Split hands: final value and bet of each hand
+    private final int[] handValues = new int[Rules.MAX_SPLIT_HANDS];
+    private final int[] handBets = new int[Rules.MAX_SPLIT_HANDS];
+
+    /**
+     * @brief Creates a player for the given rules and random stream.
+     *
+     * @param rules The table rules.
+     * @param random The random stream owned by the calling thread.
+     */
+    RoundPlayer(Rules rules, SplittableRandom random) {
+        this.rules = rules;
+        this.random = random;
+    }
+
+    /**
+     * @brief Restores the shoe copy to the given composition.
+     *
+     * @param rankCounts The count of each rank, indexed from 0 (ace) to 9 (ten-valued cards).
+     * @param totalCards The total number of cards.
+     */
+    void reset(int[] rankCounts, int totalCards) {
+        System.arraycopy(rankCounts, 0, counts, 0, Shoe.RANKS);
+        total = totalCards;
+    }
+
+    /**
+     * @brief Returns the number of cards left in the shoe copy.
+     *
+     * @return The number of cards.
+     */
+    int remaining() {
+        return total;
+    }
+
+    /**
+     * @brief Returns the remaining count of a rank in the shoe copy.
+     *
+     * @param rank The rank, from 1 (ace) to 10.
+     * @return The number of cards.
+     */
+    int count(int rank) {
+        return counts[rank - 1];
+    }
+
+    /**
+     * @brief Plays one round with a bet of one unit.
+     *
+     * @return The net result in units of the bet, or NaN if the shoe ran out of cards during the round.
+     */
+    double play() {
+        exhausted = false;
+        int first = draw(), upCard = draw(), second = draw(), holeCard = draw();
+        if (exhausted) {
+            return Double.NaN;
+        }
+
+        HandState player = HandState.EMPTY.add(first).add(second);
+        HandState dealer = HandState.EMPTY.add(upCard).add(holeCard);
+        boolean playerBlackjack = player.isBlackjack();
+        boolean dealerBlackjack = dealer.isBlackjack();
+
+        Action action = playerBlackjack ? null : BasicStrategy.decide(player.hardTotal(), player.hasAce(),
+                player.pairRank(), true, true, upCard, rules);
+        // Early surrender comes before the dealer checks for blackjack, so it always saves half the bet
+        if (action == Action.SURRENDER && rules.surrenderRule() == Rules.Surrender.EARLY) {
+            return -0.5;
+        }
+
+        if (dealerBlackjack && rules.dealerPeeks()) {
+            return playerBlackjack ? 0.0 : -1.0;
+        }
+        if (playerBlackjack) {
+            return dealerBlackjack ? 0.0 : rules.blackjackPayout();
+        }
+
+        if (action == Action.SURRENDER) {
+            // Late surrender comes after the dealer's blackjack, which then takes the whole bet
+            return dealerBlackjack && rules.surrenderRule() == Rules.Surrender.LATE ? -1.0 : -0.5;
+        }
+
+        int hands;
+        if (action == Action.SPLIT) {
+            hands = 2;
+            HandState split = HandState.EMPTY.add(first);
+            for (int hand = 0; hand < hands; hand++) {
+                int card = draw();
+                if (exhausted) {
+                    break;
+                }
+                if (card == first && first != 1 && hands < rules.maxSplitHands()
+                        && BasicStrategy.decide(2 * first, false, first, false, false, upCard, rules) == Action.SPLIT) {
+                    // Resplit: the card starts a new hand and this one draws again
+                    hands++;
+                    hand--;
+                    continue;
+                }
+                if (first == 1) {
+                    // Split aces receive one card each
+                    handValues[hand] = split.add(card).value();
+                    handBets[hand] = 1;
+                } else {
+                    playHand(hand, split.add(card), rules.doubleAfterSplit(), upCard, null);
+                }
+            }
+        } else {
+            hands = 1;
+            playHand(0, player, true, upCard, action);
+        }
+
+        if (exhausted) {
+            return Double.NaN;
+        }
+
+        boolean allBusted = true;
+        for (int hand = 0; hand < hands; hand++) {
+            allBusted &= handValues[hand] > 21;
+        }
+
+        int dealerValue = 0;
+        if (!allBusted && !dealerBlackjack) {
+            while (!exhausted && dealerDraws(dealer)) {
+                int card = draw();
+                if (!exhausted) {
+                    dealer = dealer.add(card);
+                }
+            }
+            if (exhausted) {
+                return Double.NaN;
+            }
+            dealerValue = dealer.value();
+        }
+
+        double net = 0.0;
+        for (int hand = 0; hand < hands; hand++) {
+            int value = handValues[hand];
+            int bet = handBets[hand];
+            if (value > 21 || dealerBlackjack) {
+                net -= bet; // Without a peek a dealer blackjack takes doubled and split bets too
+            } else if (dealerValue > 21 || value > dealerValue) {
+                net += bet;
+            } else if (value < dealerValue) {
+                net -= bet;
+            }
+        }
+        return net;
+    }
+
+    /**
+     * @brief Plays a single hand to completion, storing its final value and bet.
+     *
+     * @param hand The index of the hand, from 0 to the number of split hands - 1.
+     * @param state The hand's cards.
+     * @param canDouble True if the hand may be doubled on its first decision.
+     * @param upCard The dealer's up-card.
+     * @param firstAction The action already chosen for the first decision, or null to look it up.
+     */
+    private void playHand(int hand, HandState state, boolean canDouble, int upCard, Action firstAction) {
+        int bet = 1;
+        Action action = firstAction;
+
+        while (!exhausted && state.value() < 21) {
+            if (action == null) {
+                action = BasicStrategy.decide(state.hardTotal(), state.hasAce(), 0, canDouble, false, upCard, rules);
+            }
+            if (action == Action.STAND) {
+                break;
+            }
+
+            int card = draw();
+            if (exhausted) {
+                break;
+            }
+            state = state.add(card);
+            if (action == Action.DOUBLE) {
+                bet = 2;
+                break;
+            }
+
+            canDouble = false;
+            action = null;
+        }
+
+        handValues[hand] = state.value();
+        handBets[hand] = bet;
+    }
+
+    /**
+     * @brief Returns true if the dealer must draw another card.
+     *
+     * @param dealer The dealer's hand.
+     * @return True if the dealer draws.
+     */
+    private boolean dealerDraws(HandState dealer) {
+        int value = dealer.value();
+        return value < 17 || value == 17 && rules.dealerHitsSoft17() && dealer.isSoft();
+    }
+
+    /**
+     * @brief Draws a random card from the shoe copy.
+     *
+     * @return The rank of the card, or 0 if the shoe is empty.
+     */
+    private int draw() {
+        if (total == 0) {
+            exhausted = true;
+            return 0;
+        }
+
+        int pick = random.nextInt(total);
+        int rank = 0;
+        while (pick >= counts[rank]) {
+            pick -= counts[rank];
+            rank++;
+        }
+        counts[rank]--;
+        total--;
+        return rank + 1;
+    }
+}
@@ -0,0 +1,316 @@
+package model;
+
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * @brief Immutable set of table rules.
+ * @details Instances are created from standard() or parse() and adjusted with the with* methods, each returning
+ *          a copy. The evaluators (StrategySolver, DealerEngine, the simulator) resolve every setting once when
+ *          they are built, so an instance of them serves a single rule set.
+ */
+public final class Rules {
+    /**
+     * @brief When the player may give up half the bet.
+     */
+    public enum Surrender {
+        /** Surrender is not offered. */
+        NONE,
+        /** Surrender after the dealer checks for blackjack; a dealer blackjack still takes the whole bet. */
+        LATE,
+        /** Surrender before the dealer checks for blackjack. */
+        EARLY
+    }
+
+    /** Largest number of hands a pair can be split into. */
+    public static final int MAX_SPLIT_HANDS = 4;
+
+    private final boolean dealerHitsSoft17;
+    private final boolean doubleAfterSplit;
+    private final Surrender surrender;
+    private final boolean dealerPeeks;
+    private final double blackjackPayout;
+    private final int maxSplitHands;
+    private final int decks;
+
+    private Rules(boolean dealerHitsSoft17, boolean doubleAfterSplit, Surrender surrender, boolean dealerPeeks,
+                  double blackjackPayout, int maxSplitHands, int decks) {
+        this.dealerHitsSoft17 = dealerHitsSoft17;
+        this.doubleAfterSplit = doubleAfterSplit;
+        this.surrender = surrender;
+        this.dealerPeeks = dealerPeeks;
+        this.blackjackPayout = blackjackPayout;
+        this.maxSplitHands = maxSplitHands;
+        this.decks = decks;
+    }
+
+    /**
+     * @brief Returns the rules assumed by the model: dealer stands on soft 17, no double after split,
+     *        surrender allowed before the dealer's blackjack is known, no hole-card peek, blackjack paying 3:2,
+     *        no resplit and 6 decks.
+     *
+     * @return The standard rules.
+     */
+    public static Rules standard() {
+        return new Rules(false, false, Surrender.EARLY, false, 1.5, 2, 6);
+    }
+
+    /**
+     * @brief Parses a rule description in the format of toString(), starting from the standard rules.
+     * @details Tokens are separated by spaces, commas or '+' and are case-insensitive: S17 or H17, DAS or NDAS,
+     *          NS, LS or ES (no, late or early surrender), PEEK or ENHC, BJ followed by the payout (BJ1.5, BJ1.2)
+     *          or 3:2 and 6:5, SP followed by the largest number of split hands (SP2 for no resplit, up to SP4),
+     *          and the number of decks followed by D (6D). Settings that are not mentioned keep their standard
+     *          value.
+     *
+     * @param description The description, such as "H17 DAS LS PEEK 6:5 SP4 8D".
+     * @return The rules.
+     * @throws IllegalArgumentException If a token is not recognized or a value is out of range.
+     */
+    public static Rules parse(String description) {
+        Rules rules = standard();
+        for (String token : description.trim().split("[\\s,+]+")) {
+            String upper = token.toUpperCase(Locale.ROOT);
+            try {
+                switch (upper) {
+                    case "" -> { }
+                    case "S17", "H17" -> rules = rules.withDealerHitsSoft17(upper.equals("H17"));
+                    case "DAS", "NDAS" -> rules = rules.withDoubleAfterSplit(upper.equals("DAS"));
+                    case "NS" -> rules = rules.withSurrender(Surrender.NONE);
+                    case "LS" -> rules = rules.withSurrender(Surrender.LATE);
+                    case "ES" -> rules = rules.withSurrender(Surrender.EARLY);
+                    case "PEEK", "ENHC" -> rules = rules.withDealerPeeks(upper.equals("PEEK"));
+                    case "3:2" -> rules = rules.withBlackjackPayout(1.5);
+                    case "6:5" -> rules = rules.withBlackjackPayout(1.2);
+                    default -> {
+                        if (upper.startsWith("BJ")) {
+                            rules = rules.withBlackjackPayout(Double.parseDouble(upper.substring(2)));
+                        } else if (upper.startsWith("SP")) {
+                            rules = rules.withMaxSplitHands(Integer.parseInt(upper.substring(2)));
+                        } else if (upper.endsWith("D")) {
+                            rules = rules.withDecks(Integer.parseInt(upper.substring(0, upper.length() - 1)));
+                        } else {
+                            throw new IllegalArgumentException("Unknown rule " + token);
+                        }
+                    }
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid rule " + token);
+            }
+        }
+        return rules;
+    }
+
+    /**
+     * @brief Returns a copy where the dealer hits (true) or stands (false) on soft 17.
+     *
+     * @param value The new setting.
+     * @return The updated rules.
+     */
+    public Rules withDealerHitsSoft17(boolean value) {
+        return new Rules(value, doubleAfterSplit, surrender, dealerPeeks, blackjackPayout, maxSplitHands, decks);
+    }
+
+    /**
+     * @brief Returns a copy allowing or forbidding doubling after a split.
+     *
+     * @param value The new setting.
+     * @return The updated rules.
+     */
+    public Rules withDoubleAfterSplit(boolean value) {
+        return new Rules(dealerHitsSoft17, value, surrender, dealerPeeks, blackjackPayout, maxSplitHands, decks);
+    }
+
+    /**
+     * @brief Returns a copy allowing late surrender on the first two cards, or forbidding surrender.
+     *
+     * @param value The new setting.
+     * @return The updated rules.
+     */
+    public Rules withSurrender(boolean value) {
+        return withSurrender(value ? Surrender.LATE : Surrender.NONE);
+    }
+
+    /**
+     * @brief Returns a copy with a different surrender rule.
+     *
+     * @param value The new setting.
+     * @return The updated rules.
+     */
+    public Rules withSurrender(Surrender value) {
+        return new Rules(dealerHitsSoft17, doubleAfterSplit, Objects.requireNonNull(value), dealerPeeks,
+                blackjackPayout, maxSplitHands, decks);
+    }
+
+    /**
+     * @brief Returns a copy where the dealer checks (true) or does not check (false) for blackjack before the player acts.
+     *
+     * @param value The new setting.
+     * @return The updated rules.
+     */
+    public Rules withDealerPeeks(boolean value) {
+        return new Rules(dealerHitsSoft17, doubleAfterSplit, surrender, value, blackjackPayout, maxSplitHands, decks);
+    }
+
+    /**
+     * @brief Returns a copy with a different blackjack payout (1.5 for 3:2, 1.2 for 6:5).
+     *
+     * @param value The new payout, in units of the bet.
+     * @return The updated rules.
+     * @throws IllegalArgumentException If the payout is not positive.
+     */
+    public Rules withBlackjackPayout(double value) {
+        if (!(value > 0)) {
+            throw new IllegalArgumentException("Blackjack payout must be positive");
+        }
+        return new Rules(dealerHitsSoft17, doubleAfterSplit, surrender, dealerPeeks, value, maxSplitHands, decks);
+    }
+
+    /**
+     * @brief Returns a copy with a different limit on split hands (2 forbids resplitting).
+     *
+     * @param value The largest number of hands a pair can be split into, from 2 to MAX_SPLIT_HANDS.
+     * @return The updated rules.
+     * @throws IllegalArgumentException If the limit is out of range.
+     */
+    public Rules withMaxSplitHands(int value) {
+        if (value < 2 || value > MAX_SPLIT_HANDS) {
+            throw new IllegalArgumentException("Split hands must be between 2 and " + MAX_SPLIT_HANDS);
+        }
+        return new Rules(dealerHitsSoft17, doubleAfterSplit, surrender, dealerPeeks, blackjackPayout, value, decks);
+    }
+
+    /**
+     * @brief Returns a copy with a different number of decks in the shoe.
+     *
+     * @param value The number of decks, from 1 to Shoe.MAX_DECKS.
+     * @return The updated rules.
+     * @throws IllegalArgumentException If the number of decks is out of range.
+     */
+    public Rules withDecks(int value) {
+        if (value < 1 || value > Shoe.MAX_DECKS) {
+            throw new IllegalArgumentException("Decks must be between 1 and " + Shoe.MAX_DECKS);
+        }
+        return new Rules(dealerHitsSoft17, doubleAfterSplit, surrender, dealerPeeks, blackjackPayout, maxSplitHands,
+                value);
+    }
+
+    /**
+     * @brief Returns true if the dealer hits soft 17.
+     *
+     * @return The setting.
+     */
+    public boolean dealerHitsSoft17() {
+        return dealerHitsSoft17;
+    }
+
+    /**
+     * @brief Returns true if doubling after a split is allowed.
+     *
+     * @return The setting.
+     */
+    public boolean doubleAfterSplit() {
+        return doubleAfterSplit;
+    }
+
+    /**
+     * @brief Returns true if surrender, late or early, is allowed.
+     *
+     * @return The setting.
+     */
+    public boolean surrender() {
+        return surrender != Surrender.NONE;
+    }
+
+    /**
+     * @brief Returns the surrender rule.
+     *
+     * @return The setting.
+     */
+    public Surrender surrenderRule() {
+        return surrender;
+    }
+
+    /**
+     * @brief Returns true if the dealer checks for blackjack before the player acts.
+     *
+     * @return The setting.
+     */
+    public boolean dealerPeeks() {
+        return dealerPeeks;
+    }
+
+    /**
+     * @brief Returns the blackjack payout in units of the bet.
+     *
+     * @return The payout.
+     */
+    public double blackjackPayout() {
+        return blackjackPayout;
+    }
+
+    /**
+     * @brief Returns the largest number of hands a pair can be split into; 2 means no resplit.
+     *
+     * @return The setting.
+     */
+    public int maxSplitHands() {
+        return maxSplitHands;
+    }
+
+    /**
+     * @brief Returns the number of decks in the shoe.
+     *
+     * @return The setting.
+     */
+    public int decks() {
+        return decks;
+    }
+
+    /**
+     * @brief Returns a fresh shoe with the number of decks of these rules.
+     *
+     * @return The shoe.
+     */
+    public Shoe newShoe() {
+        return Shoe.ofDecks(decks);
+    }
+
+    /**
+     * @brief Returns the description of every setting but the number of decks, which identifies the games a
+     *        precomputed table covering several deck counts can serve.
+     *
+     * @return The description.
+     */
+    String playKey() {
+        return (dealerHitsSoft17 ? "H17" : "S17")
+                + (doubleAfterSplit ? " DAS" : " NDAS")
+                + switch (surrender) {
+                    case NONE -> " NS";
+                    case LATE -> " LS";
+                    case EARLY -> " ES";
+                }
+                + (dealerPeeks ? " PEEK" : " ENHC")
+                + " BJ" + blackjackPayout
+                + " SP" + maxSplitHands;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof Rules rules && dealerHitsSoft17 == rules.dealerHitsSoft17
+                && doubleAfterSplit == rules.doubleAfterSplit && surrender == rules.surrender
+                && dealerPeeks == rules.dealerPeeks && blackjackPayout == rules.blackjackPayout
+                && maxSplitHands == rules.maxSplitHands && decks == rules.decks;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(dealerHitsSoft17, doubleAfterSplit, surrender, dealerPeeks, blackjackPayout, maxSplitHands,
+                decks);
+    }
+
+    @Override
+    public String toString() {
+        return playKey() + " " + decks + "D";
+    }
+}
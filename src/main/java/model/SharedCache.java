@@ -0,0 +1,105 @@
+package model;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * @brief Thread-safe cache of fixed-width probability vectors, shared by solvers running in parallel.
+ * @details The entries are spread over a fixed set of DealerCache stripes chosen from the key, each guarded by
+ *          its own lock, so threads working on different shoes rarely contend. Meant as a second level behind
+ *          a solver's private cache: a lookup costs a lock, which is only worth it for results that are
+ *          expensive to recompute.
+ */
+final class SharedCache implements ResultCache {
+    private static final int STRIPES = 64;
+
+    private final DealerCache[] stripes = new DealerCache[STRIPES];
+    private final ReentrantLock[] locks = new ReentrantLock[STRIPES];
+
+    /**
+     * @brief Creates a cache able to hold the given number of entries.
+     *
+     * @param capacityLog2 The base-2 logarithm of the total number of slots, at least 7.
+     * @param width The number of values stored per entry.
+     */
+    SharedCache(int capacityLog2, int width) {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new DealerCache(capacityLog2 - 6, width);
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * @brief Copies the cached values for the given key into the destination array.
+     *
+     * @param key The packed shoe composition.
+     * @param state The hand state code (must be positive).
+     * @param dest The array receiving the values.
+     * @return True if the entry was found, false otherwise.
+     */
+    @Override
+    public boolean get(long key, int state, double[] dest) {
+        int stripe = stripeOf(key, state);
+        ReentrantLock lock = locks[stripe];
+        lock.lock();
+        try {
+            return stripes[stripe].get(key, state, dest);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @brief Stores a vector of values, pruning its stripe first if the stripe is full.
+     *
+     * @param key The packed shoe composition.
+     * @param state The hand state code (must be positive).
+     * @param values The values to store.
+     */
+    @Override
+    public void put(long key, int state, double[] values) {
+        int stripe = stripeOf(key, state);
+        ReentrantLock lock = locks[stripe];
+        lock.lock();
+        try {
+            stripes[stripe].put(key, state, values);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @brief Sets the composition every future query fits within, see DealerCache.retainWithin().
+     *
+     * @param shoeKey The packed composition of the live shoe, or DealerCache.NO_BOUND.
+     */
+    void retainWithin(long shoeKey) {
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i].lock();
+            try {
+                stripes[i].retainWithin(shoeKey);
+            } finally {
+                locks[i].unlock();
+            }
+        }
+    }
+
+    /**
+     * @brief Removes every entry from the cache.
+     */
+    void clear() {
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i].lock();
+            try {
+                stripes[i].clear();
+            } finally {
+                locks[i].unlock();
+            }
+        }
+    }
+
+    private static int stripeOf(long key, int state) {
+        // Upper bits of a multiplicative hash, independent of the low bits the stripe uses for its slots
+        long h = (key + state) * 0x9E3779B97F4A7C15L;
+        return (int) (h >>> 58);
+    }
+}
@@ -0,0 +1,216 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * @brief Remaining composition of the shoe, backed by a primitive count per rank.
+ * @details Ranks go from 1 (ace) to 10 (ten-valued cards). Alongside the counts the shoe keeps the
+ *          running total, the number of cards at or above each rank and a packed composition key, all updated
+ *          by draw() and undo() in at most one step per rank, so recursive engines can explore the shoe without
+ *          allocating and bust probabilities cost a single lookup.
+ */
+public final class Shoe {
+    /** Number of distinct card ranks. */
+    public static final int RANKS = 10;
+    /** Largest number of decks whose composition still fits in a packed key. */
+    public static final int MAX_DECKS = 15;
+
+    // Bit offsets of each rank count inside the packed key (tens get 8 bits, the rest 6)
+    private static final int[] SHIFT = {0, 6, 12, 18, 24, 30, 36, 42, 48, 54};
+    private static final int[] LIMIT = {63, 63, 63, 63, 63, 63, 63, 63, 63, 255};
+
+    private final int[] counts = new int[RANKS];
+    // Number of cards of each rank or above, indexed by rank - 1; the first entry is the total
+    private final int[] atLeast = new int[RANKS];
+    private int total;
+    private long key;
+
+    /**
+     * @brief Creates a shoe from explicit rank counts.
+     *
+     * @param rankCounts The count of each rank, indexed from 0 (ace) to 9 (ten-valued cards).
+     * @throws IllegalArgumentException If a count is negative or too large to be packed.
+     */
+    public Shoe(int[] rankCounts) {
+        if (rankCounts.length != RANKS) {
+            throw new IllegalArgumentException("Expected " + RANKS + " rank counts");
+        }
+        for (int i = 0; i < RANKS; i++) {
+            if (rankCounts[i] < 0 || rankCounts[i] > LIMIT[i]) {
+                throw new IllegalArgumentException("Invalid count " + rankCounts[i] + " for rank " + (i + 1));
+            }
+            counts[i] = rankCounts[i];
+            total += rankCounts[i];
+            key |= (long) rankCounts[i] << SHIFT[i];
+        }
+        for (int i = RANKS - 1, sum = 0; i >= 0; i--) {
+            sum += counts[i];
+            atLeast[i] = sum;
+        }
+    }
+
+    private Shoe(Shoe other) {
+        System.arraycopy(other.counts, 0, counts, 0, RANKS);
+        System.arraycopy(other.atLeast, 0, atLeast, 0, RANKS);
+        total = other.total;
+        key = other.key;
+    }
+
+    /**
+     * @brief Creates a full shoe made of the given number of 52-card decks.
+     *
+     * @param decks The number of decks, between 1 and MAX_DECKS.
+     * @return The new shoe.
+     * @throws IllegalArgumentException If the number of decks is out of range.
+     */
+    public static Shoe ofDecks(int decks) {
+        if (decks < 1 || decks > MAX_DECKS) {
+            throw new IllegalArgumentException("Decks must be between 1 and " + MAX_DECKS);
+        }
+        int[] rankCounts = new int[RANKS];
+        Arrays.fill(rankCounts, 4 * decks);
+        rankCounts[9] = 16 * decks;
+        return new Shoe(rankCounts);
+    }
+
+    /**
+     * @brief Returns the remaining count of a rank.
+     *
+     * @param rank The rank, from 1 (ace) to 10.
+     * @return The number of remaining cards of that rank.
+     */
+    public int count(int rank) {
+        return counts[rank - 1];
+    }
+
+    /**
+     * @brief Returns the number of remaining cards of a rank or above, such as the cards that bust a hand.
+     *
+     * @param rank The lowest rank counted, from 1 (ace) to 10; values above 10 count nothing.
+     * @return The number of remaining cards of that rank or above.
+     */
+    public int countAtLeast(int rank) {
+        return rank <= RANKS ? atLeast[Math.max(rank, 1) - 1] : 0;
+    }
+
+    /**
+     * @brief Returns the total number of remaining cards.
+     *
+     * @return The number of remaining cards.
+     */
+    public int total() {
+        return total;
+    }
+
+    /**
+     * @brief Returns the probability that the next card has the given rank.
+     *
+     * @param rank The rank, from 1 (ace) to 10.
+     * @return The probability, or 0 if the shoe is empty.
+     */
+    public double probability(int rank) {
+        return total > 0 ? (double) counts[rank - 1] / total : 0.0;
+    }
+
+    /**
+     * @brief Removes one card of the given rank. The caller must ensure the rank is not exhausted.
+     *
+     * @param rank The rank, from 1 (ace) to 10.
+     */
+    public void draw(int rank) {
+        counts[rank - 1]--;
+        for (int i = 0; i < rank; i++) {
+            atLeast[i]--;
+        }
+        total--;
+        key -= 1L << SHIFT[rank - 1];
+    }
+
+    /**
+     * @brief Puts back one card of the given rank, reverting a previous draw().
+     *
+     * @param rank The rank, from 1 (ace) to 10.
+     */
+    public void undo(int rank) {
+        counts[rank - 1]++;
+        for (int i = 0; i < rank; i++) {
+            atLeast[i]++;
+        }
+        total++;
+        key += 1L << SHIFT[rank - 1];
+    }
+
+    /**
+     * @brief Removes one card of the given rank if any is left.
+     *
+     * @param rank The rank, from 1 (ace) to 10.
+     * @return True if a card was removed, false if the rank was exhausted.
+     */
+    public boolean remove(int rank) {
+        if (counts[rank - 1] == 0) {
+            return false;
+        }
+        draw(rank);
+        return true;
+    }
+
+    /**
+     * @brief Returns the packed composition key, an immutable snapshot of the rank counts.
+     *
+     * @return The key.
+     */
+    public long key() {
+        return key;
+    }
+
+    /**
+     * @brief Returns true if a composition can still be drawn from another one, that is if it holds no more cards
+     *        of any rank.
+     *
+     * @param key The packed composition tested.
+     * @param bound The packed composition it must fit within.
+     * @return True if every rank count of key is at most that of bound.
+     */
+    static boolean fitsWithin(long key, long bound) {
+        for (int i = 0; i < RANKS; i++) {
+            long field = (long) LIMIT[i] << SHIFT[i];
+            if ((key & field) > (bound & field)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @brief Returns an independent copy of this shoe.
+     *
+     * @return The copy.
+     */
+    public Shoe copy() {
+        return new Shoe(this);
+    }
+
+    /**
+     * @brief Returns a copy of the rank counts.
+     *
+     * @return The counts, indexed from 0 (ace) to 9 (ten-valued cards).
+     */
+    public int[] toArray() {
+        return counts.clone();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof Shoe other && other.key == key;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(key);
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(counts);
+    }
+}
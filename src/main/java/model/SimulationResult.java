@@ -0,0 +1,153 @@
+package model;
+
+import java.util.Locale;
+
+/**
+ * @brief Aggregated outcome of a Monte Carlo simulation.
+ * @details Confidence intervals use the normal approximation at the 95% level.
+ */
+public final class SimulationResult {
+    private static final double Z_95 = 1.959963984540054;
+
+    private final long rounds;
+    private final long wins;
+    private final long pushes;
+    private final long losses;
+    private final long voidRounds;
+    private final double netSum;
+    private final double netSquaredSum;
+    private final long elapsedNanos;
+
+    /**
+     * @brief Creates a result from raw accumulator values.
+     *
+     * @param rounds The number of completed rounds.
+     * @param wins The number of rounds with a positive net result.
+     * @param pushes The number of rounds with a zero net result.
+     * @param losses The number of rounds with a negative net result.
+     * @param voidRounds The number of rounds abandoned because the shoe ran out of cards.
+     * @param netSum The sum of the net results, in units of the initial bet.
+     * @param netSquaredSum The sum of the squared net results.
+     * @param elapsedNanos The wall time of the simulation.
+     */
+    public SimulationResult(long rounds, long wins, long pushes, long losses, long voidRounds,
+                            double netSum, double netSquaredSum, long elapsedNanos) {
+        this.rounds = rounds;
+        this.wins = wins;
+        this.pushes = pushes;
+        this.losses = losses;
+        this.voidRounds = voidRounds;
+        this.netSum = netSum;
+        this.netSquaredSum = netSquaredSum;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * @brief Returns the number of completed rounds.
+     *
+     * @return The number of rounds.
+     */
+    public long rounds() {
+        return rounds;
+    }
+
+    /**
+     * @brief Returns the number of rounds abandoned because the shoe ran out of cards.
+     *
+     * @return The number of void rounds.
+     */
+    public long voidRounds() {
+        return voidRounds;
+    }
+
+    /**
+     * @brief Returns the fraction of rounds with a positive net result.
+     *
+     * @return The win rate.
+     */
+    public double winRate() {
+        return rate(wins);
+    }
+
+    /**
+     * @brief Returns the fraction of rounds with a zero net result.
+     *
+     * @return The push rate.
+     */
+    public double pushRate() {
+        return rate(pushes);
+    }
+
+    /**
+     * @brief Returns the fraction of rounds with a negative net result.
+     *
+     * @return The loss rate.
+     */
+    public double lossRate() {
+        return rate(losses);
+    }
+
+    /**
+     * @brief Returns the mean net result per round, in units of the initial bet.
+     *
+     * @return The expected value estimate.
+     */
+    public double ev() {
+        return rounds > 0 ? netSum / rounds : 0.0;
+    }
+
+    /**
+     * @brief Returns the standard deviation of the net result of a single round.
+     *
+     * @return The standard deviation.
+     */
+    public double standardDeviation() {
+        if (rounds < 2) {
+            return 0.0;
+        }
+        double mean = ev();
+        double variance = (netSquaredSum - rounds * mean * mean) / (rounds - 1);
+        return Math.sqrt(Math.max(0.0, variance));
+    }
+
+    /**
+     * @brief Returns the half-width of the 95% confidence interval on the expected value.
+     *
+     * @return The margin of error.
+     */
+    public double evMargin() {
+        return rounds > 0 ? Z_95 * standardDeviation() / Math.sqrt(rounds) : 0.0;
+    }
+
+    /**
+     * @brief Returns the half-width of the 95% confidence interval on a rate (win, push or loss).
+     *
+     * @param rate The estimated rate.
+     * @return The margin of error.
+     */
+    public double rateMargin(double rate) {
+        return rounds > 0 ? Z_95 * Math.sqrt(rate * (1 - rate) / rounds) : 0.0;
+    }
+
+    /**
+     * @brief Returns the simulation throughput.
+     *
+     * @return The number of rounds simulated per second of wall time.
+     */
+    public double roundsPerSecond() {
+        return elapsedNanos > 0 ? (rounds + voidRounds) * 1e9 / elapsedNanos : 0.0;
+    }
+
+    private double rate(long count) {
+        return rounds > 0 ? (double) count / rounds : 0.0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT,
+                "rounds=%d win=%.4f +/- %.4f push=%.4f +/- %.4f loss=%.4f +/- %.4f ev=%.5f +/- %.5f sd=%.4f void=%d rounds/s=%.0f",
+                rounds, winRate(), rateMargin(winRate()), pushRate(), rateMargin(pushRate()),
+                lossRate(), rateMargin(lossRate()), ev(), evMargin(), standardDeviation(), voidRounds,
+                roundsPerSecond());
+    }
+}
@@ -0,0 +1,82 @@
+package model;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * @brief Pool of idle solvers for tasks running in parallel, all backed by the same shared memo tables.
+ * @details Every solver keeps its private memo tables and is backed by a second level shared by all of them, so
+ *          tasks working on nearby shoes reuse each other's dealer distributions and player values. The solvers
+ *          and the shared tables are kept between batches, so a batch on a shoe with one more card drawn reuses
+ *          most of the previous one.
+ */
+final class SolverPool {
+    private final Rules rules;
+    private final SharedCache sharedDealerCache = new SharedCache(19, DealerHandTable.WIDTH);
+    private final SharedCache sharedPlayerCache = new SharedCache(21, 1);
+    // Idle solvers, each used by one task at a time
+    private final ConcurrentLinkedQueue<StrategySolver> solvers = new ConcurrentLinkedQueue<>();
+    // Composition of the shoe of the current batch, handed to each solver as it is taken
+    private volatile long bound = DealerCache.NO_BOUND;
+
+    /**
+     * @brief Creates an empty pool.
+     *
+     * @param rules The rules of the solvers.
+     */
+    SolverPool(Rules rules) {
+        this.rules = rules;
+    }
+
+    /**
+     * @brief Runs some work on an idle solver and adds its search statistics to the batch's.
+     *
+     * @param work The work, given exclusive use of the solver.
+     * @param cancelled The batch's cancellation flag, which stops the solver once set.
+     * @param nodes The batch's count of nodes visited.
+     * @param hits The batch's count of cache hits.
+     * @return The result of the work.
+     * @throws java.util.concurrent.CancellationException If the flag is set or the thread interrupted during
+     *         the work.
+     */
+    <T> T apply(Function<StrategySolver, T> work, AtomicBoolean cancelled, LongAdder nodes, LongAdder hits) {
+        StrategySolver solver = solvers.poll();
+        if (solver == null) {
+            solver = new StrategySolver(rules, sharedDealerCache, sharedPlayerCache);
+        }
+        solver.retainWithin(bound);
+        solver.cancelWith(cancelled);
+        long solverNodes = solver.nodesVisited(), solverHits = solver.cacheHits();
+        try {
+            return work.apply(solver);
+        } finally {
+            solver.cancelWith(null);
+            nodes.add(solver.nodesVisited() - solverNodes);
+            hits.add(solver.cacheHits() - solverHits);
+            solvers.offer(solver);
+        }
+    }
+
+    /**
+     * @brief Tells the pool that the next batches work on a shoe or on shoes drawn from it, so that full memo
+     *        tables evict the results of compositions that can no longer occur rather than all of them.
+     *
+     * @param shoe The shoe of the batch.
+     */
+    void retainWithin(Shoe shoe) {
+        bound = shoe.key();
+        sharedDealerCache.retainWithin(bound);
+        sharedPlayerCache.retainWithin(bound);
+    }
+
+    /**
+     * @brief Drops every memo table, those of the idle solvers included.
+     */
+    void clear() {
+        solvers.clear();
+        sharedDealerCache.clear();
+        sharedPlayerCache.clear();
+    }
+}
@@ -0,0 +1,159 @@
+package model;
+
+import java.util.Locale;
+
+/**
+ * @brief Immutable composition-dependent strategy chart: the expected value of each action for every two-card
+ *        hand against every dealer up-card, for one shoe.
+ * @details Rows are the hard totals 4 to 20, the soft totals 13 to 20 (ace and 2 to ace and 9) and the pairs of
+ *          aces to tens. A hard row averages the two-card hands of that total over their probability of being
+ *          dealt, pairs included but played without splitting, so it holds the best play for the total rather
+ *          than for one particular hand. Values are in units of the initial bet, as returned by
+ *          StrategySolver.solve().
+ */
+public final class StrategyChart {
+    /** Lowest and highest hard totals. */
+    public static final int HARD_MIN = 4, HARD_MAX = 20;
+    /** Lowest and highest soft totals. */
+    public static final int SOFT_MIN = 13, SOFT_MAX = 20;
+
+    static final int HARD_ROWS = HARD_MAX - HARD_MIN + 1;
+    static final int SOFT_ROWS = SOFT_MAX - SOFT_MIN + 1;
+    static final int PAIR_ROWS = 10;
+
+    private final Rules rules;
+    private final ActionValues[][] hard, soft, pairs;
+
+    /**
+     * @brief Creates a chart. The arrays are not copied and must not be modified afterwards.
+     *
+     * @param rules The rules the chart was computed for.
+     * @param hard The hard rows, indexed by [total - HARD_MIN][up-card - 1], null where no hand can be dealt.
+     * @param soft The soft rows, indexed by [total - SOFT_MIN][up-card - 1].
+     * @param pairs The pair rows, indexed by [rank - 1][up-card - 1].
+     */
+    StrategyChart(Rules rules, ActionValues[][] hard, ActionValues[][] soft, ActionValues[][] pairs) {
+        this.rules = rules;
+        this.hard = hard;
+        this.soft = soft;
+        this.pairs = pairs;
+    }
+
+    /**
+     * @brief Returns the action values of a hard total.
+     *
+     * @param total The total, from HARD_MIN to HARD_MAX.
+     * @param upCard The dealer's up-card, from 1 (ace) to 10.
+     * @return The values, or null if no hand of that total can be dealt from the shoe.
+     */
+    public ActionValues hard(int total, int upCard) {
+        return hard[total - HARD_MIN][upCard - 1];
+    }
+
+    /**
+     * @brief Returns the action values of a soft total.
+     *
+     * @param total The total, from SOFT_MIN to SOFT_MAX.
+     * @param upCard The dealer's up-card, from 1 (ace) to 10.
+     * @return The values, or null if the hand cannot be dealt from the shoe.
+     */
+    public ActionValues soft(int total, int upCard) {
+        return soft[total - SOFT_MIN][upCard - 1];
+    }
+
+    /**
+     * @brief Returns the action values of a pair.
+     *
+     * @param rank The rank of the pair, from 1 (aces) to 10.
+     * @param upCard The dealer's up-card, from 1 (ace) to 10.
+     * @return The values, or null if the pair cannot be dealt from the shoe.
+     */
+    public ActionValues pair(int rank, int upCard) {
+        return pairs[rank - 1][upCard - 1];
+    }
+
+    /**
+     * @brief Counts the cells whose best action differs from basic strategy.
+     *
+     * @return The number of deviations.
+     */
+    public int deviations() {
+        int deviations = 0;
+        for (int upCard = 1; upCard <= 10; upCard++) {
+            for (int total = HARD_MIN; total <= HARD_MAX; total++) {
+                if (isDeviation(hard(total, upCard), total, false, 0, upCard)) deviations++;
+            }
+            for (int total = SOFT_MIN; total <= SOFT_MAX; total++) {
+                if (isDeviation(soft(total, upCard), total - 10, true, 0, upCard)) deviations++;
+            }
+            for (int rank = 1; rank <= 10; rank++) {
+                if (isDeviation(pair(rank, upCard), rank == 1 ? 2 : 2 * rank, rank == 1, rank, upCard)) deviations++;
+            }
+        }
+        return deviations;
+    }
+
+    /**
+     * @brief Formats the chart with one letter per cell: H hit, S stand, D double, P split, R surrender, '-' for
+     *        hands that cannot be dealt. Cells deviating from basic strategy are marked with '*'.
+     *
+     * @return The chart text, with the up-cards 2 to 10 and ace as columns.
+     */
+    @Override
+    public String toString() {
+        StringBuilder out = new StringBuilder(2048);
+        out.append(rules.playKey()).append('\n');
+        out.append(String.format(Locale.ROOT, "%-6s", ""));
+        for (int column = 0; column < 10; column++) {
+            out.append(String.format(Locale.ROOT, " %-2s", column == 9 ? "A" : String.valueOf(column + 2)));
+        }
+        out.append('\n');
+        for (int total = HARD_MIN; total <= HARD_MAX; total++) {
+            appendRow(out, String.valueOf(total), total, false, 0);
+        }
+        for (int total = SOFT_MIN; total <= SOFT_MAX; total++) {
+            appendRow(out, "A," + (total - 11), total - 10, true, 0);
+        }
+        for (int rank = 1; rank <= 10; rank++) {
+            String card = rank == 1 ? "A" : String.valueOf(rank);
+            appendRow(out, card + "," + card, rank == 1 ? 2 : 2 * rank, rank == 1, rank);
+        }
+        return out.toString();
+    }
+
+    private void appendRow(StringBuilder out, String label, int hardTotal, boolean ace, int pairRank) {
+        out.append(String.format(Locale.ROOT, "%-6s", label));
+        for (int column = 0; column < 10; column++) {
+            int upCard = column == 9 ? 1 : column + 2;
+            ActionValues values = pairRank > 0 ? pair(pairRank, upCard)
+                    : ace ? soft(hardTotal + 10, upCard) : hard(hardTotal, upCard);
+            if (values == null) {
+                out.append("  -");
+                continue;
+            }
+            out.append(' ').append(code(values.best()));
+            out.append(isDeviation(values, hardTotal, ace, pairRank, upCard) ? '*' : ' ');
+        }
+        out.append('\n');
+    }
+
+    private boolean isDeviation(ActionValues values, int hardTotal, boolean ace, int pairRank, int upCard) {
+        return values != null
+                && values.best() != BasicStrategy.decide(hardTotal, ace, pairRank, true, true, upCard, rules);
+    }
+
+    private static char code(Action action) {
+        switch (action) {
+            case STAND:
+                return 'S';
+            case DOUBLE:
+                return 'D';
+            case SPLIT:
+                return 'P';
+            case SURRENDER:
+                return 'R';
+            default:
+                return 'H';
+        }
+    }
+}
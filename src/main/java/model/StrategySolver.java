@@ -0,0 +1,525 @@
+package model;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * @brief Composition-dependent expected value solver for the player's decision.
+ * @details Computes the exact expected value of standing, hitting (with optimal play afterwards) and doubling
+ *          against the dealer's up-card, using the remaining shoe, under a fixed set of table rules. Without a
+ *          peek, the hole card is drawn after the player acts and a dealer blackjack takes every bet, doubled or
+ *          split ones included; with a peek, every value is conditioned on the dealer not holding a blackjack.
+ *          Early surrender is taken before the peek and saves half the bet even against a blackjack, so under a
+ *          peek its value is stated on that conditional scale: the value v with (1 - pBJ) v - pBJ = -0.5.
+ *          Split hands are evaluated as independent hands, with a double on the first decision if the rules allow
+ *          it and resplits up to the rules' limit; split aces receive a single card. The hands a resplit may
+ *          still create are shared between the two hands of each split, so no line of play exceeds the limit.
+ *
+ *          Every rule is resolved when the solver is built (dealer tables, payout, surrender value), so the
+ *          recursion does not test any setting. Dealer distributions come from the precomputed dealer hand tables
+ *          and, like the player's sub-results, are memoized on the shoe composition. Solvers running in
+ *          parallel on related shoes can also share a second level of memo tables. This class is not
+ *          thread-safe.
+ *
+ *          A computation stops early, throwing a CancellationException, once its thread is interrupted or the
+ *          batch it belongs to is cancelled; both are tested every few hundred sub-results. Only complete
+ *          sub-results are memoized, so the solver stays usable, but the shoe of the call is left partly drawn.
+ */
+public class StrategySolver {
+    private static final int DEALER_WIDTH = DealerHandTable.WIDTH;
+    private static final int DEALER_BLACKJACK = DealerHandTable.BLACKJACK;
+    // Smaller shoes may run out of cards during a round, which the exact values do not model
+    private static final int MIN_ROUND_CARDS = 20;
+    // The interrupt flag is tested when the number of nodes visited is a multiple of this
+    private static final long INTERRUPT_CHECK_MASK = (1 << 8) - 1;
+
+    private final Rules rules;
+    private final DealerHandTable[] dealerTables;
+    private final double blackjackPayout;
+    private final boolean surrenderAllowed;
+    // Extra loss per unit of dealer blackjack probability: late surrender without a peek loses the whole bet
+    private final double surrenderBlackjackLoss;
+    // Early surrender before a peek: the surrender value depends on the probability of a dealer blackjack
+    private final boolean surrenderBeforePeek;
+    private final boolean doubleAfterSplit;
+    private final int maxSplitHands;
+
+    private final DealerCache dealerCache = new DealerCache(16, DEALER_WIDTH);
+    private final DealerCache playerCache = new DealerCache(18, 1);
+    // Second level shared with other solvers or processes, or null
+    private final ResultCache sharedDealerCache, sharedPlayerCache;
+    private final double[] dealerScratch = new double[DEALER_WIDTH];
+    private final double[] valueScratch = new double[1];
+    private int upCard;
+    // Cancellation flag of the batch the solver works for, or null
+    private AtomicBoolean cancelled;
+    // Search statistics since creation, read by the metrics around each solve
+    private long nodes, hits;
+
+    /**
+     * @brief Creates a solver for the standard rules.
+     */
+    public StrategySolver() {
+        this(Rules.standard());
+    }
+
+    /**
+     * @brief Creates a solver for a set of rules.
+     *
+     * @param rules The table rules; the number of decks is given by the shoe of each call.
+     */
+    public StrategySolver(Rules rules) {
+        this(rules, null, null);
+    }
+
+    /**
+     * @brief Creates a solver backed by memo tables shared with other solvers of the same rules, in this process
+     *        or others.
+     *
+     * @param rules The table rules.
+     * @param sharedDealerCache The shared dealer distributions, of width DealerHandTable.WIDTH, or null.
+     * @param sharedPlayerCache The shared player values, of width 1, or null.
+     */
+    StrategySolver(Rules rules, ResultCache sharedDealerCache, ResultCache sharedPlayerCache) {
+        this.rules = rules;
+        this.sharedDealerCache = sharedDealerCache;
+        this.sharedPlayerCache = sharedPlayerCache;
+        dealerTables = DealerHandTable.forRules(rules);
+        blackjackPayout = rules.blackjackPayout();
+        surrenderAllowed = rules.surrender();
+        surrenderBlackjackLoss = rules.surrenderRule() == Rules.Surrender.LATE && !rules.dealerPeeks() ? 0.5 : 0.0;
+        surrenderBeforePeek = rules.surrenderRule() == Rules.Surrender.EARLY && rules.dealerPeeks();
+        doubleAfterSplit = rules.doubleAfterSplit();
+        maxSplitHands = rules.maxSplitHands();
+    }
+
+    /**
+     * @brief Returns the rules the solver was built for.
+     *
+     * @return The rules.
+     */
+    public Rules rules() {
+        return rules;
+    }
+
+    /**
+     * @brief Computes the expected value of every legal action for the player's hand.
+     * @details The shoe is used as scratch space during the computation and restored before returning.
+     *
+     * @param shoe The remaining cards, excluding the player's cards and the dealer's up-card.
+     * @param playerCards The cards in the player's hand (at least one).
+     * @param dealerUpCard The dealer's up-card, from 1 (ace) to 10.
+     * @return The expected value of each action, in units of the initial bet.
+     * @throws CancellationException If the calling thread is interrupted during the computation.
+     */
+    public ActionValues solve(Shoe shoe, List<Integer> playerCards, int dealerUpCard) {
+        upCard = dealerUpCard;
+
+        HandState hand = HandState.of(playerCards);
+        int hard = hand.hardTotal();
+        boolean ace = hand.hasAce();
+        int value = hand.value();
+        boolean initialHand = hand.cardCount() == 2;
+
+        double[] values = new double[Action.values().length];
+        Arrays.fill(values, Double.NaN);
+
+        if (value > 21) {
+            values[Action.STAND.ordinal()] = -1.0;
+            return new ActionValues(values);
+        }
+
+        boolean natural = hand.isBlackjack();
+        values[Action.STAND.ordinal()] = standEv(shoe, value, natural);
+        if (value < 21) {
+            values[Action.HIT.ordinal()] = hitEv(shoe, hard, ace);
+        }
+
+        if (initialHand && !natural) {
+            values[Action.DOUBLE.ordinal()] = doubleEv(shoe, hard, ace);
+            if (surrenderAllowed) {
+                values[Action.SURRENDER.ordinal()] = surrenderEv(shoe);
+            }
+
+            if (hand.pairRank() != 0) {
+                values[Action.SPLIT.ordinal()] = splitPairEv(shoe, hand.pairRank(), maxSplitHands - 2);
+            }
+        }
+
+        return new ActionValues(values);
+    }
+
+    /**
+     * @brief Computes the expected value of a whole round dealt from a shoe, playing every hand optimally.
+     * @details Averages the best action value of every two-card hand and up-card over their probability of being
+     *          dealt. With a peek, the dealer's blackjack is settled first and the hands are valued given that the
+     *          dealer does not hold one. The shoe is used as scratch space and restored before returning.
+     *
+     * @param shoe The cards the round is dealt from.
+     * @return The expected value in units of the initial bet, or NaN if the shoe has fewer than 20 cards.
+     * @throws CancellationException If the calling thread is interrupted during the computation.
+     */
+    public double roundEv(Shoe shoe) {
+        int totalCards = shoe.total();
+        if (totalCards < MIN_ROUND_CARDS) {
+            return Double.NaN;
+        }
+
+        boolean peeks = rules.dealerPeeks();
+        double invDeals = 1.0 / ((double) totalCards * (totalCards - 1) * (totalCards - 2));
+        double ev = 0.0;
+        for (int first = 1; first <= 10; first++) {
+            for (int second = first; second <= 10; second++) {
+                // Both orders of two different cards give the same hand
+                double ways = (double) shoe.count(first) * (shoe.count(second) - (first == second ? 1 : 0));
+                if (ways <= 0) continue;
+                if (first != second) {
+                    ways *= 2;
+                }
+
+                List<Integer> playerCards = List.of(first, second);
+                boolean natural = first + second == 11 && (first == 1 || second == 1);
+                shoe.draw(first);
+                shoe.draw(second);
+                for (int up = 1; up <= 10; up++) {
+                    int upCount = shoe.count(up);
+                    if (upCount == 0) continue;
+
+                    shoe.draw(up);
+                    double handEv = solve(shoe, playerCards, up).bestEv();
+                    // An early surrender's conditional value maps back to -0.5 here, so the hand is worth
+                    // max(-0.5, the other actions after the peek)
+                    if (peeks && (up == 1 || up == 10)) {
+                        double dealerBlackjack = (double) shoe.count(up == 1 ? 10 : 1) / shoe.total();
+                        handEv = (1.0 - dealerBlackjack) * handEv - (natural ? 0.0 : dealerBlackjack);
+                    }
+                    shoe.undo(up);
+                    ev += ways * upCount * invDeals * handEv;
+                }
+                shoe.undo(second);
+                shoe.undo(first);
+            }
+        }
+        return ev;
+    }
+
+    /**
+     * @brief Tells the solver that every future query is drawn from a shoe, so that its full memo tables evict the
+     *        results of compositions that can no longer occur rather than all of them. The shared tables are left
+     *        to their owner.
+     *
+     * @param shoe The live shoe; later queries must use it or a shoe drawn from it, others only cost misses.
+     */
+    public void retainWithin(Shoe shoe) {
+        retainWithin(shoe.key());
+    }
+
+    void retainWithin(long shoeKey) {
+        dealerCache.retainWithin(shoeKey);
+        playerCache.retainWithin(shoeKey);
+    }
+
+    /**
+     * @brief Returns the number of sub-results computed since the solver was created, each one a cache miss.
+     *
+     * @return The number of nodes visited.
+     */
+    public long nodesVisited() {
+        return nodes;
+    }
+
+    /**
+     * @brief Returns the number of sub-results found in the caches since the solver was created.
+     *
+     * @return The number of cache hits.
+     */
+    public long cacheHits() {
+        return hits;
+    }
+
+    /**
+     * @brief Makes the next computations stop once a flag is set, as well as when the thread is interrupted.
+     *
+     * @param flag The cancellation flag of a batch, or null for none.
+     */
+    void cancelWith(AtomicBoolean flag) {
+        cancelled = flag;
+    }
+
+    /**
+     * @brief Counts a sub-result about to be computed, stopping the computation if the thread is interrupted or
+     *        the batch cancelled.
+     */
+    private void visitNode() {
+        if ((++nodes & INTERRUPT_CHECK_MASK) == 0
+                && (Thread.currentThread().isInterrupted() || cancelled != null && cancelled.get())) {
+            throw new CancellationException("Solve interrupted");
+        }
+    }
+
+    /**
+     * @brief Computes the expected value of standing on a given value.
+     *
+     * @param shoe The remaining cards.
+     * @param value The player's hand value (at most 21).
+     * @param natural True if the player's hand is a two-card 21.
+     * @return The expected value of standing.
+     */
+    private double standEv(Shoe shoe, int value, boolean natural) {
+        double[] dealer = dealerScratch;
+        dealerDistribution(shoe, dealer);
+
+        if (natural) {
+            double notBlackjack = 0.0;
+            for (int i = 0; i < DEALER_BLACKJACK; i++) {
+                notBlackjack += dealer[i];
+            }
+            return blackjackPayout * notBlackjack;
+        }
+
+        double ev = dealer[DealerEngine.BUST] - dealer[DEALER_BLACKJACK];
+        for (int dealerValue = 17; dealerValue <= 21; dealerValue++) {
+            if (value > dealerValue) {
+                ev += dealer[dealerValue - 17];
+            } else if (value < dealerValue) {
+                ev -= dealer[dealerValue - 17];
+            }
+        }
+        return ev;
+    }
+
+    /**
+     * @brief Computes the expected value of surrendering.
+     *
+     * @param shoe The remaining cards.
+     * @return The expected value of surrendering.
+     */
+    private double surrenderEv(Shoe shoe) {
+        if (surrenderBeforePeek) {
+            int blackjackCards = upCard == 1 ? shoe.count(10) : upCard == 10 ? shoe.count(1) : 0;
+            double blackjack = shoe.total() > 0 ? (double) blackjackCards / shoe.total() : 0.0;
+            return blackjack < 1.0 ? (blackjack - 0.5) / (1.0 - blackjack) : -0.5;
+        }
+        if (surrenderBlackjackLoss == 0.0) {
+            return -0.5;
+        }
+        dealerDistribution(shoe, dealerScratch);
+        return -0.5 - surrenderBlackjackLoss * dealerScratch[DEALER_BLACKJACK];
+    }
+
+    /**
+     * @brief Computes the expected value of hitting once and then playing optimally.
+     *
+     * @param shoe The remaining cards.
+     * @param hard The player's total counting aces as 1.
+     * @param ace True if the player holds an ace.
+     * @return The expected value of hitting.
+     */
+    private double hitEv(Shoe shoe, int hard, boolean ace) {
+        int totalCards = shoe.total();
+        if (totalCards == 0) {
+            return standEv(shoe, HandState.value(hard, ace), false);
+        }
+
+        double ev = 0.0;
+        double invTotal = 1.0 / totalCards;
+        for (int rank = 1; rank <= 10; rank++) {
+            int count = shoe.count(rank);
+            if (count == 0) continue;
+
+            double cardProbability = count * invTotal;
+            int nextHard = hard + rank;
+            if (nextHard > 21) {
+                ev -= cardProbability;
+                continue;
+            }
+
+            shoe.draw(rank);
+            ev += cardProbability * bestEv(shoe, nextHard, ace || rank == 1);
+            shoe.undo(rank);
+        }
+        return ev;
+    }
+
+    /**
+     * @brief Computes the expected value of the best choice between hitting and standing.
+     *
+     * @param shoe The remaining cards.
+     * @param hard The player's total counting aces as 1 (at most 21).
+     * @param ace True if the player holds an ace.
+     * @return The expected value under optimal hit/stand play.
+     */
+    private double bestEv(Shoe shoe, int hard, boolean ace) {
+        int value = HandState.value(hard, ace);
+        if (value == 21) {
+            return standEv(shoe, value, false);
+        }
+
+        int state = ((upCard << 6) | (hard << 1) | (ace ? 1 : 0)) + 1;
+        long key = shoe.key();
+        if (playerCache.get(key, state, valueScratch)) {
+            hits++;
+            return valueScratch[0];
+        }
+        if (sharedPlayerCache != null && sharedPlayerCache.get(key, state, valueScratch)) {
+            hits++;
+            playerCache.put(key, state, valueScratch);
+            return valueScratch[0];
+        }
+        visitNode();
+
+        double best;
+        if (value < 17 && hard <= 11) {
+            // Standing below 17 only wins on a dealer bust, and the next card cannot bust the player:
+            // on average over that card hitting is never worse, so the stand branch can be pruned.
+            best = hitEv(shoe, hard, ace);
+        } else {
+            best = standEv(shoe, value, false);
+            // A hit can win at most one unit on the cards that do not bust: skip it when even that cannot beat standing
+            if (1.0 - 2.0 * bustProbability(shoe, hard) > best) {
+                best = Math.max(best, hitEv(shoe, hard, ace));
+            }
+        }
+        valueScratch[0] = best;
+        playerCache.put(key, state, valueScratch);
+        if (sharedPlayerCache != null) {
+            sharedPlayerCache.put(key, state, valueScratch);
+        }
+        return best;
+    }
+
+    /**
+     * @brief Computes the probability that the next card busts a hand.
+     *
+     * @param shoe The remaining cards.
+     * @param hard The hand's total counting aces as 1.
+     * @return The probability of busting on the next card.
+     */
+    private static double bustProbability(Shoe shoe, int hard) {
+        return shoe.total() > 0 ? (double) shoe.countAtLeast(22 - hard) / shoe.total() : 0.0;
+    }
+
+    /**
+     * @brief Computes the expected value of doubling the bet and drawing exactly one card.
+     *
+     * @param shoe The remaining cards.
+     * @param hard The player's total counting aces as 1.
+     * @param ace True if the player holds an ace.
+     * @return The expected value of doubling, in units of the initial bet.
+     */
+    private double doubleEv(Shoe shoe, int hard, boolean ace) {
+        int totalCards = shoe.total();
+        if (totalCards == 0) {
+            return Double.NaN;
+        }
+
+        double ev = 0.0;
+        double invTotal = 1.0 / totalCards;
+        for (int rank = 1; rank <= 10; rank++) {
+            int count = shoe.count(rank);
+            if (count == 0) continue;
+
+            double cardProbability = count * invTotal;
+            int nextHard = hard + rank;
+            if (nextHard > 21) {
+                ev -= cardProbability;
+                continue;
+            }
+
+            shoe.draw(rank);
+            ev += cardProbability * standEv(shoe, HandState.value(nextHard, ace || rank == 1), false);
+            shoe.undo(rank);
+        }
+        return 2 * ev;
+    }
+
+    /**
+     * @brief Computes the expected value of the two hands of a split.
+     * @details The extra hands are shared between them, the first one taking the odd one.
+     *
+     * @param shoe The remaining cards.
+     * @param card The rank of the split card.
+     * @param spare The number of hands the two split hands may still add by resplitting.
+     * @return The expected value of both split hands.
+     */
+    private double splitPairEv(Shoe shoe, int card, int spare) {
+        double first = splitHandEv(shoe, card, (spare + 1) / 2);
+        return spare % 2 == 0 ? 2 * first : first + splitHandEv(shoe, card, spare / 2);
+    }
+
+    /**
+     * @brief Computes the expected value of one hand after splitting a pair.
+     * @details Split aces receive a single card. The other split hands are ignored when drawing, and a resplit
+     *          hand is valued as two more independent hands sharing what is left of its spare hands.
+     *
+     * @param shoe The remaining cards.
+     * @param card The rank of the split card.
+     * @param spare The number of hands this hand may still add by resplitting.
+     * @return The expected value of one split hand.
+     */
+    private double splitHandEv(Shoe shoe, int card, int spare) {
+        int totalCards = shoe.total();
+        if (totalCards == 0) {
+            return Double.NaN;
+        }
+
+        double ev = 0.0;
+        double invTotal = 1.0 / totalCards;
+        for (int rank = 1; rank <= 10; rank++) {
+            int count = shoe.count(rank);
+            if (count == 0) continue;
+
+            double cardProbability = count * invTotal;
+            int hard = card + rank;
+            boolean ace = card == 1 || rank == 1;
+
+            shoe.draw(rank);
+            double handEv;
+            if (card == 1) {
+                handEv = standEv(shoe, HandState.value(hard, ace), false);
+            } else {
+                handEv = bestEv(shoe, hard, ace);
+                if (doubleAfterSplit) {
+                    double doubled = doubleEv(shoe, hard, ace);
+                    if (doubled > handEv) {
+                        handEv = doubled;
+                    }
+                }
+                if (rank == card && spare > 0) {
+                    handEv = Math.max(handEv, splitPairEv(shoe, card, spare - 1));
+                }
+            }
+            ev += cardProbability * handEv;
+            shoe.undo(rank);
+        }
+        return ev;
+    }
+
+    /**
+     * @brief Fills the dealer's final distribution, with blackjack separated from other 21s.
+     *
+     * @param shoe The remaining cards, from which the hole card is drawn.
+     * @param dest The array receiving 17, 18, 19, 20, 21, bust and blackjack probabilities.
+     */
+    private void dealerDistribution(Shoe shoe, double[] dest) {
+        long key = shoe.key();
+        if (dealerCache.get(key, upCard, dest)) {
+            hits++;
+            return;
+        }
+        if (sharedDealerCache != null && sharedDealerCache.get(key, upCard, dest)) {
+            hits++;
+            dealerCache.put(key, upCard, dest);
+            return;
+        }
+        visitNode();
+
+        dealerTables[upCard - 1].distribution(shoe, dest);
+        dealerCache.put(key, upCard, dest);
+        if (sharedDealerCache != null) {
+            sharedDealerCache.put(key, upCard, dest);
+        }
+    }
+}
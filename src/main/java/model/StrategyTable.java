@@ -0,0 +1,273 @@
+package model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * @brief Precomputed results for the first decision of a fresh shoe, stored in a memory-mapped file.
+ * @details For every supported deck count, two-card player hand and dealer up-card the table holds the expected
+ *          value of each action and the dealer's final distribution, computed on the fresh shoe minus those three
+ *          cards. A query is answered only when the shoe is exactly in that state; any other shoe returns a miss
+ *          and the caller computes the result live. A file serves the rules it was generated for, whatever the
+ *          number of decks; see covers().
+ *
+ *          File layout (big-endian): magic, format version, rules description (length and UTF-8 bytes), number of
+ *          deck counts, the deck counts, then for each deck count the 55 hands times 10 up-cards, each entry made
+ *          of the action values in Action order followed by the dealer outcomes.
+ */
+public final class StrategyTable {
+    private static final int MAGIC = 0x424A5354; // "BJST"
+    private static final int VERSION = 2;
+    private static final int ACTIONS = Action.values().length;
+    private static final int ENTRY_DOUBLES = ACTIONS + DealerEngine.OUTCOMES;
+    private static final int HANDS = 55;
+    private static final int DECK_DOUBLES = HANDS * 10 * ENTRY_DOUBLES;
+    private static final int[][] HAND_INDEX = new int[11][11];
+
+    /** System property naming the table file loaded by shared(). */
+    public static final String PATH_PROPERTY = "strategy.tables";
+    /** File loaded by shared() when the property is not set. */
+    public static final String DEFAULT_PATH = "strategy-tables.bin";
+
+    static {
+        int index = 0;
+        for (int first = 1; first <= 10; first++) {
+            for (int second = first; second <= 10; second++) {
+                HAND_INDEX[first][second] = HAND_INDEX[second][first] = index++;
+            }
+        }
+    }
+
+    private static volatile StrategyTable shared;
+    private static volatile boolean sharedLoaded;
+
+    private final ByteBuffer data;
+    private final int dataOffset;
+    private final String playKey;
+    // Position of each deck count's block, -1 for deck counts not in the file
+    private final int[] deckBlock = new int[Shoe.MAX_DECKS + 1];
+
+    private StrategyTable(ByteBuffer data) {
+        this.data = data;
+        if (data.getInt(0) != MAGIC || data.getInt(4) != VERSION) {
+            throw new IllegalArgumentException("Not a strategy table file");
+        }
+
+        int rulesLength = data.getInt(8);
+        byte[] rules = new byte[rulesLength];
+        data.get(12, rules);
+        playKey = new String(rules, StandardCharsets.UTF_8);
+
+        int position = 12 + rulesLength;
+        int deckCounts = data.getInt(position);
+        position += 4;
+        Arrays.fill(deckBlock, -1);
+        for (int i = 0; i < deckCounts; i++) {
+            int deckCount = data.getInt(position + 4 * i);
+            if (deckCount < 1 || deckCount > Shoe.MAX_DECKS) {
+                throw new IllegalArgumentException("Invalid deck count " + deckCount);
+            }
+            deckBlock[deckCount] = i;
+        }
+        dataOffset = position + 4 * deckCounts;
+
+        if (data.capacity() != dataOffset + (long) deckCounts * DECK_DOUBLES * Double.BYTES) {
+            throw new IllegalArgumentException("Truncated strategy table file");
+        }
+    }
+
+    /**
+     * @brief Memory-maps a table file.
+     *
+     * @param path The file written by generate().
+     * @return The table.
+     * @throws IOException If the file cannot be read.
+     * @throws IllegalArgumentException If the file is not a valid table.
+     */
+    public static StrategyTable open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return new StrategyTable(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * @brief Returns the table loaded from the file named by the strategy.tables property, or from
+     *        strategy-tables.bin in the working directory.
+     * @details The file is mapped once per process. A missing or invalid file disables the table.
+     *
+     * @return The table, or null if none is available.
+     */
+    public static StrategyTable shared() {
+        if (!sharedLoaded) {
+            synchronized (StrategyTable.class) {
+                if (!sharedLoaded) {
+                    Path path = Path.of(System.getProperty(PATH_PROPERTY, DEFAULT_PATH));
+                    if (Files.isRegularFile(path)) {
+                        try {
+                            shared = open(path);
+                        } catch (IOException | IllegalArgumentException e) {
+                            System.err.println("Ignoring strategy table " + path + ": " + e.getMessage());
+                        }
+                    }
+                    sharedLoaded = true;
+                }
+            }
+        }
+        return shared;
+    }
+
+    /**
+     * @brief Computes the tables for the standard rules and the given deck counts and writes them to a file.
+     *
+     * @param path The destination file, replaced if it exists.
+     * @param decks The deck counts to cover, each between 1 and Shoe.MAX_DECKS.
+     * @throws IOException If the file cannot be written.
+     */
+    public static void generate(Path path, int... decks) throws IOException {
+        generate(path, Rules.standard(), decks);
+    }
+
+    /**
+     * @brief Computes the tables for a set of rules and the given deck counts and writes them to a file.
+     *
+     * @param path The destination file, replaced if it exists.
+     * @param playRules The rules to solve; their number of decks is ignored.
+     * @param decks The deck counts to cover, each between 1 and Shoe.MAX_DECKS.
+     * @throws IOException If the file cannot be written.
+     */
+    public static void generate(Path path, Rules playRules, int... decks) throws IOException {
+        byte[] rules = playRules.playKey().getBytes(StandardCharsets.UTF_8);
+        int dataOffset = 16 + rules.length + 4 * decks.length;
+        ByteBuffer buffer = ByteBuffer.allocate(dataOffset + decks.length * DECK_DOUBLES * Double.BYTES);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(rules.length).put(rules).putInt(decks.length);
+        for (int deckCount : decks) {
+            buffer.putInt(deckCount);
+        }
+
+        StrategySolver solver = new StrategySolver(playRules);
+        DealerEngine dealerEngine = new DealerEngine(playRules);
+        double[] dealer = new double[DealerEngine.OUTCOMES];
+        for (int deckCount : decks) {
+            int blockOffset = buffer.position();
+            for (int first = 1; first <= 10; first++) {
+                for (int second = first; second <= 10; second++) {
+                    for (int upCard = 1; upCard <= 10; upCard++) {
+                        Shoe shoe = Shoe.ofDecks(deckCount);
+                        shoe.draw(first);
+                        shoe.draw(second);
+                        shoe.draw(upCard);
+
+                        ActionValues values = solver.solve(shoe, List.of(first, second), upCard);
+                        dealerEngine.outcome(shoe, upCard, upCard == 1, dealer);
+
+                        buffer.position(blockOffset + entryIndex(first, second, upCard) * Double.BYTES);
+                        for (Action action : Action.values()) {
+                            buffer.putDouble(values.ev(action));
+                        }
+                        for (double probability : dealer) {
+                            buffer.putDouble(probability);
+                        }
+                    }
+                }
+            }
+            buffer.position(blockOffset + DECK_DOUBLES * Double.BYTES);
+        }
+
+        Files.write(path, buffer.array());
+    }
+
+    /**
+     * @brief Returns true if the table was generated for the same rules, the number of decks aside.
+     *
+     * @param rules The rules of the game.
+     * @return True if the table's results apply to the game.
+     */
+    public boolean covers(Rules rules) {
+        return playKey.equals(rules.playKey());
+    }
+
+    /**
+     * @brief Looks up the action values of a two-card hand.
+     *
+     * @param shoe The remaining cards, excluding the player's cards and the dealer's up-card.
+     * @param playerCards The player's cards.
+     * @param upCard The dealer's up-card.
+     * @return The action values, or null if the shoe is not a fresh shoe minus these cards.
+     */
+    public ActionValues actionValues(Shoe shoe, List<Integer> playerCards, int upCard) {
+        int offset = entryOffset(shoe, playerCards, upCard);
+        if (offset < 0) {
+            return null;
+        }
+
+        double[] values = new double[ACTIONS];
+        for (int i = 0; i < ACTIONS; i++) {
+            values[i] = data.getDouble(offset + i * Double.BYTES);
+        }
+        return new ActionValues(values);
+    }
+
+    /**
+     * @brief Looks up the dealer's final distribution.
+     *
+     * @param shoe The remaining cards, excluding the player's cards and the dealer's up-card.
+     * @param playerCards The player's cards.
+     * @param upCard The dealer's up-card.
+     * @param dest The array receiving the probabilities of 17, 18, 19, 20, 21 and bust.
+     * @return True if the result was found, false if the shoe is not a fresh shoe minus these cards.
+     */
+    public boolean dealerOutcome(Shoe shoe, List<Integer> playerCards, int upCard, double[] dest) {
+        int offset = entryOffset(shoe, playerCards, upCard);
+        if (offset < 0) {
+            return false;
+        }
+
+        offset += ACTIONS * Double.BYTES;
+        for (int i = 0; i < DealerEngine.OUTCOMES; i++) {
+            dest[i] = data.getDouble(offset + i * Double.BYTES);
+        }
+        return true;
+    }
+
+    /**
+     * @brief Returns the byte offset of the entry matching the state, checking that the shoe is fresh.
+     *
+     * @param shoe The remaining cards.
+     * @param playerCards The player's cards.
+     * @param upCard The dealer's up-card.
+     * @return The offset, or -1 if the state is not covered.
+     */
+    private int entryOffset(Shoe shoe, List<Integer> playerCards, int upCard) {
+        if (playerCards.size() != 2) {
+            return -1;
+        }
+        int totalCards = shoe.total() + 3;
+        int deckCount = totalCards / 52;
+        if (totalCards % 52 != 0 || deckCount < 1 || deckCount > Shoe.MAX_DECKS || deckBlock[deckCount] < 0) {
+            return -1;
+        }
+
+        int first = playerCards.get(0), second = playerCards.get(1);
+        Shoe fresh = Shoe.ofDecks(deckCount);
+        if (!fresh.remove(first) || !fresh.remove(second) || !fresh.remove(upCard) || fresh.key() != shoe.key()) {
+            return -1;
+        }
+
+        long doubles = (long) deckBlock[deckCount] * DECK_DOUBLES + entryIndex(first, second, upCard);
+        return (int) (dataOffset + doubles * Double.BYTES);
+    }
+
+    /**
+     * @brief Returns the position of an entry within a deck count's block, in doubles.
+     */
+    private static int entryIndex(int first, int second, int upCard) {
+        return (HAND_INDEX[first][second] * 10 + upCard - 1) * ENTRY_DOUBLES;
+    }
+}
@@ -0,0 +1,174 @@
+package org.example;
+
+import model.Action;
+
+import java.util.Locale;
+
+/**
+ * @brief Aggregated score of recorded decisions against the solver's optimal ones.
+ * @details Each worker of the backtester fills its own report, and the reports are merged at the end, so
+ *          recording never synchronizes. The loss of a decision is the expected value of the optimal action
+ *          minus the expected value of the recorded one, in units of the initial bet; it is never negative.
+ */
+public final class BacktestReport {
+    private static final int ACTIONS = Action.values().length;
+
+    private long shoes, hands, decisions, matched, errors, skippedHands;
+    private double loss;
+    // Indexed by [recorded action][optimal action]
+    private final long[][] counts = new long[ACTIONS][ACTIONS];
+    private final double[][] losses = new double[ACTIONS][ACTIONS];
+
+    /**
+     * @brief Counts a shoe replayed from its first hand.
+     */
+    void shoe() {
+        shoes++;
+    }
+
+    /**
+     * @brief Counts a hand replayed without error.
+     */
+    void hand() {
+        hands++;
+    }
+
+    /**
+     * @brief Counts a hand that could not be replayed, along with the hands of its shoe skipped after it.
+     *
+     * @param skipped The number of hands skipped, the failing one included.
+     */
+    void error(long skipped) {
+        errors++;
+        skippedHands += skipped;
+    }
+
+    /**
+     * @brief Scores one decision.
+     *
+     * @param recorded The action taken in the log.
+     * @param optimal The solver's best action.
+     * @param evLoss The expected value lost by the recorded action, in units of the initial bet.
+     */
+    void decision(Action recorded, Action optimal, double evLoss) {
+        decisions++;
+        if (recorded == optimal) {
+            matched++;
+        }
+        loss += evLoss;
+        counts[recorded.ordinal()][optimal.ordinal()]++;
+        losses[recorded.ordinal()][optimal.ordinal()] += evLoss;
+    }
+
+    /**
+     * @brief Adds the counts of another report to this one.
+     *
+     * @param other The report to merge.
+     */
+    void merge(BacktestReport other) {
+        shoes += other.shoes;
+        hands += other.hands;
+        decisions += other.decisions;
+        matched += other.matched;
+        errors += other.errors;
+        skippedHands += other.skippedHands;
+        loss += other.loss;
+        for (int i = 0; i < ACTIONS; i++) {
+            for (int j = 0; j < ACTIONS; j++) {
+                counts[i][j] += other.counts[i][j];
+                losses[i][j] += other.losses[i][j];
+            }
+        }
+    }
+
+    /**
+     * @brief Returns the number of shoes replayed.
+     *
+     * @return The number of shoes.
+     */
+    public long shoes() {
+        return shoes;
+    }
+
+    /**
+     * @brief Returns the number of hands replayed without error.
+     *
+     * @return The number of hands.
+     */
+    public long hands() {
+        return hands;
+    }
+
+    /**
+     * @brief Returns the number of decisions scored.
+     *
+     * @return The number of decisions.
+     */
+    public long decisions() {
+        return decisions;
+    }
+
+    /**
+     * @brief Returns the fraction of decisions matching the solver's best action.
+     *
+     * @return The match rate, NaN if no decision was scored.
+     */
+    public double matchRate() {
+        return decisions > 0 ? (double) matched / decisions : Double.NaN;
+    }
+
+    /**
+     * @brief Returns the expected value lost by all the recorded decisions.
+     *
+     * @return The total loss, in units of the initial bet.
+     */
+    public double totalLoss() {
+        return loss;
+    }
+
+    /**
+     * @brief Returns the number of hands that could not be replayed.
+     *
+     * @return The number of errors.
+     */
+    public long errors() {
+        return errors;
+    }
+
+    /**
+     * @brief Returns the number of hands not replayed because of errors.
+     *
+     * @return The number of hands, the failing ones included.
+     */
+    public long skippedHands() {
+        return skippedHands;
+    }
+
+    /**
+     * @brief Formats the report: the totals, then one line per pair of recorded and optimal actions that occurred.
+     *
+     * @return The report text.
+     */
+    @Override
+    public String toString() {
+        StringBuilder out = new StringBuilder(1024);
+        out.append(String.format(Locale.ROOT, "shoes %d, hands %d, decisions %d, errors %d (%d hands skipped)%n",
+                shoes, hands, decisions, errors, skippedHands));
+        out.append(String.format(Locale.ROOT, "matched %d (%.2f%%), EV loss %.4f (%.5f per decision, %.5f per hand)%n",
+                matched, 100 * matchRate(), loss, decisions > 0 ? loss / decisions : Double.NaN,
+                hands > 0 ? loss / hands : Double.NaN));
+        out.append(String.format(Locale.ROOT, "%n%-10s %-10s %12s %12s %12s%n", "recorded", "optimal", "count",
+                "EV loss", "per decision"));
+        for (Action recorded : Action.values()) {
+            for (Action optimal : Action.values()) {
+                long count = counts[recorded.ordinal()][optimal.ordinal()];
+                if (count > 0) {
+                    double actionLoss = losses[recorded.ordinal()][optimal.ordinal()];
+                    out.append(String.format(Locale.ROOT, "%-10s %-10s %12d %12.4f %12.5f%n", recorded.name(),
+                            optimal.name(), count, actionLoss, actionLoss / count));
+                }
+            }
+        }
+        return out.toString();
+    }
+}
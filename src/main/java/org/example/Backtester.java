@@ -0,0 +1,496 @@
+package org.example;
+
+import model.Action;
+import model.ActionValues;
+import model.BlackJackModel;
+import model.HandState;
+import model.Rules;
+import model.Shoe;
+import model.StrategyTable;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * @brief Headless tool scoring the decisions of hand-history logs against the exact solver.
+ * @details A log is a text file made of shoes, each one a header line followed by one line per hand:
+ *          <pre>
+ *          # comment
+ *          shoe 6 H17 DAS          number of decks, then optional rules as accepted by Rules.parse()
+ *          10 6 | 10 | H5 S | 9 7 2 10 4
+ *          </pre>
+ *          A hand line holds the player's two cards, the dealer's up-card, the player's decisions and every other
+ *          card that left the shoe during the hand (hole card, dealer draws, other players, split hands), all as
+ *          ranks from 1 (ace) to 10. Decisions are H or D followed by the card received (H5, D10), S, R (surrender)
+ *          or P (split). Every decision is scored with the composition of the shoe at that moment; the play of
+ *          split hands is not scored and their cards belong to the last field.
+ *
+ *          Files are read through NIO channels in fixed-size chunks and cut into shoes, which a bounded queue
+ *          hands to worker threads, each replaying its shoes on a BlackJackModel of its own. The memory in use
+ *          is bounded by the queue and the longest accepted shoe, whatever the size of the file. A hand that
+ *          cannot be replayed is reported on standard error with its file and line, and the rest of its shoe is
+ *          skipped since the composition is no longer known.
+ */
+public class Backtester {
+    private static final int READ_BUFFER = 1 << 20;
+    private static final int MAX_LINE = 4096;
+    private static final int MAX_SHOE_HANDS = 4096;
+    private static final int QUEUE_PER_WORKER = 2;
+    // Each model holds tens of megabytes of memo tables, so a worker keeps only its most recent rule sets
+    private static final int MODELS_PER_WORKER = 4;
+    private static final ShoeLog END = new ShoeLog("", 0, "", List.of(), List.of());
+
+    private final int workers;
+
+    /**
+     * @brief Creates a backtester using every available core.
+     */
+    public Backtester() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @brief Creates a backtester with an explicit number of worker threads.
+     *
+     * @param workers The number of worker threads (at least 1).
+     */
+    public Backtester(int workers) {
+        this.workers = Math.max(1, workers);
+    }
+
+    /**
+     * @brief Replays a log file.
+     *
+     * @param path The log.
+     * @return The report.
+     * @throws IOException If the file cannot be read.
+     */
+    public BacktestReport run(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return run(channel, path.toString());
+        }
+    }
+
+    /**
+     * @brief Replays a log read from a channel.
+     *
+     * @param channel The log; it is read to its end but not closed.
+     * @param source The name of the log in error messages.
+     * @return The report.
+     * @throws IOException If the channel cannot be read.
+     */
+    public BacktestReport run(ReadableByteChannel channel, String source) throws IOException {
+        BlockingQueue<ShoeLog> queue = new ArrayBlockingQueue<>(QUEUE_PER_WORKER * workers);
+        BacktestReport total = new BacktestReport();
+        LineReader reader = new LineReader(channel);
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(workers)) {
+            List<Future<BacktestReport>> futures = new ArrayList<>();
+            for (int i = 0; i < workers; i++) {
+                futures.add(executor.submit(() -> work(queue)));
+            }
+
+            try {
+                String header = null;
+                long headerLine = 0;
+                List<String> hands = new ArrayList<>();
+                List<Long> handLines = new ArrayList<>();
+                // Set once a line of the current shoe is lost: its composition is unknown from there on
+                boolean broken = false;
+                String line;
+                while ((line = reader.next()) != null) {
+                    long lineNumber = reader.lineNumber();
+                    if (reader.truncated()) {
+                        error(source, lineNumber, "line longer than " + MAX_LINE + " bytes"
+                                + (header != null && !broken ? "; rest of the shoe skipped" : ""));
+                        total.error(1);
+                        broken = true;
+                        continue;
+                    }
+                    line = line.strip();
+                    if (line.isEmpty() || line.startsWith("#")) {
+                        continue;
+                    }
+
+                    if (line.startsWith("shoe")) {
+                        if (header != null) {
+                            queue.put(new ShoeLog(source, headerLine, header, hands, handLines));
+                        }
+                        header = line;
+                        headerLine = lineNumber;
+                        hands = new ArrayList<>();
+                        handLines = new ArrayList<>();
+                        broken = false;
+                    } else if (header == null) {
+                        error(source, lineNumber, "hand before the first shoe line");
+                        total.error(1);
+                    } else if (broken) {
+                        total.error(1); // Reported with the line that broke the shoe
+                    } else if (hands.size() == MAX_SHOE_HANDS) {
+                        error(source, lineNumber,
+                                "more than " + MAX_SHOE_HANDS + " hands in one shoe; rest of the shoe skipped");
+                        total.error(1);
+                        broken = true;
+                    } else {
+                        hands.add(line);
+                        handLines.add(lineNumber);
+                    }
+                }
+                if (header != null) {
+                    queue.put(new ShoeLog(source, headerLine, header, hands, handLines));
+                }
+            } finally {
+                for (int i = 0; i < workers; i++) {
+                    queue.put(END);
+                }
+            }
+
+            for (Future<BacktestReport> future : futures) {
+                total.merge(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Backtest interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Backtest failed", e.getCause());
+        }
+        return total;
+    }
+
+    /**
+     * @brief Replays the shoes of the queue until the end marker.
+     *
+     * @param queue The shoes to replay.
+     * @return The report of this worker.
+     * @throws InterruptedException If the worker is interrupted while waiting for a shoe.
+     */
+    private static BacktestReport work(BlockingQueue<ShoeLog> queue) throws InterruptedException {
+        BacktestReport report = new BacktestReport();
+        // The models hold memo tables and are not thread-safe: one per worker and set of rules, least recently
+        // used first
+        Map<Rules, BlackJackModel> models = new LinkedHashMap<>(16, 0.75f, true);
+        ShoeLog log;
+        while ((log = queue.take()) != END) {
+            replay(log, models, report);
+        }
+        return report;
+    }
+
+    /**
+     * @brief Replays one shoe, hand by hand.
+     *
+     * @param log The shoe.
+     * @param models The worker's models, by rules.
+     * @param report The worker's report.
+     */
+    private static void replay(ShoeLog log, Map<Rules, BlackJackModel> models, BacktestReport report) {
+        Rules rules;
+        try {
+            rules = parseHeader(log.header());
+        } catch (IllegalArgumentException e) {
+            error(log.source(), log.headerLine(), e.getMessage());
+            report.error(log.hands().size());
+            return;
+        }
+
+        // The number of decks only changes the shoe, so shoes of every size share a model
+        BlackJackModel model = models.computeIfAbsent(rules.withDecks(Rules.standard().decks()),
+                playRules -> new BlackJackModel(StrategyTable.shared(), playRules));
+        if (models.size() > MODELS_PER_WORKER) {
+            Iterator<BlackJackModel> eldest = models.values().iterator();
+            eldest.next();
+            eldest.remove();
+        }
+        Shoe shoe = rules.newShoe();
+        report.shoe();
+
+        List<String> hands = log.hands();
+        for (int i = 0; i < hands.size(); i++) {
+            try {
+                replayHand(hands.get(i), model, shoe, report);
+                report.hand();
+            } catch (IllegalArgumentException e) {
+                error(log.source(), log.handLines().get(i), e.getMessage() + "; rest of the shoe skipped");
+                report.error(hands.size() - i);
+                return;
+            }
+        }
+    }
+
+    /**
+     * @brief Replays one hand, scoring each decision and removing its cards from the shoe.
+     *
+     * @param line The hand line.
+     * @param model The model evaluating the decisions.
+     * @param shoe The shoe before the hand, updated to the shoe after it.
+     * @param report The report receiving the scores.
+     */
+    private static void replayHand(String line, BlackJackModel model, Shoe shoe, BacktestReport report) {
+        String[] fields = line.split("\\|", -1);
+        if (fields.length != 4) {
+            throw new IllegalArgumentException("expected 'player cards | up-card | decisions | other cards'");
+        }
+        List<Integer> playerCards = parseCards(fields[0]);
+        List<Integer> upCard = parseCards(fields[1]);
+        if (playerCards.size() != 2 || upCard.size() != 1) {
+            throw new IllegalArgumentException("expected two player cards and one up-card");
+        }
+        take(shoe, playerCards.get(0));
+        take(shoe, playerCards.get(1));
+        take(shoe, upCard.get(0));
+
+        List<Integer> cards = new ArrayList<>(playerCards);
+        HandState hand = HandState.of(cards);
+        String[] decisions = fields[2].trim().split("\\s+");
+        for (int i = 0; i < decisions.length; i++) {
+            String decision = decisions[i];
+            if (decision.isEmpty()) continue;
+            if (hand.value() >= 21) {
+                throw new IllegalArgumentException("decision " + decision + " after the hand ended");
+            }
+
+            Action recorded = switch (decision.charAt(0)) {
+                case 'H' -> Action.HIT;
+                case 'D' -> Action.DOUBLE;
+                case 'S' -> Action.STAND;
+                case 'R' -> Action.SURRENDER;
+                case 'P' -> Action.SPLIT;
+                default -> throw new IllegalArgumentException("unknown decision " + decision);
+            };
+            boolean draws = recorded == Action.HIT || recorded == Action.DOUBLE;
+            if (draws != decision.length() > 1) {
+                throw new IllegalArgumentException("malformed decision " + decision);
+            }
+
+            model.setHands(cards, upCard);
+            ActionValues values = model.evaluateActions(shoe);
+            if (values == null || !values.isLegal(recorded)) {
+                throw new IllegalArgumentException("decision " + decision + " is not allowed here");
+            }
+            Action optimal = values.best();
+            report.decision(recorded, optimal, values.ev(optimal) - values.ev(recorded));
+
+            if (draws) {
+                int rank = parseRank(decision.substring(1));
+                take(shoe, rank);
+                cards.add(rank);
+                hand = hand.add(rank);
+            }
+            if (recorded != Action.HIT && i < decisions.length - 1) {
+                throw new IllegalArgumentException("decision after " + decision);
+            }
+        }
+
+        for (int rank : parseCards(fields[3])) {
+            take(shoe, rank);
+        }
+    }
+
+    /**
+     * @brief Parses a shoe header: "shoe", the number of decks and optional rules.
+     *
+     * @param header The header line.
+     * @return The rules of the shoe, including its number of decks.
+     */
+    private static Rules parseHeader(String header) {
+        String[] tokens = header.split("\\s+", 3);
+        if (tokens.length < 2 || !tokens[0].equals("shoe")) {
+            throw new IllegalArgumentException("expected 'shoe decks [rules]'");
+        }
+        Rules rules = tokens.length == 3 ? Rules.parse(tokens[2]) : Rules.standard();
+        return rules.withDecks(parseInt(tokens[1], Shoe.MAX_DECKS, "decks"));
+    }
+
+    /**
+     * @brief Removes a card from the shoe.
+     *
+     * @param shoe The shoe.
+     * @param rank The rank of the card.
+     */
+    private static void take(Shoe shoe, int rank) {
+        if (!shoe.remove(rank)) {
+            throw new IllegalArgumentException("no card of rank " + rank + " left in the shoe");
+        }
+    }
+
+    /**
+     * @brief Parses a list of card ranks separated by spaces, possibly empty.
+     *
+     * @param field The field.
+     * @return The cards.
+     */
+    private static List<Integer> parseCards(String field) {
+        List<Integer> cards = new ArrayList<>();
+        String trimmed = field.trim();
+        if (!trimmed.isEmpty()) {
+            for (String token : trimmed.split("\\s+")) {
+                cards.add(parseRank(token));
+            }
+        }
+        return cards;
+    }
+
+    private static int parseRank(String token) {
+        return parseInt(token, 10, "card rank");
+    }
+
+    private static int parseInt(String token, int max, String what) {
+        int value;
+        try {
+            value = Integer.parseInt(token);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("not a number: " + token);
+        }
+        if (value < 1 || value > max) {
+            throw new IllegalArgumentException(what + " out of range: " + value);
+        }
+        return value;
+    }
+
+    private static void error(String source, long line, String message) {
+        System.err.println(source + ":" + line + ": " + message);
+    }
+
+    /**
+     * @brief The lines of one shoe, as cut by the reader.
+     *
+     * @param source The name of the log.
+     * @param headerLine The line number of the header.
+     * @param header The header line.
+     * @param hands The hand lines.
+     * @param handLines The line number of each hand.
+     */
+    private record ShoeLog(String source, long headerLine, String header, List<String> hands, List<Long> handLines) {
+    }
+
+    /**
+     * @brief Splits a channel into lines, reading it in fixed-size chunks.
+     * @details Lines longer than MAX_LINE bytes are cut and flagged, so a corrupt file cannot exhaust the memory.
+     *          Bytes are decoded as UTF-8 and a trailing carriage return is dropped.
+     */
+    private static final class LineReader {
+        private final ReadableByteChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(READ_BUFFER);
+        private final byte[] line = new byte[MAX_LINE];
+        private int length;
+        private boolean truncated;
+        private long lineNumber;
+
+        LineReader(ReadableByteChannel channel) {
+            this.channel = channel;
+            buffer.flip();
+        }
+
+        /**
+         * @brief Reads the next line.
+         *
+         * @return The line without its terminator, or null at the end of the channel.
+         * @throws IOException If the channel cannot be read.
+         */
+        String next() throws IOException {
+            length = 0;
+            truncated = false;
+            while (true) {
+                if (!buffer.hasRemaining()) {
+                    buffer.clear();
+                    int read = channel.read(buffer);
+                    buffer.flip();
+                    if (read < 0) {
+                        return length > 0 || truncated ? finish() : null;
+                    }
+                    continue;
+                }
+
+                byte[] bytes = buffer.array();
+                int start = buffer.position(), end = buffer.limit(), newline = start;
+                while (newline < end && bytes[newline] != '\n') {
+                    newline++;
+                }
+                int copied = Math.min(newline - start, MAX_LINE - length);
+                System.arraycopy(bytes, start, line, length, copied);
+                length += copied;
+                truncated |= copied < newline - start;
+
+                if (newline < end) {
+                    buffer.position(newline + 1);
+                    return finish();
+                }
+                buffer.position(end);
+            }
+        }
+
+        /**
+         * @brief Returns true if the last line was longer than MAX_LINE bytes.
+         *
+         * @return True if the line was cut.
+         */
+        boolean truncated() {
+            return truncated;
+        }
+
+        /**
+         * @brief Returns the number of the last line, starting from 1.
+         *
+         * @return The line number.
+         */
+        long lineNumber() {
+            return lineNumber;
+        }
+
+        private String finish() {
+            lineNumber++;
+            int end = length > 0 && line[length - 1] == '\r' ? length - 1 : length;
+            return new String(line, 0, end, StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * @brief Replays the logs given as arguments, or standard input if there are none, and prints the report.
+     * @details Usage: Backtester [--workers=N] [log...]. Exits with status 1 if some hands could not be replayed.
+     *
+     * @param args The optional number of worker threads, then the logs.
+     * @throws IOException If a log cannot be read.
+     */
+    public static void main(String[] args) throws IOException {
+        int first = 0;
+        Backtester backtester = new Backtester();
+        if (args.length > 0 && args[0].startsWith("--workers=")) {
+            backtester = new Backtester(parseInt(args[0].substring("--workers=".length()), 1024, "workers"));
+            first = 1;
+        }
+
+        long start = System.nanoTime();
+        BacktestReport report = new BacktestReport();
+        if (first == args.length) {
+            report.merge(backtester.run(Channels.newChannel(System.in), "stdin"));
+        } else {
+            for (int i = first; i < args.length; i++) {
+                report.merge(backtester.run(Path.of(args[i])));
+            }
+        }
+
+        System.out.print(report);
+        System.out.printf(Locale.ROOT, "%nreplayed in %.1f s%n", (System.nanoTime() - start) / 1e9);
+        if (report.errors() > 0) {
+            System.exit(1);
+        }
+    }
+}
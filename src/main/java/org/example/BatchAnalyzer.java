@@ -0,0 +1,216 @@
+package org.example;
+
+import model.Action;
+import model.ActionValues;
+import model.Analysis;
+import model.BlackJackModel;
+import model.Shoe;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * @brief Headless entry point that analyzes table states read from files or standard input.
+ * @details Each input line has the form "shoe | player cards | dealer cards", where the shoe is either a number
+ *          of decks or the ten remaining counts from ace to ten-valued cards, and cards are ranks from 1 (ace)
+ *          to 10 separated by spaces. The hands are dealt from a shoe given as a number of decks, while remaining
+ *          counts already exclude them. Empty lines and lines starting with '#' are skipped. For every state a
+ *          tab-separated line is written with the player's and the dealer's probabilities of busting with the
+ *          next card, the dealer's probabilities of finishing on 17 to 21, the expected value of each action (NaN
+ *          if not legal or not applicable) and the recommended action. This class never touches JavaFX, so it
+ *          starts quickly and can run in batch jobs and server processes.
+ */
+public class BatchAnalyzer {
+    private final BlackJackModel model = new BlackJackModel();
+    private final StringBuilder line = new StringBuilder(256);
+
+    /**
+     * @brief Analyzes one table state.
+     *
+     * @param shoe The remaining cards.
+     * @param playerCards The cards in the player's hand.
+     * @param dealerCards The cards in the dealer's hand.
+     * @return The analysis of the state.
+     */
+    public Analysis analyze(Shoe shoe, List<Integer> playerCards, List<Integer> dealerCards) {
+        model.setHands(playerCards, dealerCards);
+        return model.analyze(shoe, Analysis.EMPTY, true, true);
+    }
+
+    /**
+     * @brief Analyzes every state read from the input and writes one result line per state.
+     * @details Malformed lines are reported on standard error with their line number and skipped.
+     *
+     * @param in The input, one state per line.
+     * @param out The destination of the results.
+     * @return The number of lines that could not be analyzed.
+     * @throws IOException If reading or writing fails.
+     */
+    public long run(Reader in, Writer out) throws IOException {
+        BufferedReader reader = in instanceof BufferedReader buffered ? buffered : new BufferedReader(in);
+        long lineNumber = 0, errors = 0;
+        String text;
+        while ((text = reader.readLine()) != null) {
+            lineNumber++;
+            text = text.strip();
+            if (text.isEmpty() || text.startsWith("#")) {
+                continue;
+            }
+
+            try {
+                String[] fields = text.split("\\|", -1);
+                if (fields.length != 3) {
+                    throw new IllegalArgumentException("expected 'shoe | player cards | dealer cards'");
+                }
+                List<Integer> playerCards = parseCards(fields[1]), dealerCards = parseCards(fields[2]);
+                Analysis analysis = analyze(parseShoe(fields[0], playerCards, dealerCards), playerCards, dealerCards);
+                out.write(format(analysis));
+            } catch (IllegalArgumentException e) {
+                errors++;
+                System.err.println("line " + lineNumber + ": " + e.getMessage());
+            }
+        }
+        out.flush();
+        return errors;
+    }
+
+    /**
+     * @brief Formats an analysis as a tab-separated result line.
+     *
+     * @param analysis The analysis.
+     * @return The line, terminated by a newline.
+     */
+    private String format(Analysis analysis) {
+        line.setLength(0);
+        appendProbability(analysis.playerBust());
+        appendProbability(analysis.dealerBust());
+        for (int total = Analysis.DEALER_MIN; total <= Analysis.DEALER_MAX; total++) {
+            appendProbability(analysis.dealerProbability(total));
+        }
+
+        ActionValues values = analysis.actionValues();
+        for (Action action : Action.values()) {
+            line.append(values != null && values.isLegal(action)
+                    ? String.format(Locale.ROOT, "%.6f", values.ev(action)) : "NaN").append('\t');
+        }
+        line.append(analysis.recommendation() != null ? analysis.recommendation().name() : "-").append('\n');
+        return line.toString();
+    }
+
+    private void appendProbability(double probability) {
+        line.append(String.format(Locale.ROOT, "%.6f", probability)).append('\t');
+    }
+
+    /**
+     * @brief Parses the shoe field of an input line.
+     *
+     * @param field Either a number of decks or the ten remaining counts.
+     * @param playerCards The player's cards, removed from a shoe given as a number of decks.
+     * @param dealerCards The dealer's cards, removed from a shoe given as a number of decks.
+     * @return The remaining cards.
+     */
+    private static Shoe parseShoe(String field, List<Integer> playerCards, List<Integer> dealerCards) {
+        String[] tokens = field.trim().split("\\s+");
+        if (tokens.length == 1) {
+            int decks = parseInt(tokens[0]);
+            if (decks < 1 || decks > Shoe.MAX_DECKS) {
+                throw new IllegalArgumentException("decks must be between 1 and " + Shoe.MAX_DECKS);
+            }
+            Shoe shoe = Shoe.ofDecks(decks);
+            removeCards(shoe, playerCards);
+            removeCards(shoe, dealerCards);
+            return shoe;
+        }
+        if (tokens.length != Shoe.RANKS) {
+            throw new IllegalArgumentException("expected 1 deck count or " + Shoe.RANKS + " rank counts");
+        }
+
+        int[] counts = new int[Shoe.RANKS];
+        for (int i = 0; i < Shoe.RANKS; i++) {
+            counts[i] = parseInt(tokens[i]);
+        }
+        return new Shoe(counts);
+    }
+
+    /**
+     * @brief Removes dealt cards from a shoe.
+     *
+     * @param shoe The shoe the cards were dealt from.
+     * @param cards The cards.
+     */
+    private static void removeCards(Shoe shoe, List<Integer> cards) {
+        for (int rank : cards) {
+            if (!shoe.remove(rank)) {
+                throw new IllegalArgumentException("no card of rank " + rank + " left in the shoe");
+            }
+        }
+    }
+
+    /**
+     * @brief Parses a list of card ranks.
+     *
+     * @param field The ranks separated by spaces, possibly empty.
+     * @return The cards.
+     */
+    private static List<Integer> parseCards(String field) {
+        List<Integer> cards = new ArrayList<>();
+        String trimmed = field.trim();
+        if (trimmed.isEmpty()) {
+            return cards;
+        }
+        for (String token : trimmed.split("\\s+")) {
+            int rank = parseInt(token);
+            if (rank < 1 || rank > 10) {
+                throw new IllegalArgumentException("card rank out of range: " + rank);
+            }
+            cards.add(rank);
+        }
+        return cards;
+    }
+
+    private static int parseInt(String token) {
+        try {
+            return Integer.parseInt(token);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("not a number: " + token);
+        }
+    }
+
+    /**
+     * @brief Analyzes the files given as arguments, or standard input if there are none, and writes the results
+     *        to standard output.
+     *
+     * @param args The input files.
+     * @throws IOException If reading or writing fails.
+     */
+    public static void main(String[] args) throws IOException {
+        BatchAnalyzer analyzer = new BatchAnalyzer();
+        Writer out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), 1 << 16);
+        long errors = 0;
+
+        if (args.length == 0) {
+            errors += analyzer.run(new InputStreamReader(System.in, StandardCharsets.UTF_8), out);
+        } else {
+            for (String file : args) {
+                try (Reader in = Files.newBufferedReader(Path.of(file), StandardCharsets.UTF_8)) {
+                    errors += analyzer.run(in, out);
+                }
+            }
+        }
+
+        if (errors > 0) {
+            System.exit(1);
+        }
+    }
+}
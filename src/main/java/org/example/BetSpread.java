@@ -0,0 +1,77 @@
+package org.example;
+
+import model.BetRamp;
+import model.BetSpreadOptimizer;
+import model.CountProfile;
+import model.CountingSystem;
+import model.Rules;
+import model.Shoe;
+
+import java.util.Locale;
+
+/**
+ * @brief Headless tool sizing bets by the count for a bankroll and a risk of ruin target.
+ * @details Usage: BetSpread [--option=value...] with the options rules (a description accepted by Rules.parse(),
+ *          standard rules by default), system (hi-lo, ko, omega-ii or zen, hi-lo by default), counts (the ten
+ *          remaining counts from ace to ten, a full shoe by default), penetration (0.75), shoes (100000),
+ *          bankroll (1000 table minimums), spread (12), ror (0.05) and seed (1). Prints the simulated profile and
+ *          the best ramp.
+ */
+public class BetSpread {
+    /**
+     * @brief Simulates the shoes and prints the ramp.
+     *
+     * @param args The options.
+     */
+    public static void main(String[] args) {
+        Rules rules = Rules.standard();
+        CountingSystem system = CountingSystem.HI_LO;
+        int[] counts = null;
+        double penetration = 0.75, bankroll = 1000, riskOfRuin = 0.05;
+        long shoes = 100_000, seed = 1;
+        int spread = 12;
+
+        for (String arg : args) {
+            int equals = arg.indexOf('=');
+            if (!arg.startsWith("--") || equals < 0) {
+                throw new IllegalArgumentException("Expected --option=value: " + arg);
+            }
+            String value = arg.substring(equals + 1);
+            switch (arg.substring(2, equals)) {
+                case "rules" -> rules = Rules.parse(value);
+                case "system" -> system = CountingSystem.valueOf(value.toUpperCase(Locale.ROOT).replace('-', '_'));
+                case "counts" -> {
+                    String[] tokens = value.split(",");
+                    if (tokens.length != Shoe.RANKS) {
+                        throw new IllegalArgumentException("Expected " + Shoe.RANKS + " counts: " + value);
+                    }
+                    counts = new int[Shoe.RANKS];
+                    for (int i = 0; i < Shoe.RANKS; i++) {
+                        counts[i] = Integer.parseInt(tokens[i].trim());
+                    }
+                }
+                case "penetration" -> penetration = Double.parseDouble(value);
+                case "shoes" -> shoes = Long.parseLong(value);
+                case "bankroll" -> bankroll = Double.parseDouble(value);
+                case "spread" -> spread = Integer.parseInt(value);
+                case "ror" -> riskOfRuin = Double.parseDouble(value);
+                case "seed" -> seed = Long.parseLong(value);
+                default -> throw new IllegalArgumentException("Unknown option: " + arg);
+            }
+        }
+
+        Shoe start = counts != null ? new Shoe(counts) : rules.newShoe();
+        BetSpreadOptimizer optimizer = new BetSpreadOptimizer(rules, system);
+        CountProfile profile = optimizer.simulate(start, penetration, shoes, seed);
+        System.out.println(rules + ", penetration " + penetration);
+        System.out.print(profile);
+
+        long begin = System.nanoTime();
+        BetRamp ramp = BetSpreadOptimizer.optimize(profile, bankroll, spread, riskOfRuin);
+        System.out.println(ramp);
+        if (ramp.riskOfRuin() > riskOfRuin) {
+            System.out.println("No ramp meets the risk of ruin target; the safest one is shown");
+        }
+        System.out.printf("searched in %.1f ms%n", (System.nanoTime() - begin) / 1e6);
+    }
+}
@@ -5,8 +5,10 @@ import javafx.fxml.FXMLLoader;
 import javafx.scene.Scene;
 import javafx.scene.layout.Pane;
 import javafx.stage.Stage;
+import metrics.MetricsRegistry;
 
 import java.io.IOException;
+import java.nio.file.Path;
 
 /**
  * @brief The main class that launches the JavaFX application.
@@ -35,6 +37,20 @@ public class Main extends Application {  // Extend Application to use JavaFX
         primaryStage.show();
     }
 
+    /**
+     * @brief Writes the metrics dump to the file named by the metrics.dump property, if it is set.
+     */
+    @Override
+    public void stop() {
+        String path = System.getProperty(MetricsRegistry.DUMP_PROPERTY);
+        if (path != null) {
+            try {
+                MetricsRegistry.global().writeTo(Path.of(path));
+            } catch (IOException e) {
+                System.err.println("Cannot write the metrics dump to " + path + ": " + e.getMessage());
+            }
+        }
+    }
 
     public static void main(String[] args) {
         launch(args);  // Launch the JavaFX application
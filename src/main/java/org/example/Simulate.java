@@ -0,0 +1,58 @@
+package org.example;
+
+import model.MonteCarloSimulator;
+import model.Rules;
+import model.Shoe;
+import model.SimulationResult;
+
+/**
+ * @brief Headless tool playing rounds of basic strategy from a shoe state and reporting the outcome.
+ * @details Usage: Simulate [--option=value...] with the options rules (a description accepted by Rules.parse(),
+ *          standard rules by default), counts (the ten remaining counts from ace to ten, a full shoe by default),
+ *          rounds (1000000), threads (every available core) and seed (1). Every round starts from the same
+ *          composition. Prints the win, push and loss rates and the expected value with their 95% confidence
+ *          intervals.
+ */
+public class Simulate {
+    /**
+     * @brief Runs the simulation and prints the result.
+     *
+     * @param args The options.
+     */
+    public static void main(String[] args) {
+        Rules rules = Rules.standard();
+        int[] counts = null;
+        long rounds = 1_000_000, seed = 1;
+        int threads = Runtime.getRuntime().availableProcessors();
+
+        for (String arg : args) {
+            int equals = arg.indexOf('=');
+            if (!arg.startsWith("--") || equals < 0) {
+                throw new IllegalArgumentException("Expected --option=value: " + arg);
+            }
+            String value = arg.substring(equals + 1);
+            switch (arg.substring(2, equals)) {
+                case "rules" -> rules = Rules.parse(value);
+                case "counts" -> {
+                    String[] tokens = value.split(",");
+                    if (tokens.length != Shoe.RANKS) {
+                        throw new IllegalArgumentException("Expected " + Shoe.RANKS + " counts: " + value);
+                    }
+                    counts = new int[Shoe.RANKS];
+                    for (int i = 0; i < Shoe.RANKS; i++) {
+                        counts[i] = Integer.parseInt(tokens[i].trim());
+                    }
+                }
+                case "rounds" -> rounds = Long.parseLong(value);
+                case "threads" -> threads = Integer.parseInt(value);
+                case "seed" -> seed = Long.parseLong(value);
+                default -> throw new IllegalArgumentException("Unknown option: " + arg);
+            }
+        }
+
+        Shoe shoe = counts != null ? new Shoe(counts) : rules.newShoe();
+        SimulationResult result = new MonteCarloSimulator(rules, threads).simulate(shoe, rounds, seed);
+        System.out.println(rules);
+        System.out.println(result);
+    }
+}
@@ -0,0 +1,49 @@
+package org.example;
+
+import model.Rules;
+import model.Shoe;
+import model.StrategyTable;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * @brief Headless tool writing the precomputed strategy tables loaded by the model at startup.
+ * @details Usage: TableGenerator [--rules=DESCRIPTION] [file] [decks...]. The rules default to the standard rules
+ *          (see Rules.parse() for the description), the file to strategy-tables.bin and the deck counts to 1, 2, 4,
+ *          6 and 8.
+ */
+public class TableGenerator {
+    private static final int[] DEFAULT_DECKS = {1, 2, 4, 6, 8};
+
+    /**
+     * @brief Generates the tables.
+     *
+     * @param args The optional rules, the destination file and the deck counts to cover.
+     * @throws IOException If the file cannot be written.
+     */
+    public static void main(String[] args) throws IOException {
+        Rules rules = Rules.standard();
+        if (args.length > 0 && args[0].startsWith("--rules=")) {
+            rules = Rules.parse(args[0].substring("--rules=".length()));
+            args = Arrays.copyOfRange(args, 1, args.length);
+        }
+
+        Path path = Path.of(args.length > 0 ? args[0] : StrategyTable.DEFAULT_PATH);
+        int[] decks = DEFAULT_DECKS;
+        if (args.length > 1) {
+            decks = new int[args.length - 1];
+            for (int i = 1; i < args.length; i++) {
+                decks[i - 1] = Integer.parseInt(args[i]);
+                if (decks[i - 1] < 1 || decks[i - 1] > Shoe.MAX_DECKS) {
+                    throw new IllegalArgumentException("Decks must be between 1 and " + Shoe.MAX_DECKS);
+                }
+            }
+        }
+
+        long start = System.nanoTime();
+        StrategyTable.generate(path, rules, decks);
+        System.out.printf("Wrote %s for %s in %.1f s%n", path, rules, (System.nanoTime() - start) / 1e9);
+    }
+}
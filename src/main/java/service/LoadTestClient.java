@@ -0,0 +1,164 @@
+package service;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * @brief Load generator for the session server, reporting request latency percentiles.
+ * @details Each worker owns a set of tables and plays rounds on them: it deals two player cards and a dealer
+ *          up-card, asks for the analysis and starts a new round. Every request is timed. Without a server URL
+ *          an in-process server is started on a free port.
+ *          Arguments: [url|-] [tables] [rounds per table] [workers], by default -, 1000, 20 and 32.
+ */
+public class LoadTestClient {
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    private final String baseUrl;
+
+    /**
+     * @brief Creates a client for a server.
+     *
+     * @param baseUrl The server URL, such as http://localhost:8021.
+     */
+    public LoadTestClient(String baseUrl) {
+        this.baseUrl = baseUrl;
+    }
+
+    /**
+     * @brief Runs the load test.
+     *
+     * @param tables The number of tables to open.
+     * @param rounds The number of rounds played on each table.
+     * @param workers The number of concurrent workers.
+     * @return The latency of every request, in nanoseconds, sorted.
+     * @throws InterruptedException If the calling thread is interrupted.
+     */
+    public long[] run(int tables, int rounds, int workers) throws InterruptedException {
+        List<Future<long[]>> futures = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(workers)) {
+            for (int w = 0; w < workers; w++) {
+                int worker = w;
+                futures.add(executor.submit(() -> drive(worker, workers, tables, rounds)));
+            }
+
+            long[][] parts = new long[workers][];
+            int total = 0;
+            for (int w = 0; w < workers; w++) {
+                parts[w] = futures.get(w).get();
+                total += parts[w].length;
+            }
+
+            long[] latencies = new long[total];
+            int position = 0;
+            for (long[] part : parts) {
+                System.arraycopy(part, 0, latencies, position, part.length);
+                position += part.length;
+            }
+            Arrays.sort(latencies);
+            return latencies;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Load test failed", e.getCause());
+        }
+    }
+
+    /**
+     * @brief Plays the rounds of the tables owned by one worker.
+     *
+     * @return The latencies of the worker's requests.
+     */
+    private long[] drive(int worker, int workers, int tables, int rounds) throws IOException, InterruptedException {
+        SplittableRandom random = new SplittableRandom(worker);
+        long[] latencies = new long[(tables / workers + 1) * (rounds * 5 + 2)];
+        int count = 0;
+
+        for (int table = worker; table < tables; table += workers) {
+            String url = baseUrl + "/tables/load-" + table;
+            latencies[count++] = send("POST", url + "?decks=6");
+            for (int round = 0; round < rounds; round++) {
+                latencies[count++] = send("POST", url + "/player/" + random.nextInt(1, 11));
+                latencies[count++] = send("POST", url + "/dealer/" + random.nextInt(1, 11));
+                latencies[count++] = send("POST", url + "/player/" + random.nextInt(1, 11));
+                latencies[count++] = send("GET", url);
+                latencies[count++] = send("POST", url + "/round");
+            }
+            latencies[count++] = send("DELETE", url);
+        }
+        return Arrays.copyOf(latencies, count);
+    }
+
+    /**
+     * @brief Sends one request and returns its latency. Conflicts, such as a rank running out, are not errors.
+     */
+    private long send(String method, String url) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+                .method(method, HttpRequest.BodyPublishers.noBody()).build();
+        long start = System.nanoTime();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        long latency = System.nanoTime() - start;
+        if (response.statusCode() != 200 && response.statusCode() != 409) {
+            throw new IOException(method + " " + url + " returned " + response.statusCode() + ": " + response.body());
+        }
+        return latency;
+    }
+
+    /**
+     * @brief Returns a percentile of sorted latencies.
+     *
+     * @param sorted The latencies, sorted.
+     * @param percentile The percentile, between 0 and 100.
+     * @return The latency in milliseconds.
+     */
+    static double percentileMillis(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0.0;
+        }
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))] / 1e6;
+    }
+
+    /**
+     * @brief Runs a load test and prints the latency report.
+     *
+     * @param args The server URL or "-", the number of tables, the rounds per table and the number of workers.
+     * @throws Exception If the test fails.
+     */
+    public static void main(String[] args) throws Exception {
+        String url = args.length > 0 ? args[0] : "-";
+        int tables = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+        int workers = args.length > 3 ? Integer.parseInt(args[3]) : 32;
+
+        SessionServer server = null;
+        if (url.equals("-")) {
+            server = new SessionServer(new SessionService(), 0, Runtime.getRuntime().availableProcessors());
+            server.start();
+            url = "http://localhost:" + server.port();
+        }
+
+        try {
+            long start = System.nanoTime();
+            long[] latencies = new LoadTestClient(url).run(tables, rounds, workers);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf(Locale.ROOT,
+                    "requests=%d throughput=%.0f/s p50=%.3f ms p90=%.3f ms p99=%.3f ms p99.9=%.3f ms max=%.3f ms%n",
+                    latencies.length, latencies.length / seconds, percentileMillis(latencies, 50),
+                    percentileMillis(latencies, 90), percentileMillis(latencies, 99),
+                    percentileMillis(latencies, 99.9), percentileMillis(latencies, 100));
+        } finally {
+            if (server != null) {
+                server.stop();
+            }
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package service;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import metrics.AnalysisStepEvent;
+import metrics.MetricsRegistry;
+import metrics.Probe;
+import model.Rules;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * @brief HTTP front end of the session service, built on the JDK's HTTP server.
+ * @details Endpoints, all answering JSON:
+ *          - POST /tables/{id}?rules=R&decks=N opens a table (standard rules and 6 decks by default; R is a rule
+ *            description as accepted by Rules.parse(), such as H17,DAS,LS, and decks overrides its deck count)
+ *          - POST /tables/{id}/player/{rank} and /tables/{id}/dealer/{rank} deal a card
+ *          - POST /tables/{id}/round clears both hands
+ *          - GET /tables/{id} returns the analysis of the current state
+ *          - DELETE /tables/{id} closes the table
+ *          - GET /metrics returns the latency and cache statistics as plain text
+ *          Errors are reported as 400 (bad input), 404 (unknown table), 405 (bad method), 409 (state conflict) or 500.
+ */
+public class SessionServer {
+    private static final int DEFAULT_PORT = 8021;
+    private static final String PREFIX = "/tables/";
+    private static final String METRICS = "/metrics";
+    private static final Probe REQUEST = Probe.of("service.request");
+
+    static {
+        // Small JSON responses otherwise wait for the client's delayed ACK (about 40 ms per request)
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    private final SessionService service;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    /**
+     * @brief Creates a server bound to a port; call start() to accept requests.
+     *
+     * @param service The service holding the tables.
+     * @param port The TCP port, 0 for any free port.
+     * @param threads The number of worker threads.
+     * @throws IOException If the port cannot be bound.
+     */
+    public SessionServer(SessionService service, int port, int threads) throws IOException {
+        this.service = service;
+        server = HttpServer.create(new InetSocketAddress(port), 1024);
+        executor = Executors.newFixedThreadPool(threads);
+        server.setExecutor(executor);
+        server.createContext(PREFIX, this::handle);
+        server.createContext(METRICS, this::handleMetrics);
+    }
+
+    /**
+     * @brief Starts accepting requests.
+     */
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * @brief Stops the server and its worker threads.
+     */
+    public void stop() {
+        server.stop(0);
+        executor.shutdown();
+    }
+
+    /**
+     * @brief Returns the port the server is bound to.
+     *
+     * @return The port.
+     */
+    public int port() {
+        return server.getAddress().getPort();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        AnalysisStepEvent event = REQUEST.begin();
+        int status = 200;
+        String body;
+        try {
+            body = route(exchange.getRequestMethod(), exchange.getRequestURI().getPath().substring(PREFIX.length()),
+                    exchange.getRequestURI().getQuery());
+        } catch (NoSuchElementException e) {
+            status = 404;
+            body = error(e);
+        } catch (UnsupportedOperationException e) {
+            status = 405;
+            body = error(e);
+        } catch (IllegalStateException e) {
+            status = 409;
+            body = error(e);
+        } catch (IllegalArgumentException e) {
+            status = 400;
+            body = error(e);
+        } catch (RuntimeException e) {
+            status = 500;
+            body = error(e);
+        }
+
+        send(exchange, status, "application/json", body);
+        REQUEST.end(event);
+    }
+
+    private void handleMetrics(HttpExchange exchange) throws IOException {
+        if (!exchange.getRequestMethod().equals("GET")) {
+            send(exchange, 405, "application/json", error(new UnsupportedOperationException(
+                    "Method " + exchange.getRequestMethod() + " not allowed")));
+            return;
+        }
+        send(exchange, 200, "text/plain; charset=utf-8", MetricsRegistry.global().dump());
+    }
+
+    private static void send(HttpExchange exchange, int status, String contentType, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * @brief Dispatches a request to the service.
+     *
+     * @param method The HTTP method.
+     * @param path The path after /tables/.
+     * @param query The query string, or null.
+     * @return The JSON response.
+     */
+    private String route(String method, String path, String query) {
+        String[] parts = path.split("/");
+        if (parts.length == 0 || parts[0].isEmpty()) {
+            throw new IllegalArgumentException("Missing table id");
+        }
+        String tableId = parts[0];
+
+        if (parts.length == 1) {
+            switch (method) {
+                case "GET":
+                    return service.analyze(tableId).toJson();
+                case "POST":
+                    service.open(tableId, parseRules(query));
+                    return ok();
+                case "DELETE":
+                    if (!service.close(tableId)) {
+                        throw new NoSuchElementException("No table " + tableId);
+                    }
+                    return ok();
+                default:
+                    throw new UnsupportedOperationException("Method " + method + " not allowed");
+            }
+        }
+
+        if (!method.equals("POST")) {
+            throw new UnsupportedOperationException("Method " + method + " not allowed");
+        }
+        if (parts.length == 2 && parts[1].equals("round")) {
+            service.newRound(tableId);
+            return ok();
+        }
+        if (parts.length == 3 && (parts[1].equals("player") || parts[1].equals("dealer"))) {
+            service.deal(tableId, parseInt(parts[2]), parts[1].equals("dealer"));
+            return ok();
+        }
+        throw new IllegalArgumentException("Unknown resource " + path);
+    }
+
+    private static Rules parseRules(String query) {
+        Rules rules = Rules.standard();
+        String decks = null;
+        if (query != null) {
+            for (String parameter : query.split("&")) {
+                if (parameter.startsWith("rules=")) {
+                    rules = Rules.parse(parameter.substring("rules=".length()));
+                } else if (parameter.startsWith("decks=")) {
+                    decks = parameter.substring("decks=".length());
+                }
+            }
+        }
+        return decks != null ? rules.withDecks(parseInt(decks)) : rules;
+    }
+
+    private static int parseInt(String text) {
+        try {
+            return Integer.parseInt(text);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Not a number: " + text);
+        }
+    }
+
+    private static String ok() {
+        return "{\"ok\":true}";
+    }
+
+    private static String error(RuntimeException e) {
+        return "{\"error\":\"" + String.valueOf(e.getMessage()).replace("\\", "\\\\").replace("\"", "\\\"") + "\"}";
+    }
+
+    /**
+     * @brief Starts a server. Arguments: [port] [threads], by default 8021 and one thread per core.
+     *
+     * @param args The command line arguments.
+     * @throws IOException If the port cannot be bound.
+     */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        SessionServer server = new SessionServer(new SessionService(), port, threads);
+        server.start();
+        System.out.println("Session server listening on port " + server.port());
+    }
+}
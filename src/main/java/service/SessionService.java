@@ -0,0 +1,186 @@
+package service;
+
+import model.Analysis;
+import model.BlackJackModel;
+import model.Rules;
+import model.Shoe;
+import model.StrategyTable;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * @brief Hosts many independent tables in one process.
+ * @details Updates to a table are serialized by one of a fixed set of locks chosen from the table id, so tables
+ *          on different stripes never contend and the lock count does not grow with the number of tables.
+ *          An analysis copies the table under its lock and then runs outside of it, on a model owned by the
+ *          calling thread, so a slow computation never blocks the other tables of its stripe.
+ */
+public class SessionService {
+    private static final int STRIPES = 64;
+    // Each model holds tens of megabytes of memo tables, so a thread keeps only its most recent rule sets
+    private static final int MODELS_PER_THREAD = 4;
+
+    private final ConcurrentHashMap<String, TableSession> tables = new ConcurrentHashMap<>();
+    private final ReentrantLock[] locks = new ReentrantLock[STRIPES];
+    // The models hold memo tables and are not thread-safe: one per worker thread and set of rules, least
+    // recently used first
+    private final ThreadLocal<Map<Rules, BlackJackModel>> models =
+            ThreadLocal.withInitial(() -> new LinkedHashMap<>(16, 0.75f, true));
+
+    /**
+     * @brief Creates the service with no tables.
+     */
+    public SessionService() {
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * @brief Opens a table with a fresh shoe and the standard rules.
+     *
+     * @param tableId The table id.
+     * @param decks The number of decks.
+     * @throws IllegalArgumentException If the number of decks is out of range.
+     * @throws IllegalStateException If the table already exists.
+     */
+    public void open(String tableId, int decks) {
+        if (decks < 1 || decks > Shoe.MAX_DECKS) {
+            throw new IllegalArgumentException("Decks must be between 1 and " + Shoe.MAX_DECKS);
+        }
+        open(tableId, Rules.standard().withDecks(decks));
+    }
+
+    /**
+     * @brief Opens a table with a fresh shoe.
+     *
+     * @param tableId The table id.
+     * @param rules The table rules, which give the number of decks.
+     * @throws IllegalStateException If the table already exists.
+     */
+    public void open(String tableId, Rules rules) {
+        ReentrantLock lock = lockFor(tableId);
+        lock.lock();
+        try {
+            if (tables.putIfAbsent(tableId, new TableSession(rules)) != null) {
+                throw new IllegalStateException("Table " + tableId + " already exists");
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @brief Closes a table.
+     *
+     * @param tableId The table id.
+     * @return True if the table existed.
+     */
+    public boolean close(String tableId) {
+        ReentrantLock lock = lockFor(tableId);
+        lock.lock();
+        try {
+            return tables.remove(tableId) != null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @brief Deals a card to the player or the dealer of a table.
+     *
+     * @param tableId The table id.
+     * @param rank The rank of the card, from 1 (ace) to 10.
+     * @param toDealer True to give the card to the dealer, false to the player.
+     * @throws IllegalArgumentException If the rank is out of range.
+     * @throws NoSuchElementException If the table does not exist.
+     * @throws IllegalStateException If no card of that rank is left.
+     */
+    public void deal(String tableId, int rank, boolean toDealer) {
+        if (rank < 1 || rank > 10) {
+            throw new IllegalArgumentException("Card rank must be between 1 and 10");
+        }
+        ReentrantLock lock = lockFor(tableId);
+        lock.lock();
+        try {
+            table(tableId).deal(rank, toDealer);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @brief Starts a new round on a table, clearing both hands.
+     *
+     * @param tableId The table id.
+     * @throws NoSuchElementException If the table does not exist.
+     */
+    public void newRound(String tableId) {
+        ReentrantLock lock = lockFor(tableId);
+        lock.lock();
+        try {
+            table(tableId).newRound();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @brief Analyzes the current state of a table.
+     *
+     * @param tableId The table id.
+     * @return The report.
+     * @throws NoSuchElementException If the table does not exist.
+     */
+    public TableReport analyze(String tableId) {
+        TableSession.Snapshot snapshot;
+        ReentrantLock lock = lockFor(tableId);
+        lock.lock();
+        try {
+            snapshot = table(tableId).snapshot();
+        } finally {
+            lock.unlock();
+        }
+
+        // The number of decks only changes the shoe, so tables of every size share a model
+        Map<Rules, BlackJackModel> threadModels = models.get();
+        BlackJackModel model = threadModels.computeIfAbsent(snapshot.rules().withDecks(Rules.standard().decks()),
+                rules -> new BlackJackModel(StrategyTable.shared(), rules));
+        if (threadModels.size() > MODELS_PER_THREAD) {
+            Iterator<BlackJackModel> eldest = threadModels.values().iterator();
+            eldest.next();
+            eldest.remove();
+        }
+        model.setHands(snapshot.playerCards(), snapshot.dealerCards());
+        Analysis analysis = model.analyze(snapshot.shoe(), Analysis.EMPTY, true, !snapshot.dealerCards().isEmpty());
+        return new TableReport(tableId, snapshot.shoe().total(), snapshot.runningCount(), snapshot.trueCount(),
+                analysis);
+    }
+
+    /**
+     * @brief Returns the number of open tables.
+     *
+     * @return The number of tables.
+     */
+    public int size() {
+        return tables.size();
+    }
+
+    private TableSession table(String tableId) {
+        TableSession table = tables.get(tableId);
+        if (table == null) {
+            throw new NoSuchElementException("No table " + tableId);
+        }
+        return table;
+    }
+
+    private ReentrantLock lockFor(String tableId) {
+        int hash = tableId.hashCode();
+        return locks[(hash ^ (hash >>> 16)) & (STRIPES - 1)];
+    }
+}
@@ -0,0 +1,67 @@
+package service;
+
+import model.Action;
+import model.ActionValues;
+import model.Analysis;
+
+import java.util.Locale;
+
+/**
+ * @brief Result of analyzing one table, with its JSON form used by the HTTP API.
+ *
+ * @param tableId The table id.
+ * @param cardsLeft The number of cards left in the shoe.
+ * @param runningCount The Hi-Lo running count.
+ * @param trueCount The Hi-Lo true count.
+ * @param analysis The probabilities and the recommended action.
+ */
+public record TableReport(String tableId, int cardsLeft, int runningCount, double trueCount, Analysis analysis) {
+
+    /**
+     * @brief Formats the report as a JSON object.
+     *
+     * @return The JSON text.
+     */
+    public String toJson() {
+        StringBuilder json = new StringBuilder(256);
+        json.append("{\"table\":\"").append(escape(tableId)).append('"')
+                .append(",\"cardsLeft\":").append(cardsLeft)
+                .append(",\"runningCount\":").append(runningCount)
+                .append(",\"trueCount\":").append(number(trueCount))
+                .append(",\"playerBust\":").append(number(analysis.playerBust()))
+                .append(",\"dealerBust\":").append(number(analysis.dealerBust()))
+                .append(",\"dealer\":{");
+        for (int total = Analysis.DEALER_MIN; total <= Analysis.DEALER_MAX; total++) {
+            if (total > Analysis.DEALER_MIN) json.append(',');
+            json.append('"').append(total).append("\":").append(number(analysis.dealerProbability(total)));
+        }
+        json.append('}');
+
+        ActionValues values = analysis.actionValues();
+        if (values != null) {
+            json.append(",\"ev\":{");
+            boolean first = true;
+            for (Action action : Action.values()) {
+                if (!values.isLegal(action)) continue;
+                if (!first) json.append(',');
+                json.append('"').append(action.name()).append("\":").append(number(values.ev(action)));
+                first = false;
+            }
+            json.append('}');
+        }
+
+        Action recommendation = analysis.recommendation();
+        json.append(",\"recommendation\":")
+                .append(recommendation != null ? "\"" + recommendation.name() + "\"" : "null")
+                .append('}');
+        return json.toString();
+    }
+
+    private static String number(double value) {
+        return Double.isFinite(value) ? String.format(Locale.ROOT, "%.6f", value) : "null";
+    }
+
+    private static String escape(String text) {
+        return text.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+}
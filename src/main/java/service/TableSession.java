@@ -0,0 +1,89 @@
+package service;
+
+import model.CardCounter;
+import model.CountingSystem;
+import model.HandState;
+import model.Rules;
+import model.Shoe;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @brief State of one table: its rules, the shoe, the current hands and the count.
+ * @details Not thread-safe; SessionService serializes every access under the table's lock stripe.
+ */
+class TableSession {
+    private final Rules rules;
+    private final Shoe shoe;
+    private final CardCounter counter;
+    private final List<Integer> playerCards = new ArrayList<>();
+    private final List<Integer> dealerCards = new ArrayList<>();
+    private HandState playerState = HandState.EMPTY;
+    private HandState dealerState = HandState.EMPTY;
+
+    /**
+     * @brief Creates a table with a fresh shoe.
+     *
+     * @param rules The table rules, which give the number of decks.
+     */
+    TableSession(Rules rules) {
+        this.rules = rules;
+        shoe = rules.newShoe();
+        counter = new CardCounter(CountingSystem.HI_LO, rules.decks());
+    }
+
+    /**
+     * @brief Deals a card from the shoe to a hand.
+     *
+     * @param rank The rank of the card, from 1 (ace) to 10.
+     * @param toDealer True to give the card to the dealer, false to the player.
+     * @throws IllegalStateException If the hand takes no more cards or no card of that rank is left.
+     */
+    void deal(int rank, boolean toDealer) {
+        // Same limits as the GUI: the player draws below 21, the dealer below 17 (and on soft 17 under H17)
+        HandState state = toDealer ? dealerState : playerState;
+        boolean drawsSoft17 = toDealer && rules.dealerHitsSoft17() && state.value() == 17 && state.isSoft();
+        if (state.value() >= (toDealer ? 17 : 21) && !drawsSoft17) {
+            throw new IllegalStateException((toDealer ? "Dealer" : "Player") + " hand takes no more cards");
+        }
+        if (!shoe.remove(rank)) {
+            throw new IllegalStateException("No card of rank " + rank + " left");
+        }
+        counter.cardSeen(rank);
+        if (toDealer) {
+            dealerCards.add(rank);
+            dealerState = dealerState.add(rank);
+        } else {
+            playerCards.add(rank);
+            playerState = playerState.add(rank);
+        }
+    }
+
+    /**
+     * @brief Clears both hands, keeping the shoe and the count.
+     */
+    void newRound() {
+        playerCards.clear();
+        dealerCards.clear();
+        playerState = HandState.EMPTY;
+        dealerState = HandState.EMPTY;
+    }
+
+    /**
+     * @brief Copies the state so it can be analyzed without holding the table's lock.
+     *
+     * @return The snapshot.
+     */
+    Snapshot snapshot() {
+        return new Snapshot(rules, shoe.copy(), List.copyOf(playerCards), List.copyOf(dealerCards),
+                counter.runningCount(), counter.trueCount());
+    }
+
+    /**
+     * @brief Immutable copy of a table's state.
+     */
+    record Snapshot(Rules rules, Shoe shoe, List<Integer> playerCards, List<Integer> dealerCards, int runningCount,
+                    double trueCount) {
+    }
+}